@@ -0,0 +1,59 @@
+package org.wildfly.extras.creaper.commands.datasources;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.FakeModelControllerClient;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of applying {@link AddDataSource} on the client side, that is, everything except the server:
+ * building the ~50 {@code Values}, the batch and performing it against a fake in-process
+ * {@code ModelControllerClient}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddDataSourceBenchmark {
+    private OnlineManagementClient client;
+    private AddDataSource addDataSource;
+
+    @Setup
+    public void setUp() throws IOException {
+        client = ManagementClient.online(OnlineOptions.standalone().wrap(FakeModelControllerClient.alwaysSuccess()));
+        addDataSource = new AddDataSource.Builder("ExampleDS")
+                .jndiName("java:/ExampleDS")
+                .driverName("h2")
+                .connectionUrl("jdbc:h2:mem:test;DB_CLOSE_DELAY=-1")
+                .maxPoolSize(20)
+                .addConnectionProperty("foo", "bar")
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+    }
+
+    @Benchmark
+    public void apply() throws CommandFailedException {
+        client.apply(addDataSource);
+    }
+}
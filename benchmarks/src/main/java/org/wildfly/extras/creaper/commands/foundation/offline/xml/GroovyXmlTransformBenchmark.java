@@ -0,0 +1,84 @@
+package org.wildfly.extras.creaper.commands.foundation.offline.xml;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.extras.creaper.commands.transactions.ChangeBasicTransactionAttributes;
+import org.wildfly.extras.creaper.commands.transactions.TransactionManager;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.offline.OfflineManagementClient;
+import org.wildfly.extras.creaper.core.offline.OfflineOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of an offline command implemented with {@link GroovyXmlTransform}: loading the script, parsing
+ * the configuration file, locating the subtree, running the script and serializing the result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroovyXmlTransformBenchmark {
+    private static final String CONFIGURATION = ""
+            + "<server xmlns=\"urn:jboss:domain:20.0\">\n"
+            + "    <profile>\n"
+            + "        <subsystem xmlns=\"urn:jboss:domain:transactions:6.0\">\n"
+            + "            <core-environment node-identifier=\"${jboss.tx.node.id:1}\">\n"
+            + "                <process-id>\n"
+            + "                    <uuid/>\n"
+            + "                </process-id>\n"
+            + "            </core-environment>\n"
+            + "            <recovery-environment socket-binding=\"txn-recovery-environment\""
+            + " status-socket-binding=\"txn-status-manager\"/>\n"
+            + "            <coordinator-environment statistics-enabled=\"false\"/>\n"
+            + "            <object-store path=\"tx-object-store\" relative-to=\"jboss.server.data.dir\"/>\n"
+            + "        </subsystem>\n"
+            + "    </profile>\n"
+            + "</server>";
+
+    private File configurationFile;
+    private OfflineManagementClient client;
+    private ChangeBasicTransactionAttributes command;
+
+    @Setup
+    public void setUp() throws IOException {
+        configurationFile = File.createTempFile("creaper-benchmark", ".xml");
+        client = ManagementClient.offline(OfflineOptions.standalone().configurationFile(configurationFile).build());
+        command = TransactionManager.basicAttributes()
+                .timeout(300)
+                .statisticsEnabled(true)
+                .build();
+    }
+
+    @Setup(Level.Invocation)
+    public void resetConfigurationFile() throws IOException {
+        Files.write(CONFIGURATION, configurationFile, Charsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        configurationFile.delete();
+    }
+
+    @Benchmark
+    public void apply() throws CommandFailedException {
+        client.apply(command);
+    }
+}
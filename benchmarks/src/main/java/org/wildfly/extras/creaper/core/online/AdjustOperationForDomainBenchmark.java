@@ -0,0 +1,70 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of adjusting operations for managed domain. The adjustment modifies the operation in place, so each
+ * invocation works on a copy; {@code copyOnly} is the baseline to subtract.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdjustOperationForDomainBenchmark {
+    private AdjustOperationForDomain adjust;
+    private ModelNode subsystemOperation;
+    private ModelNode composite;
+
+    @Setup
+    public void setUp() {
+        OnlineOptions options = OnlineOptions.domain().forHost("master").forProfile("default").build()
+                .localDefault().build();
+        adjust = new AdjustOperationForDomain(options);
+
+        subsystemOperation = new ModelNode();
+        subsystemOperation.get(Constants.OP).set(Constants.READ_RESOURCE_OPERATION);
+        subsystemOperation.get(Constants.OP_ADDR).add(Constants.SUBSYSTEM, "datasources");
+        subsystemOperation.get(Constants.OP_ADDR).add("data-source", "ExampleDS");
+
+        composite = new ModelNode();
+        composite.get(Constants.OP).set(Constants.COMPOSITE);
+        composite.get(Constants.OP_ADDR).setEmptyList();
+        for (int i = 0; i < 20; i++) {
+            ModelNode step = new ModelNode();
+            step.get(Constants.OP).set(Constants.ADD);
+            step.get(Constants.OP_ADDR).add(Constants.SUBSYSTEM, "datasources");
+            step.get(Constants.OP_ADDR).add("data-source", "ds" + i);
+            step.get("jndi-name").set("java:/ds" + i);
+            composite.get(Constants.STEPS).add(step);
+        }
+    }
+
+    @Benchmark
+    public ModelNode copyOnly() {
+        return subsystemOperation.clone();
+    }
+
+    @Benchmark
+    public ModelNode singleOperation() {
+        return adjust.adjust(subsystemOperation.clone());
+    }
+
+    @Benchmark
+    public ModelNode compositeOperation() {
+        return adjust.adjust(composite.clone());
+    }
+}
@@ -0,0 +1,75 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wildfly.extras.creaper.core.ManagementClient;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Cost of a single {@link OnlineManagementClient#execute(ModelNode) execute} call, excluding the network.
+ * Run with the GC profiler to see allocation per operation:</p>
+ *
+ * <pre>
+ * mvn package -Pbenchmarks -pl benchmarks -am -DskipTests
+ * java -jar benchmarks/target/benchmarks.jar ExecuteBenchmark -prof gc
+ * </pre>
+ *
+ * <p>and compare {@code gc.alloc.rate.norm} of {@code execute} with {@code executeAsBefore}, which replicates
+ * what {@code execute} used to do: build the debug and trace log messages even when these levels were disabled.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecuteBenchmark {
+    private OnlineManagementClient client;
+    private ModelNode operation;
+
+    @Setup
+    public void setUp() throws IOException {
+        ModelNode response = new ModelNode();
+        response.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        for (int i = 0; i < 50; i++) {
+            response.get(Constants.RESULT, "attribute-" + i).set("value-" + i);
+        }
+
+        client = ManagementClient.online(OnlineOptions.standalone().wrap(new FakeModelControllerClient(response)));
+
+        operation = new ModelNode();
+        operation.get(Constants.OP).set(Constants.READ_RESOURCE_OPERATION);
+        operation.get(Constants.OP_ADDR).add(Constants.SUBSYSTEM, "datasources");
+        operation.get(Constants.OP_ADDR).add("data-source", "ExampleDS");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+    }
+
+    @Benchmark
+    public ModelNodeResult execute() throws IOException {
+        return client.execute(operation);
+    }
+
+    @Benchmark
+    public ModelNodeResult executeAsBefore(Blackhole blackhole) throws IOException {
+        blackhole.consume(ModelNodeOperationToCliString.convert(operation));
+        blackhole.consume(operation.toJSONString(false));
+        return client.execute(operation);
+    }
+}
@@ -0,0 +1,94 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.OperationMessageHandler;
+import org.jboss.as.controller.client.OperationResponse;
+import org.jboss.dmr.ModelNode;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>A {@code ModelControllerClient} that answers every operation with a copy of the same canned response. Reading
+ * the root resource and its children types is answered like a standalone server would, so that the client can
+ * connect, and {@code composite} operations are answered step by step.</p>
+ *
+ * <p>Each response is a fresh copy, just like a response deserialized from the wire.</p>
+ */
+public final class FakeModelControllerClient implements ModelControllerClient {
+    private static final ModelNode ROOT_RESOURCE = ModelNode.fromString(""
+            + "{\n"
+            + "    \"outcome\" => \"success\",\n"
+            + "    \"result\" => {\n"
+            + "        \"management-major-version\" => 29,\n"
+            + "        \"management-minor-version\" => 0,\n"
+            + "        \"management-micro-version\" => 0\n"
+            + "    }\n"
+            + "}");
+
+    private static final ModelNode ROOT_CHILDREN_TYPES = ModelNode.fromString(""
+            + "{\n"
+            + "    \"outcome\" => \"success\",\n"
+            + "    \"result\" => [\"core-service\", \"subsystem\"]\n"
+            + "}");
+
+    private final ModelNode response;
+
+    public FakeModelControllerClient(ModelNode response) {
+        this.response = response;
+    }
+
+    /** A client that answers every operation with a plain {@code success}. */
+    public static FakeModelControllerClient alwaysSuccess() {
+        ModelNode response = new ModelNode();
+        response.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        return new FakeModelControllerClient(response);
+    }
+
+    private ModelNode respond(ModelNode operation) {
+        String name = operation.get(Constants.OP).asString();
+
+        if (Constants.COMPOSITE.equals(name)) {
+            ModelNode result = new ModelNode();
+            result.get(Constants.OUTCOME).set(Constants.SUCCESS);
+            int i = 1;
+            for (ModelNode step : operation.get(Constants.STEPS).asList()) {
+                result.get(Constants.RESULT, "step-" + i).set(respond(step));
+                i++;
+            }
+            return result;
+        }
+
+        ModelNode address = operation.get(Constants.OP_ADDR);
+        if (!address.isDefined() || address.asList().isEmpty()) {
+            if (Constants.READ_RESOURCE_OPERATION.equals(name)) {
+                return ROOT_RESOURCE.clone();
+            } else if (Constants.READ_CHILDREN_TYPES.equals(name)) {
+                return ROOT_CHILDREN_TYPES.clone();
+            }
+        }
+
+        return response.clone();
+    }
+
+    @Override
+    public OperationResponse executeOperation(Operation operation, OperationMessageHandler messageHandler) {
+        return OperationResponse.Factory.createSimple(respond(operation.getOperation()));
+    }
+
+    @Override
+    public CompletableFuture<ModelNode> executeAsync(Operation operation, OperationMessageHandler messageHandler) {
+        return CompletableFuture.completedFuture(respond(operation.getOperation()));
+    }
+
+    @Override
+    public CompletableFuture<OperationResponse> executeOperationAsync(Operation operation,
+                                                                      OperationMessageHandler messageHandler) {
+        return CompletableFuture.completedFuture(OperationResponse.Factory.createSimple(
+                respond(operation.getOperation())));
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,74 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Cost of converting operations to the CLI syntax, which is done for debug logging. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelNodeOperationToCliStringBenchmark {
+    private ModelNode simpleOperation;
+    private ModelNode operationWithParameters;
+    private ModelNode composite;
+
+    @Setup
+    public void setUp() {
+        simpleOperation = new ModelNode();
+        simpleOperation.get(Constants.OP).set(Constants.READ_RESOURCE_OPERATION);
+        simpleOperation.get(Constants.OP_ADDR).add(Constants.SUBSYSTEM, "datasources");
+        simpleOperation.get(Constants.OP_ADDR).add("data-source", "ExampleDS");
+
+        operationWithParameters = addDataSource("ExampleDS");
+
+        composite = new ModelNode();
+        composite.get(Constants.OP).set(Constants.COMPOSITE);
+        composite.get(Constants.OP_ADDR).setEmptyList();
+        for (int i = 0; i < 20; i++) {
+            composite.get(Constants.STEPS).add(addDataSource("ds" + i));
+        }
+    }
+
+    private static ModelNode addDataSource(String name) {
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set(Constants.ADD);
+        op.get(Constants.OP_ADDR).add(Constants.SUBSYSTEM, "datasources");
+        op.get(Constants.OP_ADDR).add("data-source", name);
+        op.get("jndi-name").set("java:/" + name);
+        op.get("driver-name").set("h2");
+        op.get("connection-url").set("jdbc:h2:mem:test;DB_CLOSE_DELAY=-1");
+        op.get("max-pool-size").set(20);
+        op.get("jta").set(true);
+        op.get("connection-properties", "foo").set("bar");
+        return op;
+    }
+
+    @Benchmark
+    public String simpleOperation() {
+        return ModelNodeOperationToCliString.convert(simpleOperation);
+    }
+
+    @Benchmark
+    public String operationWithParameters() {
+        return ModelNodeOperationToCliString.convert(operationWithParameters);
+    }
+
+    @Benchmark
+    public String compositeOperation() {
+        return ModelNodeOperationToCliString.convert(composite);
+    }
+}
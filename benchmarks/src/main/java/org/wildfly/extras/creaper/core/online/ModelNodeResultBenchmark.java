@@ -0,0 +1,107 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Cost of the {@link ModelNodeResult} accessors that commands use to inspect results. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelNodeResultBenchmark {
+    private ModelNode response;
+    private ModelNodeResult stringResult;
+    private ModelNodeResult listResult;
+    private ModelNodeResult batchResult;
+    private ModelNodeResult largeBatchResult;
+    private ModelNodeResult domainResult;
+
+    @Setup
+    public void setUp() {
+        response = new ModelNode();
+        response.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        for (int i = 0; i < 50; i++) {
+            response.get(Constants.RESULT, "attribute-" + i).set("value-" + i);
+        }
+
+        ModelNode string = new ModelNode();
+        string.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        string.get(Constants.RESULT).set("running");
+        stringResult = new ModelNodeResult(string);
+
+        ModelNode list = new ModelNode();
+        list.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        for (int i = 0; i < 50; i++) {
+            list.get(Constants.RESULT).add("child-" + i);
+        }
+        listResult = new ModelNodeResult(list);
+
+        ModelNode batch = new ModelNode();
+        batch.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        for (int i = 1; i <= 20; i++) {
+            batch.get(Constants.RESULT, "step-" + i).set(string);
+        }
+        batchResult = new ModelNodeResult(batch);
+        for (int i = 21; i <= 5_000; i++) {
+            batch.get(Constants.RESULT, "step-" + i).set(string);
+        }
+        largeBatchResult = new ModelNodeResult(batch);
+
+        ModelNode domain = new ModelNode();
+        domain.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        for (int i = 1; i <= 4; i++) {
+            domain.get(Constants.SERVER_GROUPS, "main-server-group", Constants.HOST, "master", "server-" + i,
+                    Constants.RESPONSE).set(string);
+        }
+        domainResult = new ModelNodeResult(domain);
+    }
+
+    @Benchmark
+    public ModelNodeResult copy() {
+        return new ModelNodeResult(response);
+    }
+
+    @Benchmark
+    public boolean isSuccess() {
+        return stringResult.isSuccess();
+    }
+
+    @Benchmark
+    public String stringValue() {
+        return stringResult.stringValue();
+    }
+
+    @Benchmark
+    public List<String> stringListValue() {
+        return listResult.stringListValue();
+    }
+
+    @Benchmark
+    public ModelNodeResult forBatchStep() {
+        return batchResult.forBatchStep(10);
+    }
+
+    @Benchmark
+    public ModelNodeResult forBatchStepInLargeBatch() {
+        return largeBatchResult.forBatchStep(4_000);
+    }
+
+    @Benchmark
+    public ModelNodeResult forServer() {
+        return domainResult.forServer("master", "server-3");
+    }
+}
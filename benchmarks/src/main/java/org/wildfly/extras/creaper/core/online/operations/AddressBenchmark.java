@@ -0,0 +1,54 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Cost of building {@link Address}es and converting them to {@code ModelNode}s. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddressBenchmark {
+    private Address deepAddress;
+
+    @Setup
+    public void setUp() {
+        deepAddress = Address.subsystem("messaging-activemq")
+                .and("server", "default")
+                .and("jms-queue", "ExpiryQueue")
+                .and("runtime", "queue")
+                .and("consumer", "1");
+    }
+
+    @Benchmark
+    public Address shallowAddress() {
+        return Address.subsystem("datasources").and("data-source", "ExampleDS");
+    }
+
+    @Benchmark
+    public Address deepAddress() {
+        return Address.subsystem("messaging-activemq")
+                .and("server", "default")
+                .and("jms-queue", "ExpiryQueue")
+                .and("runtime", "queue")
+                .and("consumer", "1");
+    }
+
+    @Benchmark
+    public ModelNode toModelNode() {
+        return deepAddress.toModelNode();
+    }
+}
@@ -0,0 +1,90 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.FakeModelControllerClient;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building operations ({@link OperationsModelNodeBuilder}, {@link Batch}) and of performing them
+ * through {@link Operations} against a fake in-process {@code ModelControllerClient}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperationsBenchmark {
+    private OperationsModelNodeBuilder builder;
+    private Address address;
+    private Values values;
+    private OnlineManagementClient client;
+    private Operations ops;
+
+    @Setup
+    public void setUp() throws IOException {
+        builder = new OperationsModelNodeBuilder();
+        address = Address.subsystem("datasources").and("data-source", "ExampleDS");
+        values = Values.empty()
+                .and("jndi-name", "java:/ExampleDS")
+                .and("driver-name", "h2")
+                .and("connection-url", "jdbc:h2:mem:test;DB_CLOSE_DELAY=-1")
+                .and("max-pool-size", 20)
+                .and("jta", true);
+
+        client = ManagementClient.online(OnlineOptions.standalone().wrap(FakeModelControllerClient.alwaysSuccess()));
+        ops = new Operations(client);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+    }
+
+    @Benchmark
+    public ModelNode buildAdd() {
+        return builder.add(address, values);
+    }
+
+    @Benchmark
+    public ModelNode buildReadAttribute() {
+        return builder.readAttribute(address, "max-pool-size");
+    }
+
+    @Benchmark
+    public ModelNode buildBatch() {
+        Batch batch = new Batch();
+        batch.add(address, values);
+        for (int i = 0; i < 10; i++) {
+            batch.add(address.and("connection-properties", "property-" + i), Values.of("value", "value-" + i));
+        }
+        return batch.toModelNode();
+    }
+
+    @Benchmark
+    public ModelNodeResult executeAdd() throws IOException {
+        return ops.add(address, values);
+    }
+
+    @Benchmark
+    public boolean executeExists() throws IOException, OperationException {
+        return ops.exists(address);
+    }
+}
@@ -0,0 +1,202 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of chaining {@link Values}. {@code dataSourceValues} replicates the chain of {@code AddDataSource.apply},
+ * where most of the optional values are {@code null}, as they are for a typical data source.
+ * {@code dataSourceValuesBuilder} builds the same values with {@link Values#builder()}. {@code manyValues*}
+ * add {@link #MANY} non-null values, where chaining takes quadratic time and the builder takes linear time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValuesBenchmark {
+    private static final int MANY = 50;
+    private static final String[] NAMES = new String[MANY];
+
+    static {
+        for (int i = 0; i < MANY; i++) {
+            NAMES[i] = "attribute-" + i;
+        }
+    }
+
+    private String connectionUrl;
+    private String jndiName;
+    private String driverName;
+    private Integer maxPoolSize;
+    private Boolean jta;
+    private String unsetString;
+    private Boolean unsetBoolean;
+    private Integer unsetInteger;
+    private Long unsetLong;
+
+    @Setup
+    public void setUp() {
+        connectionUrl = "jdbc:h2:mem:test;DB_CLOSE_DELAY=-1";
+        jndiName = "java:/ExampleDS";
+        driverName = "h2";
+        maxPoolSize = 20;
+        jta = true;
+    }
+
+    @Benchmark
+    public Values fewValues() {
+        return Values.empty()
+                .and("jndi-name", jndiName)
+                .and("driver-name", driverName)
+                .and("connection-url", connectionUrl);
+    }
+
+    @Benchmark
+    public Values dataSourceValues() {
+        return Values.empty()
+                .andOptional("connection-url", connectionUrl)
+                .andOptional("jndi-name", jndiName)
+                .andOptional("driver-name", driverName)
+                .andOptional("user-name", unsetString)
+                .andOptional("password", unsetString)
+                .andOptional("jta", jta)
+                .andOptional("use-java-context", unsetBoolean)
+                .andOptional("connectable", unsetBoolean)
+                .andOptional("mcp", unsetString)
+                .andOptional("max-pool-size", maxPoolSize)
+                .andOptional("min-pool-size", unsetInteger)
+                .andOptional("statistics-enabled", unsetBoolean)
+                .andOptional("driver-class", unsetString)
+                .andOptional("datasource-class", unsetString)
+                .andOptional("pool-use-strict-min", unsetBoolean)
+                .andOptional("allow-multiple-users", unsetBoolean)
+                .andOptional("pool-prefill", unsetBoolean)
+                .andOptional("new-connection-sql", unsetString)
+                .andOptional("url-delimiter", unsetString)
+                .andOptional("url-selector-strategy-class-name", unsetString)
+                .andOptional("check-valid-connection-sql", unsetString)
+                .andOptional("validate-on-match", unsetBoolean)
+                .andOptional("background-validation", unsetBoolean)
+                .andOptional("background-validation-millis", unsetInteger)
+                .andOptional("use-fast-fail", unsetBoolean)
+                .andOptional("stale-connection-checker-class-name", unsetString)
+                .andObjectOptional("stale-connection-checker-properties",
+                        Values.fromMap(Collections.<String, String>emptyMap()))
+                .andOptional("exception-sorter-class-name", unsetString)
+                .andObjectOptional("exception-sorter-properties",
+                        Values.fromMap(Collections.<String, String>emptyMap()))
+                .andOptional("valid-connection-checker-class-name", unsetString)
+                .andObjectOptional("valid-connection-checker-properties",
+                        Values.fromMap(Collections.<String, String>emptyMap()))
+                .andOptional("spy", unsetBoolean)
+                .andOptional("blocking-timeout-wait-millis", unsetLong)
+                .andOptional("idle-timeout-minutes", unsetInteger)
+                .andOptional("set-tx-query-timeout", unsetBoolean)
+                .andOptional("query-timeout", unsetInteger)
+                .andOptional("use-try-lock", unsetInteger)
+                .andOptional("allocation-retry", unsetInteger)
+                .andOptional("allocation-retry-wait-millis", unsetInteger)
+                .andOptional("security-domain", unsetString)
+                .andOptional("reauth-plugin-class-name", unsetString)
+                .andObjectOptional("reauth-plugin-properties",
+                        Values.fromMap(Collections.<String, String>emptyMap()))
+                .andOptional("use-ccm", unsetBoolean)
+                .andOptional("prepared-statements-cache-size", unsetLong)
+                .andOptional("share-prepared-statements", unsetBoolean)
+                .and("enabled", true);
+    }
+
+    @Benchmark
+    public Values dataSourceValuesBuilder() {
+        return Values.builder()
+                .andOptional("connection-url", connectionUrl)
+                .andOptional("jndi-name", jndiName)
+                .andOptional("driver-name", driverName)
+                .andOptional("user-name", unsetString)
+                .andOptional("password", unsetString)
+                .andOptional("jta", jta)
+                .andOptional("use-java-context", unsetBoolean)
+                .andOptional("connectable", unsetBoolean)
+                .andOptional("mcp", unsetString)
+                .andOptional("max-pool-size", maxPoolSize)
+                .andOptional("min-pool-size", unsetInteger)
+                .andOptional("statistics-enabled", unsetBoolean)
+                .andOptional("driver-class", unsetString)
+                .andOptional("datasource-class", unsetString)
+                .andOptional("pool-use-strict-min", unsetBoolean)
+                .andOptional("allow-multiple-users", unsetBoolean)
+                .andOptional("pool-prefill", unsetBoolean)
+                .andOptional("new-connection-sql", unsetString)
+                .andOptional("url-delimiter", unsetString)
+                .andOptional("url-selector-strategy-class-name", unsetString)
+                .andOptional("check-valid-connection-sql", unsetString)
+                .andOptional("validate-on-match", unsetBoolean)
+                .andOptional("background-validation", unsetBoolean)
+                .andOptional("background-validation-millis", unsetInteger)
+                .andOptional("use-fast-fail", unsetBoolean)
+                .andOptional("stale-connection-checker-class-name", unsetString)
+                .andObjectOptional("stale-connection-checker-properties",
+                        Values.fromMap(Collections.<String, String>emptyMap()))
+                .andOptional("exception-sorter-class-name", unsetString)
+                .andObjectOptional("exception-sorter-properties",
+                        Values.fromMap(Collections.<String, String>emptyMap()))
+                .andOptional("valid-connection-checker-class-name", unsetString)
+                .andObjectOptional("valid-connection-checker-properties",
+                        Values.fromMap(Collections.<String, String>emptyMap()))
+                .andOptional("spy", unsetBoolean)
+                .andOptional("blocking-timeout-wait-millis", unsetLong)
+                .andOptional("idle-timeout-minutes", unsetInteger)
+                .andOptional("set-tx-query-timeout", unsetBoolean)
+                .andOptional("query-timeout", unsetInteger)
+                .andOptional("use-try-lock", unsetInteger)
+                .andOptional("allocation-retry", unsetInteger)
+                .andOptional("allocation-retry-wait-millis", unsetInteger)
+                .andOptional("security-domain", unsetString)
+                .andOptional("reauth-plugin-class-name", unsetString)
+                .andObjectOptional("reauth-plugin-properties",
+                        Values.fromMap(Collections.<String, String>emptyMap()))
+                .andOptional("use-ccm", unsetBoolean)
+                .andOptional("prepared-statements-cache-size", unsetLong)
+                .andOptional("share-prepared-statements", unsetBoolean)
+                .and("enabled", true)
+                .build();
+    }
+
+    @Benchmark
+    public Values manyValuesChained() {
+        Values values = Values.empty();
+        for (String name : NAMES) {
+            values = values.and(name, connectionUrl);
+        }
+        return values;
+    }
+
+    @Benchmark
+    public Values manyValuesBuilder() {
+        Values.Builder values = Values.builder();
+        for (String name : NAMES) {
+            values.and(name, connectionUrl);
+        }
+        return values.build();
+    }
+
+    @Benchmark
+    public ModelNode dataSourceValuesToModelNode() {
+        ModelNode node = new ModelNode();
+        dataSourceValues().addToModelNode(node);
+        return node;
+    }
+}
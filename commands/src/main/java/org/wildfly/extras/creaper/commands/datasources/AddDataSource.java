@@ -163,7 +163,7 @@ public class AddDataSource implements OnlineCommand, OfflineCommand {
             }
         }
 
-        Values values = Values.empty()
+        Values.Builder values = Values.builder()
             .andOptional("connection-url", connectionUrl)
             .andOptional("jndi-name", jndiName)
             .andOptional("driver-name", driverName)
@@ -210,12 +210,12 @@ public class AddDataSource implements OnlineCommand, OfflineCommand {
             .andOptional("prepared-statements-cache-size", preparedStatementCacheSize)
             .andOptional("share-prepared-statements", sharePreparedStatements)
             .and("enabled", enableAfterCreation);
-        if (flushStrategy != null) values = values.and("flush-strategy", flushStrategy.value());
-        if (transactionIsolation != null) values = values.and("transaction-isolation", transactionIsolation.value());
-        if (trackStatements != null) values = values.and("track-statements", trackStatements.value());
+        if (flushStrategy != null) values.and("flush-strategy", flushStrategy.value());
+        if (transactionIsolation != null) values.and("transaction-isolation", transactionIsolation.value());
+        if (trackStatements != null) values.and("track-statements", trackStatements.value());
 
         Batch batch = new Batch();
-        batch.add(dsAddress, values);
+        batch.add(dsAddress, values.build());
 
         if (connectionProperties != null) {
             for (Map.Entry<String, String> entry : connectionProperties.entrySet()) {
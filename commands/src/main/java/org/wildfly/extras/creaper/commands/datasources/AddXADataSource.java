@@ -179,7 +179,7 @@ public class AddXADataSource implements OnlineCommand, OfflineCommand {
             }
         }
 
-        Values values = Values.empty()
+        Values.Builder values = Values.builder()
             .andOptional("allocation-retry", allocationRetry)
             .andOptional("allocation-retry-wait-millis", allocationRetryWaitMillis)
             .andOptional("allow-multiple-users", allowMultipleUsers)
@@ -234,12 +234,12 @@ public class AddXADataSource implements OnlineCommand, OfflineCommand {
             .andOptional("xa-datasource-class", xaDatasourceClass)
             .andOptional("xa-resource-timeout", xaResourceTimeout)
             .and("enabled", enableAfterCreation);
-        if (flushStrategy != null) values = values.and("flush-strategy", flushStrategy.value());
-        if (transactionIsolation != null) values = values.and("transaction-isolation", transactionIsolation.value());
-        if (trackPreparedStatements != null) values = values.and("track-statements", trackPreparedStatements.value());
+        if (flushStrategy != null) values.and("flush-strategy", flushStrategy.value());
+        if (transactionIsolation != null) values.and("transaction-isolation", transactionIsolation.value());
+        if (trackPreparedStatements != null) values.and("track-statements", trackPreparedStatements.value());
 
         Batch batch = new Batch();
-        batch.add(dsAddress, values);
+        batch.add(dsAddress, values.build());
 
         if (xaDatasourceProperties != null) {
             for (Map.Entry<String, String> entry : xaDatasourceProperties.entrySet()) {
@@ -89,6 +89,17 @@ public final class GroovyXmlTransform implements OfflineCommand {
 
     @Override
     public void apply(OfflineCommandContext ctx) throws CommandFailedException, IOException {
+        GroovyXmlTransformEvent event = GroovyXmlTransformEvent.start();
+        try {
+            transform(ctx);
+        } catch (CommandFailedException | IOException | RuntimeException e) {
+            event.finish(this, ctx.configurationFile, e);
+            throw e;
+        }
+        event.finish(this, ctx.configurationFile, null);
+    }
+
+    private void transform(OfflineCommandContext ctx) throws CommandFailedException, IOException {
         URL url = script.url();
         if (url == null) {
             throw new CommandFailedException("Couldn't load " + script);
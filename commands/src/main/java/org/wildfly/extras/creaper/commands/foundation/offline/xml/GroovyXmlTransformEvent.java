@@ -0,0 +1,41 @@
+package org.wildfly.extras.creaper.commands.foundation.offline.xml;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.wildfly.extras.creaper.core.online.jfr.JfrEvents;
+
+/** JFR event for {@link GroovyXmlTransform#apply(org.wildfly.extras.creaper.core.offline.OfflineCommandContext)}. */
+@Name("org.wildfly.extras.creaper.GroovyXmlTransform")
+@Label("Groovy XML Transform")
+@Description("Transformation of a configuration file by a Groovy script")
+@Category({"Creaper", "Offline"})
+@StackTrace(false)
+final class GroovyXmlTransformEvent extends Event {
+    @Label("Transformation")
+    private String transformation;
+
+    @Label("Configuration File")
+    private String configurationFile;
+
+    @Label("Outcome")
+    private String outcome;
+
+    static GroovyXmlTransformEvent start() {
+        GroovyXmlTransformEvent event = new GroovyXmlTransformEvent();
+        event.begin();
+        return event;
+    }
+
+    void finish(GroovyXmlTransform transform, Object configurationFile, Throwable failure) {
+        if (shouldCommit()) {
+            this.transformation = transform.toString();
+            this.configurationFile = String.valueOf(configurationFile);
+            this.outcome = JfrEvents.outcome(failure);
+            commit();
+        }
+    }
+}
@@ -19,6 +19,10 @@ import java.util.List;
  * <li>operations whose addresses start with {@code /core-service=...} &ndash; {@code /host=...} is prepended;
  *     if there is no default host, the operation is executed as-is (without any transformation)</li>
  * </ul>
+ *
+ * <p>Operations built by {@code Operations}, {@code Batch} (when created with {@code OnlineOptions}) and
+ * {@code Pipeline} are adjusted the same way already when they are built, see {@code Address.forDomain}.
+ * This class is still needed for raw {@code ModelNode} operations and CLI operations.</p>
  */
 final class AdjustOperationForDomain {
     private final OnlineOptions options;
@@ -0,0 +1,162 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/** Helpers for the asynchronous variants of {@link OnlineManagementClient} methods. */
+final class AsyncExecution {
+    private AsyncExecution() {
+        // avoid instantiation
+    }
+
+    /**
+     * Returns a future that is completed with {@code source}'s value transformed by {@code function}, or exceptionally
+     * with {@code source}'s (unwrapped) exception. In contrast to {@code CompletableFuture.thenApply}, cancelling
+     * the returned future also cancels the {@code source} future, which in case of {@code ModelControllerClient}
+     * means cancelling the management operation.
+     */
+    static <T, R> CompletableFuture<R> map(final CompletableFuture<T> source, final Function<T, R> function) {
+        final CompletableFuture<R> result = new CompletableFuture<R>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                source.cancel(mayInterruptIfRunning);
+                return cancelled;
+            }
+        };
+
+        source.whenComplete((value, exception) -> {
+            if (exception != null) {
+                result.completeExceptionally(unwrap(exception));
+                return;
+            }
+
+            try {
+                result.complete(function.apply(value));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+
+        return result;
+    }
+
+    static CompletableFuture<ModelNodeResult> toModelNodeResult(CompletableFuture<ModelNode> source) {
+        return map(source, ModelNodeResult::new);
+    }
+
+    /**
+     * Runs {@code commands} on the {@code executor} using the {@code applyFunction}. Cancelling the returned future
+     * prevents commands that haven't started yet from running; the command that is currently running is allowed
+     * to finish.
+     */
+    static CompletableFuture<Void> applyAsync(final Iterable<OnlineCommand> commands, Executor executor,
+                                              final ApplyFunction applyFunction) {
+        final CompletableFuture<Void> result = new CompletableFuture<Void>();
+
+        executor.execute(() -> {
+            if (result.isDone()) {
+                return; // cancelled before it even started
+            }
+
+            try {
+                applyFunction.apply(commands, result::isCancelled);
+                result.complete(null);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Runs {@code executeFunction} on the {@code executor}. The returned future is completed with its result,
+     * or exceptionally with the exception it throws. Cancelling the returned future prevents the function
+     * from running if it hasn't started yet.
+     */
+    static CompletableFuture<ModelNodeResult> executeAsync(final ExecuteFunction executeFunction, Executor executor) {
+        final CompletableFuture<ModelNodeResult> result = new CompletableFuture<ModelNodeResult>();
+
+        executor.execute(() -> {
+            if (result.isDone()) {
+                return; // cancelled before it even started
+            }
+
+            try {
+                result.complete(executeFunction.execute());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * If the {@code exception} is a wrapper thrown from {@code CompletableFuture.join} or {@code Future.get},
+     * returns its cause. Otherwise, returns the {@code exception} itself.
+     */
+    static Throwable unwrap(Throwable exception) {
+        if ((exception instanceof CompletionException || exception instanceof ExecutionException)
+                && exception.getCause() != null) {
+            return exception.getCause();
+        }
+        return exception;
+    }
+
+    /**
+     * If an asynchronous operation was awaited from inside a command and it failed because of the automatic
+     * error handling, returns the original {@code CommandFailedException}. Otherwise, returns {@code null}.
+     */
+    static CommandFailedException commandFailure(Throwable exception) {
+        Throwable cause = unwrap(exception);
+        if (cause instanceof RuntimeCommandFailedException) {
+            return ((RuntimeCommandFailedException) cause).original;
+        }
+        return null;
+    }
+
+    static Executor defaultExecutor() {
+        return DefaultExecutorHolder.INSTANCE;
+    }
+
+    interface ApplyFunction {
+        void apply(Iterable<OnlineCommand> commands, CancellationCheck cancellation) throws CommandFailedException;
+    }
+
+    interface ExecuteFunction {
+        ModelNodeResult execute() throws IOException;
+    }
+
+    interface CancellationCheck {
+        boolean isCancelled();
+    }
+
+    /**
+     * Threads are only created when needed and are discarded after being idle for a while. They are daemon threads,
+     * so the executor doesn't have to be shut down.
+     */
+    private static final class DefaultExecutorHolder {
+        private static final AtomicInteger COUNTER = new AtomicInteger();
+
+        static final ExecutorService INSTANCE = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), runnable -> {
+                    Thread thread = new Thread(runnable, "creaper-async-" + COUNTER.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+}
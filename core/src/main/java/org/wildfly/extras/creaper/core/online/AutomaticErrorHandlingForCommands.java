@@ -6,6 +6,8 @@ import org.wildfly.extras.creaper.core.CommandFailedException;
 import org.wildfly.extras.creaper.core.ServerVersion;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeoutException;
 
 final class AutomaticErrorHandlingForCommands implements OnlineManagementClient {
@@ -52,6 +54,21 @@ final class AutomaticErrorHandlingForCommands implements OnlineManagementClient
         }
     }
 
+    @Override
+    public CompletableFuture<Void> applyAsync(OnlineCommand... commands) {
+        return delegate.applyAsync(commands);
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(Iterable<OnlineCommand> commands) {
+        return delegate.applyAsync(commands);
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(Iterable<OnlineCommand> commands, Executor executor) {
+        return delegate.applyAsync(commands, executor);
+    }
+
     @Override
     public ModelNodeResult execute(ModelNode operation) {
         try {
@@ -101,6 +118,30 @@ final class AutomaticErrorHandlingForCommands implements OnlineManagementClient
         }
     }
 
+    @Override
+    public CompletableFuture<ModelNodeResult> executeAsync(final ModelNode operation) {
+        // the failures-allowed block is likely to be closed by the time the operation finishes
+        final boolean throwExceptions = throwExceptionsOnOperationFailures;
+        return AsyncExecution.map(delegate.executeAsync(operation), result -> {
+            if (result.isFailed() && throwExceptions) {
+                commandFailedWithMessage("Operation " + operation.asString() + " failed: " + result.asString());
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public CompletableFuture<ModelNodeResult> executeAsync(final Operation operation) {
+        final boolean throwExceptions = throwExceptionsOnOperationFailures;
+        return AsyncExecution.map(delegate.executeAsync(operation), result -> {
+            if (result.isFailed() && throwExceptions) {
+                commandFailedWithMessage("Operation " + operation.getOperation().asString() + " failed: "
+                        + result.asString());
+            }
+            return result;
+        });
+    }
+
     @Override
     public void executeCli(String cliOperation) {
         try {
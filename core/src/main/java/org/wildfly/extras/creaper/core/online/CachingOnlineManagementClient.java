@@ -0,0 +1,439 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.as.controller.client.Operation;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+import org.jboss.logging.Logger;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ServerVersion;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>An {@link OnlineManagementClient} that remembers results of read operations ({@code read-resource},
+ * {@code read-attribute}, {@code read-children-names}, {@code read-children-types},
+ * {@code read-children-resources} and {@code read-resource-description}) and answers repeated reads
+ * without a round trip to the server. Commands applied through this client execute their operations through
+ * the cache as well, which helps when many commands check for the same resources.</p>
+ *
+ * <p>Successful results are cached, as well as failures saying that the resource or attribute doesn't exist
+ * (so that repeated {@code Operations.exists} checks are cached too). Cached entries are invalidated like this:</p>
+ *
+ * <ul>
+ * <li>{@code add}, {@code remove}, {@code write-attribute}, {@code undefine-attribute} and the {@code map-*}
+ *     and {@code list-*} operations invalidate everything that was read from their address, from all resources
+ *     below it and from all resources above it (up to the root resource); a {@code *} wildcard in a cached
+ *     address matches any value</li>
+ * <li>a {@code composite} operation invalidates entries for each of its steps as described here</li>
+ * <li>all other operations (such as {@code reload}), operations in the CLI syntax, {@code executeCli}
+ *     and {@code reconnect} invalidate the entire cache</li>
+ * </ul>
+ *
+ * <p>Reads with {@code include-runtime=true} and reads of the attributes that describe the state of a server
+ * or host (such as {@code server-state}) are never cached. Other runtime attributes read with {@code read-attribute}
+ * are cached, so metrics should be read through the original client. The cache is bounded; when it's full,
+ * the least recently used entries are evicted.</p>
+ *
+ * <p>Changes made to the server by other clients are not visible until the cache is {@link #invalidateAll()
+ * invalidated}. This client is thread safe if the delegate is.</p>
+ */
+public final class CachingOnlineManagementClient implements OnlineManagementClient {
+    private static final Logger log = Logger.getLogger(CachingOnlineManagementClient.class);
+
+    /** Default maximum number of cached results. */
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private static final Set<String> READ_OPERATIONS = new HashSet<>(Arrays.asList(
+            Constants.READ_RESOURCE_OPERATION,
+            Constants.READ_ATTRIBUTE_OPERATION,
+            Constants.READ_CHILDREN_NAMES_OPERATION,
+            Constants.READ_CHILDREN_TYPES,
+            "read-children-resources",
+            "read-resource-description"
+    ));
+
+    private static final Set<String> WRITE_OPERATIONS = new HashSet<>(Arrays.asList(
+            Constants.ADD,
+            Constants.REMOVE_OPERATION,
+            Constants.WRITE_ATTRIBUTE_OPERATION,
+            Constants.UNDEFINE_ATTRIBUTE_OPERATION,
+            "map-put", "map-remove", "map-clear",
+            "list-add", "list-remove", "list-clear"
+    ));
+
+    private static final Set<String> STATE_ATTRIBUTES = new HashSet<>(Arrays.asList(
+            Constants.SERVER_STATE,
+            Constants.HOST_STATE,
+            "runtime-configuration-state",
+            "suspend-state",
+            Constants.STATUS
+    ));
+
+    private final OnlineManagementClient delegate;
+    private final AdjustOperationForDomain adjustOperationForDomain;
+    private final CommandRunner commandRunner;
+
+    private final Map<ModelNode, CacheEntry> cache; // guarded by "this"
+    private long hits;
+    private long misses;
+    /** Incremented on each invalidation, so that reads that were sent before it don't store stale results. */
+    private long generation;
+
+    private CachingOnlineManagementClient(OnlineManagementClient delegate, final int maxEntries) {
+        this.delegate = delegate;
+        this.adjustOperationForDomain = new AdjustOperationForDomain(delegate.options());
+        this.commandRunner = new CommandRunner(new OperationListeners(delegate.options().operationListeners),
+                delegate.options().deferWrites);
+        this.cache = new LinkedHashMap<ModelNode, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ModelNode, CacheEntry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** Wraps the {@code client} with a cache of {@link #DEFAULT_MAX_ENTRIES default size}. */
+    public static CachingOnlineManagementClient wrap(OnlineManagementClient client) {
+        return wrap(client, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Wraps the {@code client} with a cache that holds at most {@code maxEntries} results. Closing the returned client
+     * closes the {@code client} as well.
+     */
+    public static CachingOnlineManagementClient wrap(OnlineManagementClient client, int maxEntries) {
+        if (client == null) {
+            throw new IllegalArgumentException("Client must be set");
+        }
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be greater than 0 but it's set to " + maxEntries);
+        }
+        return new CachingOnlineManagementClient(client, maxEntries);
+    }
+
+    /** Forgets all cached results. */
+    public synchronized void invalidateAll() {
+        generation++;
+        cache.clear();
+    }
+
+    /** How many operations were answered from the cache. */
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    /** How many cacheable operations had to be sent to the server. */
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    // --- OnlineManagementClient
+
+    @Override
+    public OnlineOptions options() {
+        return delegate.options();
+    }
+
+    @Override
+    public ServerVersion version() throws IOException {
+        return delegate.version();
+    }
+
+    @Override
+    public void apply(OnlineCommand... commands) throws CommandFailedException {
+        apply(Arrays.asList(commands));
+    }
+
+    @Override
+    public void apply(Iterable<OnlineCommand> commands) throws CommandFailedException {
+        commandRunner.apply(this, commands, () -> false);
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(OnlineCommand... commands) {
+        return applyAsync(Arrays.asList(commands));
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(Iterable<OnlineCommand> commands) {
+        return applyAsync(commands, AsyncExecution.defaultExecutor());
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(Iterable<OnlineCommand> commands, Executor executor) {
+        return AsyncExecution.applyAsync(commands, executor,
+                (toApply, cancellation) -> commandRunner.apply(this, toApply, cancellation));
+    }
+
+    @Override
+    public ModelNodeResult execute(ModelNode operation) throws IOException {
+        operation = adjustOperationForDomain.adjust(operation);
+        ModelNode key = cacheKey(operation);
+        if (key != null) {
+            ModelNodeResult cached = lookup(key);
+            if (cached != null) {
+                return cached;
+            }
+            long sentInGeneration = generation();
+            ModelNodeResult result = delegate.execute(operation);
+            store(key, result, sentInGeneration);
+            return result;
+        }
+
+        try {
+            return delegate.execute(operation);
+        } finally {
+            invalidate(operation);
+        }
+    }
+
+    @Override
+    public ModelNodeResult execute(Operation operation) throws IOException {
+        ModelNode key = cacheKey(adjustOperationForDomain.adjust(operation).getOperation());
+        if (key != null) {
+            ModelNodeResult cached = lookup(key);
+            if (cached != null) {
+                return cached;
+            }
+            long sentInGeneration = generation();
+            ModelNodeResult result = delegate.execute(operation);
+            store(key, result, sentInGeneration);
+            return result;
+        }
+
+        try {
+            return delegate.execute(operation);
+        } finally {
+            invalidate(operation.getOperation());
+        }
+    }
+
+    @Override
+    public ModelNodeResult execute(String operation) throws CliException, IOException {
+        // the operation isn't parsed here, so it's impossible to tell what it does
+        invalidateAll();
+        try {
+            return delegate.execute(operation);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public CompletableFuture<ModelNodeResult> executeAsync(ModelNode operation) {
+        final ModelNode adjusted = adjustOperationForDomain.adjust(operation);
+        ModelNode key = cacheKey(adjusted);
+        if (key != null) {
+            ModelNodeResult cached = lookup(key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            return storeWhenComplete(key, delegate.executeAsync(adjusted));
+        }
+
+        invalidate(adjusted);
+        return invalidateWhenComplete(adjusted, delegate.executeAsync(adjusted));
+    }
+
+    @Override
+    public CompletableFuture<ModelNodeResult> executeAsync(Operation operation) {
+        final Operation adjusted = adjustOperationForDomain.adjust(operation);
+        ModelNode key = cacheKey(adjusted.getOperation());
+        if (key != null) {
+            ModelNodeResult cached = lookup(key);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            return storeWhenComplete(key, delegate.executeAsync(adjusted));
+        }
+
+        invalidate(adjusted.getOperation());
+        return invalidateWhenComplete(adjusted.getOperation(), delegate.executeAsync(adjusted));
+    }
+
+    @Override
+    public void executeCli(String cliOperation) throws CliException, IOException {
+        invalidateAll();
+        try {
+            delegate.executeCli(cliOperation);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public void reconnect(int timeoutInSeconds) throws TimeoutException, InterruptedException {
+        invalidateAll();
+        delegate.reconnect(timeoutInSeconds);
+    }
+
+    @Override
+    public FailuresAllowedBlock allowFailures() throws IOException {
+        return delegate.allowFailures();
+    }
+
+    @Override
+    public void close() throws IOException {
+        invalidateAll();
+        delegate.close();
+    }
+
+    // --- caching
+
+    /** @return {@code null} if the operation must not be cached */
+    private static ModelNode cacheKey(ModelNode operation) {
+        String name = operation.get(Constants.OP).asString();
+        if (!READ_OPERATIONS.contains(name)) {
+            return null;
+        }
+        if (operation.hasDefined(Constants.INCLUDE_RUNTIME) && operation.get(Constants.INCLUDE_RUNTIME).asBoolean()) {
+            return null;
+        }
+        if (Constants.READ_ATTRIBUTE_OPERATION.equals(name) && operation.hasDefined(Constants.NAME)
+                && STATE_ATTRIBUTES.contains(operation.get(Constants.NAME).asString())) {
+            return null;
+        }
+        return operation.clone();
+    }
+
+    private static boolean isCacheable(ModelNodeResult result) {
+        if (result.isSuccess()) {
+            return true;
+        }
+        if (!result.hasDefined(Constants.FAILURE_DESCRIPTION)
+                || result.get(Constants.FAILURE_DESCRIPTION).getType() != ModelType.STRING) {
+            return false;
+        }
+        String failureDescription = result.get(Constants.FAILURE_DESCRIPTION).asString();
+        for (String code : Constants.RESULT_CODES_FOR_UNKNOWN_OR_NOT_FOUND) {
+            if (failureDescription.startsWith(code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return a copy of the cached result, or {@code null} if there's none */
+    private synchronized ModelNodeResult lookup(ModelNode key) {
+        CacheEntry entry = cache.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return new ModelNodeResult(entry.result);
+    }
+
+    private synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores the {@code result} unless the cache was invalidated since the read operation was sent
+     * (in {@code sentInGeneration}), because then the result could already be stale.
+     */
+    private synchronized void store(ModelNode key, ModelNodeResult result, long sentInGeneration) {
+        if (result != null && sentInGeneration == generation && isCacheable(result)) {
+            cache.put(key, new CacheEntry(address(key), result.clone()));
+        }
+    }
+
+    private CompletableFuture<ModelNodeResult> storeWhenComplete(ModelNode key,
+                                                                 CompletableFuture<ModelNodeResult> future) {
+        long sentInGeneration = generation();
+        future.whenComplete((result, ignored) -> store(key, result, sentInGeneration));
+        return future;
+    }
+
+    private CompletableFuture<ModelNodeResult> invalidateWhenComplete(ModelNode operation,
+                                                                      CompletableFuture<ModelNodeResult> future) {
+        future.whenComplete((ignored1, ignored2) -> invalidate(operation));
+        return future;
+    }
+
+    private synchronized void invalidate(ModelNode operation) {
+        String name = operation.get(Constants.OP).asString();
+        if (READ_OPERATIONS.contains(name)) {
+            return;
+        }
+
+        generation++;
+        if (Constants.COMPOSITE.equals(name)) {
+            if (operation.hasDefined(Constants.STEPS)) {
+                for (ModelNode step : operation.get(Constants.STEPS).asList()) {
+                    invalidate(step);
+                }
+            }
+            return;
+        }
+
+        if (!WRITE_OPERATIONS.contains(name)) {
+            log.debugf("Operation %s can have any effect, invalidating the entire cache", name);
+            cache.clear();
+            return;
+        }
+
+        List<Property> address = address(operation);
+        Iterator<CacheEntry> iterator = cache.values().iterator();
+        while (iterator.hasNext()) {
+            List<Property> cachedAddress = iterator.next().address;
+            if (isPrefix(cachedAddress, address) || isPrefix(address, cachedAddress)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static List<Property> address(ModelNode operation) {
+        if (!operation.hasDefined(Constants.OP_ADDR)) {
+            return Collections.emptyList();
+        }
+        List<Property> result = new ArrayList<>();
+        for (ModelNode element : operation.get(Constants.OP_ADDR).asList()) {
+            result.add(element.asProperty());
+        }
+        return result;
+    }
+
+    /** A {@code *} wildcard on either side matches any value. */
+    private static boolean isPrefix(List<Property> prefix, List<Property> address) {
+        if (prefix.size() > address.size()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.size(); i++) {
+            Property a = prefix.get(i);
+            Property b = address.get(i);
+            if (!a.getName().equals(b.getName())) {
+                return false;
+            }
+            String aValue = a.getValue().asString();
+            String bValue = b.getValue().asString();
+            if (!aValue.equals(bValue) && !"*".equals(aValue) && !"*".equals(bValue)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class CacheEntry {
+        final List<Property> address;
+        final ModelNode result;
+
+        CacheEntry(List<Property> address, ModelNode result) {
+            this.address = address;
+            this.result = result;
+        }
+    }
+}
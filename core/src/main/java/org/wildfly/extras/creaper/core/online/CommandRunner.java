@@ -0,0 +1,106 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.logging.Logger;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.online.jfr.JfrEvents;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Applies online commands on behalf of an {@link OnlineManagementClient}: sets up the automatic error handling,
+ * reports each command to JFR and to the {@link OperationListener}s, {@link OnlineOptions#deferWrites defers writes}
+ * if configured and translates exceptions. Clients that decorate another client use this so that the commands execute
+ * their operations through the decorator.
+ */
+final class CommandRunner {
+    private static final Logger log = Logger.getLogger(OnlineManagementClient.class);
+
+    private final OperationListeners listeners;
+    private final boolean deferWrites;
+
+    CommandRunner(OperationListeners listeners, boolean deferWrites) {
+        this.listeners = listeners;
+        this.deferWrites = deferWrites;
+    }
+
+    /** Commands will execute their operations using {@code client}. */
+    void apply(OnlineManagementClient client, Iterable<OnlineCommand> commands,
+               AsyncExecution.CancellationCheck cancellation) throws CommandFailedException {
+        try {
+            OnlineManagementClient commandClient = AutomaticErrorHandlingForCommands.wrap(client);
+            DeferredWritesForCommands deferredWrites = null;
+            if (deferWrites) {
+                deferredWrites = new DeferredWritesForCommands(commandClient);
+                commandClient = deferredWrites;
+            }
+
+            OnlineCommandContext ctx = new OnlineCommandContext(commandClient, client.version());
+            for (OnlineCommand command : commands) {
+                if (cancellation.isCancelled()) {
+                    log.infof("Cancelled, skipping command %s and all that follow", command);
+                    break;
+                }
+                log.infof("Applying command %s", command);
+                if (deferredWrites != null) {
+                    deferredWrites.commandStarted(command);
+                }
+                try {
+                    applyCommand(command, ctx);
+                } catch (Exception e) {
+                    // writes of the failed command are sent as well, same as if they weren't deferred
+                    flushAfterFailure(deferredWrites, e);
+                    throw e;
+                }
+            }
+            if (deferredWrites != null) {
+                deferredWrites.flush();
+            }
+        } catch (RuntimeCommandFailedException e) {
+            throw e.original;
+        } catch (CompletionException | ExecutionException e) {
+            // a command waited for an asynchronous operation that failed
+            CommandFailedException original = AsyncExecution.commandFailure(e);
+            throw original != null ? original : new CommandFailedException(AsyncExecution.unwrap(e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommandFailedException(e);
+        } catch (Exception e) {
+            throw new CommandFailedException(e);
+        }
+    }
+
+    private static void flushAfterFailure(DeferredWritesForCommands deferredWrites, Exception failure) {
+        if (deferredWrites == null) {
+            return;
+        }
+        try {
+            deferredWrites.flush();
+        } catch (RuntimeCommandFailedException e) {
+            Throwable original = failure instanceof RuntimeCommandFailedException
+                    ? ((RuntimeCommandFailedException) failure).original : failure;
+            original.addSuppressed(e.original);
+        }
+    }
+
+    private void applyCommand(OnlineCommand command, OnlineCommandContext ctx) throws Exception {
+        JfrEvents.StartedCommand event = JfrEvents.commandStarted();
+        long start = System.nanoTime();
+        try {
+            command.apply(ctx);
+        } catch (Exception e) {
+            Throwable failure = e instanceof RuntimeCommandFailedException
+                    ? ((RuntimeCommandFailedException) e).original : e;
+            commandApplied(command, failure, event, start);
+            throw e;
+        }
+        commandApplied(command, null, event, start);
+    }
+
+    private void commandApplied(OnlineCommand command, Throwable failure, JfrEvents.StartedCommand event, long start) {
+        event.finish(command, failure);
+        if (listeners.isEnabled()) {
+            listeners.commandApplied(command, failure, start);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+import org.wildfly.extras.creaper.core.ServerVersion;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>The initial exchange with a freshly connected server. It waits until the server accepts connections
+ * and finishes booting, discovers the {@link ServerVersion} and the child types of the root resource (which tell
+ * a standalone server and a domain controller apart).</p>
+ *
+ * <p>All of that is done using a single composite operation, which is repeated (using a {@link ReadinessWaiter})
+ * while the server doesn't accept connections or is still booting.
+ * If the composite operation fails for some other reason, the individual operations are performed separately
+ * as a fallback.</p>
+ */
+final class ConnectionHandshake {
+    private static final Logger log = Logger.getLogger(ConnectionHandshake.class);
+
+    final ServerVersion version;
+    final List<String> rootChildrenTypes;
+
+    private ConnectionHandshake(ServerVersion version, List<String> rootChildrenTypes) {
+        this.version = version;
+        this.rootChildrenTypes = rootChildrenTypes;
+    }
+
+    /**
+     * @param connectionTimeoutInMillis how long to keep retrying when the connection is refused; {@code 0} means
+     * no retrying
+     * @param bootTimeoutInMillis how long to wait for the server to finish booting; {@code 0} means no waiting
+     * @throws IOException if the server can't be connected to
+     * @throws TimeoutException if the server doesn't finish booting in time
+     */
+    static ConnectionHandshake perform(ModelControllerClient client, ReadinessWaiter waiter,
+                                       int connectionTimeoutInMillis, int bootTimeoutInMillis)
+            throws IOException, InterruptedException, TimeoutException {
+        final ModelNode op = handshakeOperation();
+        final ModelNodeResult[] result = new ModelNodeResult[1];
+
+        try {
+            waiter.await("management endpoint", connectionTimeoutInMillis, TimeUnit.MILLISECONDS, () -> {
+                result[0] = new ModelNodeResult(client.execute(op));
+                return true;
+            });
+        } catch (TimeoutException e) {
+            // the server is probably not up at all, so report the underlying failure
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+
+        if (isBootInProgress(result[0])) {
+            waiter.await("server to boot", bootTimeoutInMillis, TimeUnit.MILLISECONDS, () -> {
+                result[0] = new ModelNodeResult(client.execute(op));
+                return !isBootInProgress(result[0]);
+            });
+        }
+
+        if (result[0].isSuccess()) {
+            return new ConnectionHandshake(
+                    OnlineServerVersion.fromRootResource(result[0].forBatchStep(1).get(Constants.RESULT)),
+                    result[0].forBatchStep(2).stringListValue()
+            );
+        }
+
+        log.debugf("Handshake operation failed, falling back to separate operations: %s", result[0]);
+        return fallback(client);
+    }
+
+    /** {@code composite} of {@code :read-resource(attributes-only=true)} and {@code :read-children-types} */
+    private static ModelNode handshakeOperation() {
+        ModelNode readRootAttributes = new ModelNode();
+        readRootAttributes.get(Constants.OP).set(Constants.READ_RESOURCE_OPERATION);
+        readRootAttributes.get(Constants.OP_ADDR).setEmptyList();
+        readRootAttributes.get(Constants.ATTRIBUTES_ONLY).set(true);
+
+        ModelNode readRootChildrenTypes = new ModelNode();
+        readRootChildrenTypes.get(Constants.OP).set(Constants.READ_CHILDREN_TYPES);
+        readRootChildrenTypes.get(Constants.OP_ADDR).setEmptyList();
+
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set(Constants.COMPOSITE);
+        op.get(Constants.OP_ADDR).setEmptyList();
+        op.get(Constants.STEPS).add(readRootAttributes);
+        op.get(Constants.STEPS).add(readRootChildrenTypes);
+        return op;
+    }
+
+    private static boolean isBootInProgress(ModelNodeResult result) {
+        if (result.isSuccess()) {
+            return false;
+        }
+
+        if (!result.hasDefined(Constants.FAILURE_DESCRIPTION)) {
+            return false;
+        }
+        String failureDescription = result.get(Constants.FAILURE_DESCRIPTION).asString();
+        for (String code : Constants.RESULT_CODES_FOR_BOOT_IN_PROGRESS) {
+            if (failureDescription.startsWith(code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ConnectionHandshake fallback(ModelControllerClient client) throws IOException {
+        ServerVersion version = OnlineServerVersion.discover(client);
+
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set(Constants.READ_CHILDREN_TYPES);
+        op.get(Constants.OP_ADDR).setEmptyList();
+        ModelNodeResult result = new ModelNodeResult(client.execute(op));
+        result.assertSuccess();
+
+        return new ConnectionHandshake(version, result.stringListValue());
+    }
+}
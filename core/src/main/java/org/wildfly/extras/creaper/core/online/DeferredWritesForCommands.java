@@ -0,0 +1,314 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.as.controller.client.Operation;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ServerVersion;
+import org.wildfly.extras.creaper.core.online.operations.Batch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Buffers write operations executed by commands and sends them in a single {@code composite} when anything else
+ * is executed, or when {@link #flush()} is called after the last command. Used by {@link CommandRunner} when
+ * {@link OnlineOptions#deferWrites} is enabled; wraps {@link AutomaticErrorHandlingForCommands}. Steps that
+ * are made redundant by later steps are dropped by {@link Batch#optimizeSteps(List)} before sending.
+ */
+final class DeferredWritesForCommands implements OnlineManagementClient {
+    private static final Set<String> WRITE_OPERATIONS = new HashSet<>(Arrays.asList(
+            Constants.ADD,
+            Constants.REMOVE_OPERATION,
+            Constants.WRITE_ATTRIBUTE_OPERATION,
+            Constants.UNDEFINE_ATTRIBUTE_OPERATION,
+            "map-put", "map-remove", "map-clear",
+            "list-add", "list-remove", "list-clear"
+    ));
+    private static final Pattern FAILED_STEP = Pattern.compile("step-(\\d+)");
+
+    private final OnlineManagementClient delegate;
+    private final List<ModelNode> steps = new ArrayList<>();
+    private final List<Object> stepOwners = new ArrayList<>();
+    private Object currentCommand;
+    private int failuresAllowed;
+
+    DeferredWritesForCommands(OnlineManagementClient delegate) {
+        this.delegate = delegate;
+    }
+
+    /** Writes executed from now on will be attributed to {@code command}. */
+    void commandStarted(Object command) {
+        this.currentCommand = command;
+    }
+
+    /** Sends all buffered writes. */
+    void flush() {
+        if (steps.isEmpty()) {
+            return;
+        }
+
+        List<ModelNode> toSend = Batch.optimizeSteps(steps);
+        List<Object> owners = new ArrayList<>(toSend.size());
+        int index = 0;
+        for (ModelNode step : toSend) {
+            // the kept steps are the same instances in the same order
+            while (steps.get(index) != step) {
+                index++;
+            }
+            owners.add(stepOwners.get(index));
+        }
+        steps.clear();
+        stepOwners.clear();
+
+        ModelNode operation;
+        if (toSend.size() == 1) {
+            operation = toSend.get(0);
+        } else {
+            operation = new ModelNode();
+            operation.get(Constants.OP).set(Constants.COMPOSITE);
+            operation.get(Constants.OP_ADDR).setEmptyList();
+            ModelNode stepsNode = operation.get(Constants.STEPS).setEmptyList();
+            toSend.forEach(stepsNode::add);
+        }
+
+        ModelNodeResult result;
+        try (FailuresAllowedBlock ignored = delegate.allowFailures()) {
+            result = delegate.execute(operation);
+        } catch (RuntimeCommandFailedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeCommandFailedException(new CommandFailedException(e));
+        }
+
+        if (result.isFailed()) {
+            int failedStep = toSend.size() == 1 ? 0 : failedStep(result);
+            String message;
+            if (failedStep >= 0 && failedStep < toSend.size()) {
+                message = "Command " + owners.get(failedStep) + " failed: operation " + toSend.get(failedStep)
+                        .asString() + " failed";
+            } else {
+                message = "One of commands " + new ArrayList<>(new LinkedHashSet<>(owners)) + " failed";
+            }
+            if (toSend.size() > 1) {
+                message += "; all " + toSend.size() + " deferred writes of commands since the previous flush"
+                        + " were rolled back";
+            }
+            throw new RuntimeCommandFailedException(new CommandFailedException(message + ": "
+                    + result.asString()));
+        }
+    }
+
+    /**
+     * Index of the step that caused a composite operation to fail, or {@code -1} if it can't be found. When a composite
+     * is rolled back, all executed steps have the {@code failed} outcome, so the step is primarily found
+     * in the failure description, then as the only step with its own failure description, and only then
+     * as the first step with the {@code failed} outcome.
+     */
+    private static int failedStep(ModelNodeResult result) {
+        // WFLYCTL0062: Composite operation failed and was rolled back. Steps that failed: {"Operation step-N" => ...}
+        if (result.hasDefined(Constants.FAILURE_DESCRIPTION)
+                && result.get(Constants.FAILURE_DESCRIPTION).getType() == ModelType.OBJECT) {
+            for (Property property : result.get(Constants.FAILURE_DESCRIPTION).asPropertyList()) {
+                if (property.getValue().getType() == ModelType.OBJECT) {
+                    for (String key : property.getValue().keys()) {
+                        int index = stepIndex(key);
+                        if (index >= 0) {
+                            return index;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (!result.hasDefined(Constants.RESULT) || result.get(Constants.RESULT).getType() != ModelType.OBJECT) {
+            return -1;
+        }
+        List<Property> steps = result.get(Constants.RESULT).asPropertyList();
+        for (Property step : steps) {
+            if (step.getValue().hasDefined(Constants.FAILURE_DESCRIPTION)) {
+                return stepIndex(step.getName());
+            }
+        }
+        for (Property step : steps) {
+            ModelNode stepResult = step.getValue();
+            if (stepResult.has(Constants.OUTCOME)
+                    && Constants.FAILED.equals(stepResult.get(Constants.OUTCOME).asString())) {
+                return stepIndex(step.getName());
+            }
+        }
+        return -1;
+    }
+
+    private static int stepIndex(String name) {
+        Matcher matcher = FAILED_STEP.matcher(name);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) - 1 : -1;
+    }
+
+    /** Returns {@code true} if the operation was buffered. */
+    private boolean defer(ModelNode operation) {
+        if (failuresAllowed > 0 || !isDeferrable(operation)) {
+            return false;
+        }
+
+        // the caller may modify the operation after it's executed, but before it's actually sent
+        if (Constants.COMPOSITE.equals(operation.get(Constants.OP).asString())) {
+            for (ModelNode step : operation.get(Constants.STEPS).asList()) {
+                steps.add(step.clone());
+                stepOwners.add(currentCommand);
+            }
+        } else {
+            steps.add(operation.clone());
+            stepOwners.add(currentCommand);
+        }
+        return true;
+    }
+
+    private static boolean isDeferrable(ModelNode operation) {
+        if (operation.hasDefined(Constants.OPERATION_HEADERS)) {
+            return false;
+        }
+
+        String name = operation.get(Constants.OP).asString();
+        if (Constants.COMPOSITE.equals(name)) {
+            if (!operation.hasDefined(Constants.STEPS)) {
+                return false;
+            }
+            for (ModelNode step : operation.get(Constants.STEPS).asList()) {
+                if (!isDeferrable(step)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return WRITE_OPERATIONS.contains(name);
+    }
+
+    private static ModelNodeResult deferredResult() {
+        ModelNodeResult result = new ModelNodeResult(new ModelNode());
+        result.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        return result;
+    }
+
+    // --- OnlineManagementClient
+
+    @Override
+    public OnlineOptions options() {
+        return delegate.options();
+    }
+
+    @Override
+    public ServerVersion version() throws IOException {
+        return delegate.version();
+    }
+
+    @Override
+    public void apply(OnlineCommand... commands) throws CommandFailedException {
+        flush();
+        delegate.apply(commands);
+    }
+
+    @Override
+    public void apply(Iterable<OnlineCommand> commands) throws CommandFailedException {
+        flush();
+        delegate.apply(commands);
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(OnlineCommand... commands) {
+        flush();
+        return delegate.applyAsync(commands);
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(Iterable<OnlineCommand> commands) {
+        flush();
+        return delegate.applyAsync(commands);
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(Iterable<OnlineCommand> commands, Executor executor) {
+        flush();
+        return delegate.applyAsync(commands, executor);
+    }
+
+    @Override
+    public ModelNodeResult execute(ModelNode operation) throws IOException {
+        if (defer(operation)) {
+            return deferredResult();
+        }
+        flush();
+        return delegate.execute(operation);
+    }
+
+    @Override
+    public ModelNodeResult execute(Operation operation) throws IOException {
+        if (operation.getInputStreams().isEmpty() && defer(operation.getOperation())) {
+            return deferredResult();
+        }
+        flush();
+        return delegate.execute(operation);
+    }
+
+    @Override
+    public ModelNodeResult execute(String operation) throws CliException, IOException {
+        flush();
+        return delegate.execute(operation);
+    }
+
+    @Override
+    public CompletableFuture<ModelNodeResult> executeAsync(ModelNode operation) {
+        flush();
+        return delegate.executeAsync(operation);
+    }
+
+    @Override
+    public CompletableFuture<ModelNodeResult> executeAsync(Operation operation) {
+        flush();
+        return delegate.executeAsync(operation);
+    }
+
+    @Override
+    public void executeCli(String cliOperation) throws CliException, IOException {
+        flush();
+        delegate.executeCli(cliOperation);
+    }
+
+    @Override
+    public void reconnect(int timeoutInSeconds) throws TimeoutException, InterruptedException {
+        flush();
+        delegate.reconnect(timeoutInSeconds);
+    }
+
+    @Override
+    public FailuresAllowedBlock allowFailures() throws IOException {
+        // writes in the block must be executed immediately so that the command can inspect their results
+        flush();
+        FailuresAllowedBlock block = delegate.allowFailures();
+        failuresAllowed++;
+        return new FailuresAllowedBlock() {
+            @Override
+            public void close() throws IOException {
+                failuresAllowed--;
+                block.close();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        delegate.close();
+    }
+}
@@ -0,0 +1,289 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+import org.wildfly.extras.creaper.core.ManagementClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Runs the same commands or management operations against many servers in parallel. Each server is handled
+ * by its own {@link OnlineManagementClient}, which is created (or leased from an {@link OnlineClientPool},
+ * if configured) for the duration of a single {@code apply} or {@code execute} call. At most
+ * {@link Builder#parallelism(int) parallelism} servers are handled at the same time.</p>
+ *
+ * <p>Failure on one server doesn't affect the others; the combined outcome is reported in a {@link FleetResult}.
+ * If a {@link Builder#timeout(long, TimeUnit) per-server timeout} is set and the server doesn't finish in time
+ * (including the time needed to connect), the thread handling the server is interrupted and the server is reported
+ * as failed with a {@link TimeoutException}.</p>
+ *
+ * <p>In contrast to the rest of Creaper, this class <i>is</i> thread-safe, even though there's little reason to use
+ * it from multiple threads. The fleet client holds a thread pool, so it must be {@code close}d.</p>
+ */
+public final class FleetManagementClient implements Closeable {
+    private static final Logger log = Logger.getLogger(FleetManagementClient.class);
+
+    private final List<OnlineOptions> servers;
+    private final long timeoutNanos; // 0 <=> no timeout
+    private final OnlineClientPool pool; // null <=> clients are created and closed for each call
+    private final ExecutorService executor;
+    private final ScheduledExecutorService watchdog;
+
+    private FleetManagementClient(Builder builder) {
+        this.servers = Collections.unmodifiableList(new ArrayList<>(builder.servers));
+        this.timeoutNanos = builder.timeoutNanos;
+        this.pool = builder.pool;
+
+        int parallelism = builder.parallelism > 0 ? builder.parallelism : Math.min(servers.size(), 16);
+        this.executor = Executors.newFixedThreadPool(Math.max(parallelism, 1), new DaemonThreadFactory("fleet"));
+        this.watchdog = timeoutNanos > 0
+                ? Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("fleet-watchdog"))
+                : null;
+    }
+
+    /** The servers managed by this client, in the order they were added. */
+    public List<OnlineOptions> servers() {
+        return servers;
+    }
+
+    /**
+     * Applies the {@code commands} sequentially on each server, servers are handled in parallel.
+     * @see OnlineManagementClient#apply(OnlineCommand...)
+     */
+    public FleetResult<Void> apply(OnlineCommand... commands) {
+        return apply(Arrays.asList(commands));
+    }
+
+    /**
+     * Applies the {@code commands} sequentially on each server, servers are handled in parallel.
+     * @see OnlineManagementClient#apply(Iterable)
+     */
+    public FleetResult<Void> apply(final Iterable<OnlineCommand> commands) {
+        return run(client -> {
+            client.apply(commands);
+            return null;
+        });
+    }
+
+    /**
+     * Performs the management {@code operation} on each server. The {@code operation} is copied for each server,
+     * so that it can be adjusted for domain independently.
+     * @see OnlineManagementClient#execute(ModelNode)
+     */
+    public FleetResult<ModelNodeResult> execute(final ModelNode operation) {
+        return run(client -> client.execute(operation.clone()));
+    }
+
+    /**
+     * Performs the management {@code operation} (given in the CLI syntax) on each server.
+     * @see OnlineManagementClient#execute(String)
+     */
+    public FleetResult<ModelNodeResult> execute(final String operation) {
+        return run(client -> client.execute(operation));
+    }
+
+    private <T> FleetResult<T> run(ServerAction<T> action) {
+        Map<OnlineOptions, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        for (OnlineOptions server : servers) {
+            ServerTask<T> task = new ServerTask<>(server, action);
+            futures.put(server, task.result);
+            executor.execute(task);
+        }
+
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                .exceptionally(ignored -> null)
+                .join();
+
+        Map<OnlineOptions, T> successes = new LinkedHashMap<>();
+        Map<OnlineOptions, Throwable> failures = new LinkedHashMap<>();
+        for (Map.Entry<OnlineOptions, CompletableFuture<T>> entry : futures.entrySet()) {
+            try {
+                successes.put(entry.getKey(), entry.getValue().join());
+            } catch (Exception e) {
+                failures.put(entry.getKey(), AsyncExecution.unwrap(e));
+            }
+        }
+        return new FleetResult<>(successes, failures);
+    }
+
+    private OnlineManagementClient connect(OnlineOptions server) throws IOException {
+        return pool != null ? pool.lease(server) : ManagementClient.online(server);
+    }
+
+    /** Shuts down the thread pool. Calls to {@code apply} or {@code execute} that are in progress are interrupted. */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+        }
+    }
+
+    private interface ServerAction<T> {
+        T perform(OnlineManagementClient client) throws Exception;
+    }
+
+    /**
+     * Handles a single server. The {@code result} future is completed either by the worker thread when the action
+     * finishes, or by the watchdog when the timeout elapses, whichever comes first. The watchdog also interrupts
+     * the worker thread, but only if it is still working on this task (the thread is reused for other servers).
+     */
+    private final class ServerTask<T> implements Runnable {
+        private final OnlineOptions server;
+        private final ServerAction<T> action;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        // guarded by "this"
+        private Thread worker;
+        private boolean finished;
+
+        ServerTask(OnlineOptions server, ServerAction<T> action) {
+            this.server = server;
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            ScheduledFuture<?> timeout = null;
+            synchronized (this) {
+                worker = Thread.currentThread();
+            }
+            if (watchdog != null) {
+                timeout = watchdog.schedule(this::timeout, timeoutNanos, TimeUnit.NANOSECONDS);
+            }
+
+            try (OnlineManagementClient client = connect(server)) {
+                result.complete(action.perform(client));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    finished = true;
+                }
+                if (timeout != null) {
+                    timeout.cancel(false);
+                }
+                // clear a possible interrupt from the watchdog so that it doesn't leak into the next task
+                Thread.interrupted();
+            }
+        }
+
+        private void timeout() {
+            boolean timedOut = result.completeExceptionally(new TimeoutException("Server " + server
+                    + " didn't finish in " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms"));
+            if (timedOut) {
+                log.warnf("Server %s timed out, interrupting", server);
+                synchronized (this) {
+                    if (!finished) {
+                        worker.interrupt();
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "creaper-" + prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    public static final class Builder {
+        private final List<OnlineOptions> servers = new ArrayList<>();
+        private int parallelism;
+        private long timeoutNanos;
+        private OnlineClientPool pool;
+
+        /**
+         * Adds servers to the fleet. At least one server must be added. Results are reported per {@code OnlineOptions}
+         * instance, so the same instance can't be added more than once.
+         */
+        public Builder servers(OnlineOptions... servers) {
+            return servers(Arrays.asList(servers));
+        }
+
+        /**
+         * Adds servers to the fleet. At least one server must be added. Results are reported per {@code OnlineOptions}
+         * instance, so the same instance can't be added more than once.
+         */
+        public Builder servers(Iterable<OnlineOptions> servers) {
+            for (OnlineOptions server : servers) {
+                if (server == null) {
+                    throw new IllegalArgumentException("Server options must be specified as non null value");
+                }
+                if (this.servers.contains(server)) {
+                    throw new IllegalArgumentException("Server " + server + " was already added");
+                }
+                this.servers.add(server);
+            }
+            return this;
+        }
+
+        /**
+         * Maximum number of servers handled at the same time. Optional, defaults to the number of servers,
+         * but at most 16.
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("parallelism must be greater than 0 but it's set to "
+                        + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Maximum time that handling a single server can take, including connecting. Optional, there's no timeout
+         * by default.
+         */
+        public Builder timeout(long time, TimeUnit unit) {
+            if (time <= 0) {
+                throw new IllegalArgumentException("timeout must be greater than 0 but it's set to " + time);
+            }
+            this.timeoutNanos = unit.toNanos(time);
+            return this;
+        }
+
+        /**
+         * Lease clients from the {@code pool} instead of creating a new client for each server on each call.
+         * Optional. The pool is not closed when the fleet client is closed.
+         */
+        public Builder pool(OnlineClientPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        public FleetManagementClient build() {
+            if (servers.isEmpty()) {
+                throw new IllegalArgumentException("At least one server must be specified");
+            }
+            return new FleetManagementClient(this);
+        }
+    }
+}
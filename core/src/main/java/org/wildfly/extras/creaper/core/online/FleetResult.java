@@ -0,0 +1,68 @@
+package org.wildfly.extras.creaper.core.online;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Combined result of running the same action against all servers managed by a {@link FleetManagementClient}.
+ * Every server is present in exactly one of {@link #successes()} and {@link #failures()}. Iteration order of both
+ * maps follows the order in which the servers were added to the fleet.
+ *
+ * @param <T> type of the per-server result; {@code Void} for commands
+ */
+public final class FleetResult<T> {
+    private final Map<OnlineOptions, T> successes;
+    private final Map<OnlineOptions, Throwable> failures;
+
+    FleetResult(Map<OnlineOptions, T> successes, Map<OnlineOptions, Throwable> failures) {
+        this.successes = Collections.unmodifiableMap(successes);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * Results of servers where the action completed. Note that for management operations, a failed operation
+     * is still a completed action; use {@link ModelNodeResult#isSuccess()} to check the outcome.
+     */
+    public Map<OnlineOptions, T> successes() {
+        return successes;
+    }
+
+    /**
+     * Servers where the action didn't complete, with the cause: {@code CommandFailedException} for failed commands,
+     * {@code IOException} if the server couldn't be reached, {@code TimeoutException} if the per-server timeout
+     * elapsed etc.
+     */
+    public Map<OnlineOptions, Throwable> failures() {
+        return failures;
+    }
+
+    /** Whether the action completed on all servers. */
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+
+    /** @throws AssertionError if the action failed on any server; the message lists all failures */
+    public void assertSuccess() {
+        if (!isSuccess()) {
+            throw new AssertionError("Expected success on all servers, but failed on " + failures.size()
+                    + " of " + (successes.size() + failures.size()) + ":" + describeFailures());
+        }
+    }
+
+    private String describeFailures() {
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<OnlineOptions, Throwable> failure : failures.entrySet()) {
+            result.append(System.lineSeparator())
+                    .append(failure.getKey())
+                    .append(": ")
+                    .append(failure.getValue());
+        }
+        return result.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "FleetResult[" + successes.size() + " succeeded, " + failures.size() + " failed]"
+                + describeFailures();
+    }
+}
@@ -7,6 +7,8 @@ import org.wildfly.extras.creaper.core.ManagementClient;
 import org.wildfly.extras.creaper.core.ServerVersion;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -61,6 +63,42 @@ final class LazyOnlineManagementClient implements OnlineManagementClient {
         delegate.apply(commands);
     }
 
+    @Override
+    public CompletableFuture<Void> applyAsync(OnlineCommand... commands) {
+        try {
+            ensureInitialized();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(
+                    new CommandFailedException("Failed to create underlying OnlineManagementClient", e));
+        }
+
+        return delegate.applyAsync(commands);
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(Iterable<OnlineCommand> commands) {
+        try {
+            ensureInitialized();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(
+                    new CommandFailedException("Failed to create underlying OnlineManagementClient", e));
+        }
+
+        return delegate.applyAsync(commands);
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(Iterable<OnlineCommand> commands, Executor executor) {
+        try {
+            ensureInitialized();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(
+                    new CommandFailedException("Failed to create underlying OnlineManagementClient", e));
+        }
+
+        return delegate.applyAsync(commands, executor);
+    }
+
     @Override
     public ModelNodeResult execute(ModelNode operation) throws IOException {
         ensureInitialized();
@@ -79,6 +117,28 @@ final class LazyOnlineManagementClient implements OnlineManagementClient {
         return delegate.execute(operation);
     }
 
+    @Override
+    public CompletableFuture<ModelNodeResult> executeAsync(ModelNode operation) {
+        try {
+            ensureInitialized();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return delegate.executeAsync(operation);
+    }
+
+    @Override
+    public CompletableFuture<ModelNodeResult> executeAsync(Operation operation) {
+        try {
+            ensureInitialized();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return delegate.executeAsync(operation);
+    }
+
     @Override
     public void executeCli(String cliOperation) throws CliException, IOException {
         ensureInitialized();
@@ -0,0 +1,173 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.as.controller.client.Operation;
+import org.jboss.dmr.ModelNode;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ServerVersion;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A client leased from {@link OnlineClientPool}. Delegates to a pooled client; {@code close} returns the pooled client
+ * to the pool instead of closing it. If asynchronous operations or commands are still running when the client
+ * is closed, the pooled client is returned only after all of them complete.
+ */
+final class LeasedOnlineManagementClient implements OnlineManagementClient {
+    private final OnlineClientPool pool;
+    private final OnlineClientPool.PooledClient pooled;
+    private final OnlineManagementClient delegate;
+    private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+
+    private ThisIsWhereTheClientWasClosed closedAt; // != null <=> already closed
+
+    LeasedOnlineManagementClient(OnlineClientPool pool, OnlineClientPool.PooledClient pooled) {
+        this.pool = pool;
+        this.pooled = pooled;
+        this.delegate = pooled.client;
+    }
+
+    private void checkClosed() {
+        if (closedAt != null) {
+            throw new ClientAlreadyClosedException(closedAt);
+        }
+    }
+
+    private <T> CompletableFuture<T> watch(CompletableFuture<T> future) {
+        inFlight.add(future);
+        future.whenComplete((ignored, exception) -> {
+            inFlight.remove(future);
+            if (exception != null && AsyncExecution.unwrap(exception) instanceof IOException) {
+                pooled.suspect = true;
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public OnlineOptions options() {
+        return delegate.options();
+    }
+
+    @Override
+    public ServerVersion version() throws IOException {
+        checkClosed();
+        return delegate.version();
+    }
+
+    @Override
+    public void apply(OnlineCommand... commands) throws CommandFailedException {
+        checkClosed();
+        delegate.apply(commands);
+    }
+
+    @Override
+    public void apply(Iterable<OnlineCommand> commands) throws CommandFailedException {
+        checkClosed();
+        delegate.apply(commands);
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(OnlineCommand... commands) {
+        checkClosed();
+        return watch(delegate.applyAsync(commands));
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(Iterable<OnlineCommand> commands) {
+        checkClosed();
+        return watch(delegate.applyAsync(commands));
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(Iterable<OnlineCommand> commands, Executor executor) {
+        checkClosed();
+        return watch(delegate.applyAsync(commands, executor));
+    }
+
+    @Override
+    public ModelNodeResult execute(ModelNode operation) throws IOException {
+        checkClosed();
+        try {
+            return delegate.execute(operation);
+        } catch (IOException e) {
+            pooled.suspect = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public ModelNodeResult execute(Operation operation) throws IOException {
+        checkClosed();
+        try {
+            return delegate.execute(operation);
+        } catch (IOException e) {
+            pooled.suspect = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public ModelNodeResult execute(String operation) throws CliException, IOException {
+        checkClosed();
+        try {
+            return delegate.execute(operation);
+        } catch (IOException e) {
+            pooled.suspect = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<ModelNodeResult> executeAsync(ModelNode operation) {
+        checkClosed();
+        return watch(delegate.executeAsync(operation));
+    }
+
+    @Override
+    public CompletableFuture<ModelNodeResult> executeAsync(Operation operation) {
+        checkClosed();
+        return watch(delegate.executeAsync(operation));
+    }
+
+    @Override
+    public void executeCli(String cliOperation) throws CliException, IOException {
+        checkClosed();
+        try {
+            delegate.executeCli(cliOperation);
+        } catch (IOException e) {
+            pooled.suspect = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public void reconnect(int timeoutInSeconds) throws TimeoutException, InterruptedException {
+        checkClosed();
+        delegate.reconnect(timeoutInSeconds);
+    }
+
+    @Override
+    public FailuresAllowedBlock allowFailures() throws IOException {
+        checkClosed();
+        return delegate.allowFailures();
+    }
+
+    /** Returns the underlying client to the pool. Calling this method more than once has no effect. */
+    @Override
+    public void close() {
+        if (closedAt == null) {
+            closedAt = new ThisIsWhereTheClientWasClosed();
+            CompletableFuture<?>[] pending = inFlight.toArray(new CompletableFuture<?>[0]);
+            if (pending.length == 0) {
+                pool.release(pooled);
+            } else {
+                CompletableFuture.allOf(pending).whenComplete((ignored, exception) -> pool.release(pooled));
+            }
+        }
+    }
+}
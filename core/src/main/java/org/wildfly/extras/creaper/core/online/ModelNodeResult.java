@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * <p>A convenience subclass of {@link ModelNode} that provides some methods that are common when dealing with
@@ -22,6 +23,7 @@ import java.util.List;
  *     {@link #booleanValue()}, {@link #intValue()}, {@link #longValue()}, {@link #stringValue()})</li>
  * <li>Getting the response headers ({@link #headers()}, {@link #isReloadRequired()}, {@link #isRestartRequired()})</li>
  * <li>Getting result for single server in domain as a {@code ModelNodeResult} ({@link #forServer(String, String)})</li>
+ * <li>Getting results of steps of a composite operation ({@link #forBatchStep(int)}, {@link #forAllBatchSteps()})</li>
  * </ul>
  *
  * <p>Other than that, work with {@code ModelNodeResult} just like with a {@code ModelNode}.</p>
@@ -119,8 +121,12 @@ public class ModelNodeResult extends ModelNode {
         }
     }
 
+    /**
+     * Returns the {@code result} value. Reading a result never modifies it, so if there's no {@code result},
+     * an undefined node that isn't part of this result is returned.
+     */
     public final ModelNode value() {
-        return get(Constants.RESULT);
+        return this.has(Constants.RESULT) ? this.get(Constants.RESULT) : new ModelNode();
     }
 
     public final boolean booleanValue() {
@@ -249,21 +255,11 @@ public class ModelNodeResult extends ModelNode {
     // batch (composite)
 
     public final ModelNodeResult forBatchStep(int stepIndex) {
-        if (stepIndex < 1) {
-            throw new IllegalArgumentException("Step number must be > 0 (first step has index 1)");
-        }
-
-        List<Property> steps = this.value().asPropertyList();
-        if (stepIndex > steps.size()) {
-            throw new IllegalArgumentException("No step " + stepIndex + ": " + this.asString());
-        }
-
-        return new ModelNodeResult(steps.get(stepIndex - 1).getValue());
+        return new ModelNodeResult(batchStep(stepIndex));
     }
 
     public final Iterable<ModelNodeResult> forAllBatchSteps() {
-        final List<Property> steps = this.value().asPropertyList();
-        final int stepsCount = steps.size();
+        final int stepsCount = batchStepCount();
 
         return new Iterable<ModelNodeResult>() {
             @Override
@@ -278,8 +274,11 @@ public class ModelNodeResult extends ModelNode {
 
                     @Override
                     public ModelNodeResult next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
                         index++;
-                        return new ModelNodeResult(steps.get(index - 1).getValue());
+                        return new ModelNodeResult(batchStep(index));
                     }
 
                     @Override
@@ -291,21 +290,52 @@ public class ModelNodeResult extends ModelNode {
         };
     }
 
+    /** @return number of steps in this result of a composite operation, {@code 0} if the result isn't defined */
+    public final int batchStepCount() {
+        return this.hasDefined(Constants.RESULT) ? this.get(Constants.RESULT).keys().size() : 0;
+    }
+
+    private ModelNode batchStep(int stepIndex) {
+        if (stepIndex < 1) {
+            throw new IllegalArgumentException("Step number must be > 0 (first step has index 1)");
+        }
+
+        ModelNode steps = this.value();
+        String stepName = "step-" + stepIndex;
+        if (steps.has(stepName)) {
+            return steps.get(stepName);
+        }
+
+        // steps of a composite operation are always named like this, but let's not rely on it too much
+        List<Property> stepsList = steps.asPropertyList();
+        if (stepIndex > stepsList.size()) {
+            throw new IllegalArgumentException("No step " + stepIndex + ": " + this.asString());
+        }
+        return stepsList.get(stepIndex - 1).getValue();
+    }
+
     // ---
     // headers
 
+    /**
+     * Returns the {@code response-headers}. Like {@link #value()}, if there are no headers, an undefined node
+     * that isn't part of this result is returned.
+     */
     public final ModelNode headers() {
-        return this.get(Constants.RESPONSE_HEADERS);
+        return this.has(Constants.RESPONSE_HEADERS) ? this.get(Constants.RESPONSE_HEADERS) : new ModelNode();
     }
 
     public final boolean isReloadRequired() {
-        ModelNode state = headers().get(Constants.PROCESS_STATE);
-        return state.isDefined() && Constants.CONTROLLER_PROCESS_STATE_RELOAD_REQUIRED.equals(state.asString());
+        return hasProcessState(Constants.CONTROLLER_PROCESS_STATE_RELOAD_REQUIRED);
     }
 
     public final boolean isRestartRequired() {
-        ModelNode state = headers().get(Constants.PROCESS_STATE);
-        return state.isDefined() && Constants.CONTROLLER_PROCESS_STATE_RESTART_REQUIRED.equals(state.asString());
+        return hasProcessState(Constants.CONTROLLER_PROCESS_STATE_RESTART_REQUIRED);
+    }
+
+    private boolean hasProcessState(String processState) {
+        return this.hasDefined(Constants.RESPONSE_HEADERS, Constants.PROCESS_STATE)
+                && processState.equals(this.get(Constants.RESPONSE_HEADERS, Constants.PROCESS_STATE).asString());
     }
 
     // ---
@@ -323,15 +353,18 @@ public class ModelNodeResult extends ModelNode {
      * {@code host} + {@code server} combination is present in {@code this}
      */
     public final ModelNodeResult forServer(String host, String server) {
+        return new ModelNodeResult(serverResponse(host, server));
+    }
+
+    private ModelNode serverResponse(String host, String server) {
         if (!isFromDomain()) {
             throw new IllegalArgumentException("Can't call forServer on a result that isn't from domain");
         }
 
-        List<Property> serverGroups = this.get(Constants.SERVER_GROUPS).asPropertyList();
-        for (Property serverGroup : serverGroups) {
-            ModelNode response = serverGroup.getValue().get(Constants.HOST, host, server, Constants.RESPONSE);
-            if (response.isDefined()) {
-                return new ModelNodeResult(response);
+        for (Property serverGroup : this.get(Constants.SERVER_GROUPS).asPropertyList()) {
+            ModelNode group = serverGroup.getValue();
+            if (group.hasDefined(Constants.HOST, host, server, Constants.RESPONSE)) {
+                return group.get(Constants.HOST, host, server, Constants.RESPONSE);
             }
         }
 
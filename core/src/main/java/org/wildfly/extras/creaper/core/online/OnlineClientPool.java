@@ -0,0 +1,329 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+import org.wildfly.extras.creaper.core.ManagementClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>A pool of {@link OnlineManagementClient}s. Creating a management client is fairly heavy-weight (it requires
+ * connecting, authenticating and discovering the server version), so applications that repeatedly connect
+ * to the same servers should lease clients from a pool instead of creating new ones.</p>
+ *
+ * <p>Clients are pooled per {@link OnlineOptions} configuration; two {@code OnlineOptions} objects share clients
+ * if they point to the same server with the same protocol, timeouts and credentials, and have the same SSL options,
+ * readiness waiter and operation listeners (these are usually compared by identity, so the same objects must
+ * be used). Options created using {@code OnlineOptions.wrap} can't be pooled. Calling {@code close} on a leased client
+ * returns it to the pool; if asynchronous operations or commands started through the leased client are still running,
+ * it's returned only after they complete. A leased client must not be used after it was closed.</p>
+ *
+ * <p>Idle clients that have been idle for longer than {@link Builder#validateAfterIdle(long, TimeUnit)} are validated
+ * with a {@code whoami} operation before they are leased again. If the validation fails (e.g. because the server
+ * was restarted in the meantime), the client is reconnected transparently. Idle clients are discarded
+ * after {@link Builder#maxIdleTime(long, TimeUnit)}, and all clients are discarded after
+ * {@link Builder#maxLifetime(long, TimeUnit)} once they are returned to the pool.</p>
+ *
+ * <p>The pool itself is thread-safe. The leased clients are not (see {@link ManagementClient}), so each of them
+ * should only be used by one thread at a time.</p>
+ */
+public final class OnlineClientPool implements Closeable {
+    private static final Logger log = Logger.getLogger(OnlineClientPool.class);
+
+    private final int maxIdlePerOptions;
+    private final long maxIdleTimeNanos;
+    private final long maxLifetimeNanos;
+    private final long validateAfterIdleNanos;
+    private final int reconnectTimeoutInSeconds;
+    private final ClientFactory clientFactory;
+
+    // guarded by "this"
+    private final Map<List<Object>, Deque<PooledClient>> idleClients = new HashMap<>();
+    private boolean closed;
+
+    private OnlineClientPool(Builder builder) {
+        this.maxIdlePerOptions = builder.maxIdlePerOptions;
+        this.maxIdleTimeNanos = builder.maxIdleTimeNanos;
+        this.maxLifetimeNanos = builder.maxLifetimeNanos;
+        this.validateAfterIdleNanos = builder.validateAfterIdleNanos;
+        this.reconnectTimeoutInSeconds = builder.reconnectTimeoutInSeconds;
+        this.clientFactory = builder.clientFactory;
+    }
+
+    /**
+     * Leases a client for given {@code options}. An idle pooled client is returned if there's one, otherwise a new
+     * client is created. The client must be {@code close}d to return it to the pool.
+     * @throws IOException if a new client has to be created and {@link ManagementClient#online(OnlineOptions)} fails
+     * @throws IllegalArgumentException if the {@code options} were created using {@code OnlineOptions.wrap}
+     * @throws IllegalStateException if the pool is already closed
+     */
+    public OnlineManagementClient lease(OnlineOptions options) throws IOException {
+        if (options.isWrappedClient) {
+            throw new IllegalArgumentException("Clients for wrapped ModelControllerClient can't be pooled");
+        }
+
+        PooledClient pooled;
+        while ((pooled = takeIdle(options)) != null) {
+            if (prepareForReuse(pooled)) {
+                return new LeasedOnlineManagementClient(this, pooled);
+            }
+        }
+
+        pooled = new PooledClient(options, clientFactory.create(options));
+        return new LeasedOnlineManagementClient(this, pooled);
+    }
+
+    /**
+     * Closes all idle clients that exceeded the maximum idle time or the maximum lifetime. Expired clients are also
+     * discarded lazily when they would be leased, so calling this method is only needed to release resources held
+     * by clients that are no longer used, e.g. periodically from a background thread.
+     */
+    public void evictExpired() {
+        long now = System.nanoTime();
+        List<PooledClient> expired = new ArrayList<>();
+        synchronized (this) {
+            for (Iterator<Deque<PooledClient>> it = idleClients.values().iterator(); it.hasNext(); ) {
+                Deque<PooledClient> clients = it.next();
+                for (Iterator<PooledClient> it2 = clients.iterator(); it2.hasNext(); ) {
+                    PooledClient pooled = it2.next();
+                    if (isExpired(pooled, now)) {
+                        it2.remove();
+                        expired.add(pooled);
+                    }
+                }
+                if (clients.isEmpty()) {
+                    it.remove();
+                }
+            }
+        }
+
+        discard(expired);
+    }
+
+    /** Number of idle clients for given {@code options} that are currently held by the pool. */
+    public synchronized int idleCount(OnlineOptions options) {
+        Deque<PooledClient> clients = idleClients.get(options.poolKey());
+        return clients != null ? clients.size() : 0;
+    }
+
+    /**
+     * Closes all idle clients. Clients that are currently leased are closed when they are returned to the pool.
+     * The pool can't be used anymore after it was closed.
+     */
+    @Override
+    public void close() {
+        List<PooledClient> toClose = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            for (Deque<PooledClient> clients : idleClients.values()) {
+                toClose.addAll(clients);
+            }
+            idleClients.clear();
+        }
+
+        discard(toClose);
+    }
+
+    private PooledClient takeIdle(OnlineOptions options) {
+        long now = System.nanoTime();
+        List<Object> key = options.poolKey();
+        List<PooledClient> expired = new ArrayList<>();
+        PooledClient result = null;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The pool is already closed");
+            }
+
+            Deque<PooledClient> clients = idleClients.get(key);
+            while (clients != null && !clients.isEmpty()) {
+                // most recently used first, so that surplus clients stay idle and eventually expire
+                PooledClient pooled = clients.pollFirst();
+                if (isExpired(pooled, now)) {
+                    expired.add(pooled);
+                } else {
+                    result = pooled;
+                    break;
+                }
+            }
+        }
+
+        discard(expired);
+        return result;
+    }
+
+    private boolean prepareForReuse(PooledClient pooled) throws InterruptedIOException {
+        if (!pooled.suspect && System.nanoTime() - pooled.returnedAt < validateAfterIdleNanos) {
+            return true;
+        }
+
+        if (isAlive(pooled.client)) {
+            pooled.suspect = false;
+            return true;
+        }
+
+        log.debugf("Pooled client for %s is not usable, reconnecting", pooled.options);
+        try {
+            pooled.client.reconnect(reconnectTimeoutInSeconds);
+            pooled.suspect = false;
+            pooled.createdAt = System.nanoTime();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            discard(pooled);
+            throw new InterruptedIOException("Interrupted while reconnecting a pooled client");
+        } catch (TimeoutException | RuntimeException e) {
+            log.debugf("Failed to reconnect pooled client for %s: %s", pooled.options, e.getMessage());
+            discard(pooled);
+            return false;
+        }
+    }
+
+    private static boolean isAlive(OnlineManagementClient client) {
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set(Constants.WHOAMI);
+        op.get(Constants.OP_ADDR).setEmptyList();
+        try {
+            return client.execute(op).isSuccess();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private boolean isExpired(PooledClient pooled, long now) {
+        return now - pooled.returnedAt >= maxIdleTimeNanos || now - pooled.createdAt >= maxLifetimeNanos;
+    }
+
+    /** Called from {@link LeasedOnlineManagementClient#close()}. */
+    void release(PooledClient pooled) {
+        long now = System.nanoTime();
+        pooled.returnedAt = now;
+
+        boolean keep = false;
+        synchronized (this) {
+            if (!closed && now - pooled.createdAt < maxLifetimeNanos) {
+                Deque<PooledClient> clients = idleClients.computeIfAbsent(pooled.key,
+                        ignored -> new ArrayDeque<>());
+                if (clients.size() < maxIdlePerOptions) {
+                    clients.addFirst(pooled);
+                    keep = true;
+                }
+            }
+        }
+
+        if (!keep) {
+            discard(pooled);
+        }
+    }
+
+    private static void discard(List<PooledClient> clients) {
+        for (PooledClient pooled : clients) {
+            discard(pooled);
+        }
+    }
+
+    private static void discard(PooledClient pooled) {
+        try {
+            pooled.client.close();
+        } catch (IOException e) {
+            log.debugf("Failed to close pooled client for %s: %s", pooled.options, e.getMessage());
+        }
+    }
+
+    static final class PooledClient {
+        final OnlineOptions options;
+        final List<Object> key;
+        final OnlineManagementClient client;
+        volatile long createdAt;
+        volatile long returnedAt;
+        /** Set when the client had an I/O failure while leased, it will be validated before the next lease. */
+        volatile boolean suspect;
+
+        PooledClient(OnlineOptions options, OnlineManagementClient client) {
+            this.options = options;
+            this.key = options.poolKey();
+            this.client = client;
+            this.createdAt = System.nanoTime();
+            this.returnedAt = createdAt;
+        }
+    }
+
+    /** Ignore, this is a hook for tests. */
+    interface ClientFactory {
+        OnlineManagementClient create(OnlineOptions options) throws IOException;
+    }
+
+    public static final class Builder {
+        private int maxIdlePerOptions = 8;
+        private long maxIdleTimeNanos = TimeUnit.MINUTES.toNanos(5);
+        private long maxLifetimeNanos = TimeUnit.MINUTES.toNanos(30);
+        private long validateAfterIdleNanos = TimeUnit.SECONDS.toNanos(30);
+        private int reconnectTimeoutInSeconds = 10;
+        private ClientFactory clientFactory = ManagementClient::online;
+
+        /**
+         * Maximum number of idle clients kept for a single {@code OnlineOptions} configuration. Surplus clients
+         * are closed when they are returned to the pool. Optional, {@code 8} by default.
+         */
+        public Builder maxIdlePerOptions(int maxIdlePerOptions) {
+            if (maxIdlePerOptions < 0) {
+                throw new IllegalArgumentException("maxIdlePerOptions must be >= 0 but it's set to "
+                        + maxIdlePerOptions);
+            }
+            this.maxIdlePerOptions = maxIdlePerOptions;
+            return this;
+        }
+
+        /** Idle clients are closed after this amount of time. Optional, 5 minutes by default. */
+        public Builder maxIdleTime(long time, TimeUnit unit) {
+            this.maxIdleTimeNanos = unit.toNanos(time);
+            return this;
+        }
+
+        /**
+         * Clients are closed when they are returned to the pool after this amount of time since they were connected.
+         * Optional, 30 minutes by default.
+         */
+        public Builder maxLifetime(long time, TimeUnit unit) {
+            this.maxLifetimeNanos = unit.toNanos(time);
+            return this;
+        }
+
+        /**
+         * Idle clients are validated by a {@code whoami} operation before they are leased if they were idle
+         * for this amount of time. Optional, 30 seconds by default.
+         */
+        public Builder validateAfterIdle(long time, TimeUnit unit) {
+            this.validateAfterIdleNanos = unit.toNanos(time);
+            return this;
+        }
+
+        /**
+         * Timeout for reconnecting a client that failed validation. If reconnecting fails, the client is discarded.
+         * Optional, 10 seconds by default.
+         */
+        public Builder reconnectTimeout(int timeoutInSeconds) {
+            this.reconnectTimeoutInSeconds = timeoutInSeconds;
+            return this;
+        }
+
+        Builder clientFactory(ClientFactory clientFactory) {
+            this.clientFactory = clientFactory;
+            return this;
+        }
+
+        public OnlineClientPool build() {
+            return new OnlineClientPool(this);
+        }
+    }
+}
@@ -4,9 +4,13 @@ import org.jboss.as.controller.client.Operation;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.extras.creaper.core.CommandFailedException;
 import org.wildfly.extras.creaper.core.ServerVersion;
+import org.wildfly.extras.creaper.core.online.operations.Pipeline;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -39,6 +43,46 @@ public interface OnlineManagementClient extends Closeable {
      */
     void apply(Iterable<OnlineCommand> commands) throws CommandFailedException;
 
+    /**
+     * Asynchronous variant of {@link #apply(OnlineCommand...)} that uses a default executor.
+     * @see #applyAsync(Iterable, Executor)
+     */
+    default CompletableFuture<Void> applyAsync(OnlineCommand... commands) {
+        return applyAsync(Arrays.asList(commands));
+    }
+
+    /**
+     * Asynchronous variant of {@link #apply(Iterable)} that uses a default executor.
+     * @see #applyAsync(Iterable, Executor)
+     */
+    default CompletableFuture<Void> applyAsync(Iterable<OnlineCommand> commands) {
+        return applyAsync(commands, AsyncExecution.defaultExecutor());
+    }
+
+    /**
+     * <p>Applies a set of {@code commands} sequentially on the {@code executor}. The returned future is completed
+     * when all the commands are applied. If any one of the commands fails, the rest of the commands is skipped
+     * and the future is completed exceptionally with the same {@link CommandFailedException} that
+     * {@link #apply(Iterable)} would throw.</p>
+     *
+     * <p>Cancelling the returned future prevents the commands that haven't started yet from running; the command
+     * that is currently running is allowed to finish. Note that the client is still meant for single-threaded use,
+     * so don't apply commands concurrently on the same client.</p>
+     *
+     * <p>The default implementation calls {@link #apply(OnlineCommand...)} for each command on the
+     * {@code executor}.</p>
+     */
+    default CompletableFuture<Void> applyAsync(Iterable<OnlineCommand> commands, Executor executor) {
+        return AsyncExecution.applyAsync(commands, executor, (toApply, cancellation) -> {
+            for (OnlineCommand command : toApply) {
+                if (cancellation.isCancelled()) {
+                    return;
+                }
+                apply(command);
+            }
+        });
+    }
+
     /**
      * Performs the management {@code operation} synchronously and returns its result as a {@link ModelNodeResult}.
      * @throws IOException if an I/O error occurs during the management operation
@@ -61,6 +105,37 @@ public interface OnlineManagementClient extends Closeable {
      */
     ModelNodeResult execute(String operation) throws CliException, IOException;
 
+    /**
+     * <p>Performs the management {@code operation} asynchronously. The returned future is completed with the result
+     * as a {@link ModelNodeResult}, or exceptionally with an {@link IOException} if an I/O error occurs during
+     * the management operation. Cancelling the returned future cancels the management operation.</p>
+     *
+     * <p>When called from inside an {@link OnlineCommand}, operation failures are converted to exceptions just like
+     * with {@link #execute(ModelNode)}; the returned future is completed exceptionally in that case.</p>
+     *
+     * <p>The default implementation calls {@link #execute(ModelNode)} on a default executor; cancelling
+     * the returned future doesn't cancel the management operation if it has already started.</p>
+     */
+    default CompletableFuture<ModelNodeResult> executeAsync(ModelNode operation) {
+        return AsyncExecution.executeAsync(() -> execute(operation), AsyncExecution.defaultExecutor());
+    }
+
+    /**
+     * Performs the management {@code operation} asynchronously.
+     * @see #executeAsync(ModelNode)
+     */
+    default CompletableFuture<ModelNodeResult> executeAsync(Operation operation) {
+        return AsyncExecution.executeAsync(() -> execute(operation), AsyncExecution.defaultExecutor());
+    }
+
+    /**
+     * Returns a new {@link Pipeline} that sends many independent (typically read) operations at once
+     * using {@link #executeAsync(ModelNode)} and collects their results in order.
+     */
+    default Pipeline pipeline() {
+        return new Pipeline(this);
+    }
+
     /**
      * Performs the management operation (given in the CLI syntax) synchronously. The {@code cliOperation} can be
      * either a server-side management operation or a local CLI operation such as {@code cd} or {@code ls}. All local
@@ -3,6 +3,8 @@ package org.wildfly.extras.creaper.core.online;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -16,6 +18,7 @@ import org.jboss.dmr.ModelNode;
 import org.jboss.logging.Logger;
 import org.wildfly.extras.creaper.core.CommandFailedException;
 import org.wildfly.extras.creaper.core.ServerVersion;
+import org.wildfly.extras.creaper.core.online.jfr.JfrEvents;
 import org.wildfly.extras.creaper.core.online.operations.admin.Administration;
 
 final class OnlineManagementClientImpl implements OnlineManagementClient {
@@ -25,9 +28,12 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
 
     private final OnlineOptions options;
     private final AdjustOperationForDomain adjustOperationForDomain;
+    private final OperationListeners listeners;
+    private final CommandRunner commandRunner;
 
     private ModelControllerClient client;
-    private CommandContext cliContext;
+    private CommandContext cliContext; // created lazily, see cliContext()
+    private boolean cliContextBound; // whether cliContext is bound to the current client
     private ServerVersion version;
 
     private ThisIsWhereTheClientWasClosed closedAt; // != null <=> already closed
@@ -35,42 +41,71 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
     OnlineManagementClientImpl(OnlineOptions options) throws IOException {
         this.options = options;
         this.adjustOperationForDomain = new AdjustOperationForDomain(options);
+        this.listeners = new OperationListeners(options.operationListeners);
+        this.commandRunner = new CommandRunner(listeners, options.deferWrites);
         connect();
     }
 
     private void connect() throws IOException {
         this.client = options.createModelControllerClient();
+        this.cliContextBound = false;
 
         try {
-            fakeJbossCliConfigToAvoidWarning();
-
-            this.cliContext = new CommandContextFactoryImpl().newCommandContext();
-            cliContext.setSilent(true); // CLI shouldn't print messages to the console directly; proper logging is fine
-            cliContext.bindClient(client);
-        } catch (CliInitializationException e) {
-            try {
-                client.close();
-            } catch (IOException ignored) {
-                // so that it doesn't suppress the original exception
-            }
-            throw new IOException(e);
-        }
-
-        try {
-            this.version = OnlineServerVersion.discover(client);
-            checkStandaloneVsDomain();
+            // a wrapped client is supposed to be connected already, so there's no waiting
+            ConnectionHandshake handshake = options.isWrappedClient
+                    ? ConnectionHandshake.perform(client, options.readinessWaiter, 0, 0)
+                    : ConnectionHandshake.perform(client, options.readinessWaiter, options.connectionTimeout,
+                    options.bootTimeout);
+            this.version = handshake.version;
+            checkStandaloneVsDomain(handshake.rootChildrenTypes);
         } catch (Exception e) {
             try {
                 client.close();
-                cliContext.disconnectController();
             } catch (IOException ignored) {
                 // so that it doesn't suppress the original exception
             }
             if (e instanceof IOException) {
                 throw (IOException) e;
-            } else {
+            } else if (e instanceof RuntimeException) {
                 throw (RuntimeException) e;
+            } else {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * The CLI {@code CommandContext} is only needed for operations in the CLI syntax, and creating it is the most
+     * expensive part of connecting, so it's created on first use. After {@link #reconnect(int) reconnect},
+     * it's bound to the new {@code ModelControllerClient} on first use too.
+     */
+    private CommandContext cliContext() throws IOException {
+        if (cliContext == null) {
+            fakeJbossCliConfigToAvoidWarning();
+
+            try {
+                cliContext = new CommandContextFactoryImpl().newCommandContext();
+            } catch (CliInitializationException e) {
+                throw new IOException(e);
             }
+            cliContext.setSilent(true); // CLI shouldn't print messages to the console directly; proper logging is fine
+        }
+
+        if (!cliContextBound) {
+            cliContext.bindClient(client);
+            cliContextBound = true;
+        }
+
+        return cliContext;
+    }
+
+    private void disconnectCliContext() {
+        if (cliContext != null && cliContextBound) {
+            cliContext.disconnectController();
+            cliContextBound = false;
         }
     }
 
@@ -86,13 +121,7 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
         }
     }
 
-    private void checkStandaloneVsDomain() throws IOException {
-        ModelNode op = new ModelNode();
-        op.get(Constants.OP).set(Constants.READ_CHILDREN_TYPES);
-        op.get(Constants.OP_ADDR).setEmptyList();
-        ModelNodeResult result = this.execute(op);
-        List<String> rootChildrenTypes = result.stringListValue();
-
+    private void checkStandaloneVsDomain(List<String> rootChildrenTypes) {
         if (options.isStandalone && !rootChildrenTypes.contains(Constants.SUBSYSTEM)) {
             throw new IllegalStateException("According to the options, this client should be connected"
                     + " to a standalone server, but the server appears to be something else");
@@ -126,30 +155,36 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
     @Override
     public void apply(Iterable<OnlineCommand> commands) throws CommandFailedException {
         checkClosed();
-        try {
-            OnlineManagementClient client = AutomaticErrorHandlingForCommands.wrap(this);
-            OnlineCommandContext ctx = new OnlineCommandContext(client, version);
-            for (OnlineCommand command : commands) {
-                log.infof("Applying command %s", command);
-                command.apply(ctx);
-            }
-        } catch (RuntimeCommandFailedException e) {
-            throw e.original;
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new CommandFailedException(e);
-        } catch (Exception e) {
-            throw new CommandFailedException(e);
-        }
+        applyCommands(commands, () -> false);
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(OnlineCommand... commands) {
+        return applyAsync(Arrays.asList(commands));
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(Iterable<OnlineCommand> commands) {
+        return applyAsync(commands, AsyncExecution.defaultExecutor());
+    }
+
+    @Override
+    public CompletableFuture<Void> applyAsync(Iterable<OnlineCommand> commands, Executor executor) {
+        checkClosed();
+        return AsyncExecution.applyAsync(commands, executor, this::applyCommands);
+    }
+
+    private void applyCommands(Iterable<OnlineCommand> commands, AsyncExecution.CancellationCheck cancellation)
+            throws CommandFailedException {
+        commandRunner.apply(this, commands, cancellation);
     }
 
     @Override
     public ModelNodeResult execute(ModelNode operation) throws IOException {
         checkClosed();
         operation = adjustOperationForDomain.adjust(operation);
-        log.debugf("Executing operation %s", ModelNodeOperationToCliString.convert(operation));
-        log.tracef("JSON format:%n%s", operation.toJSONString(false));
-        ModelNode result = client.execute(operation);
+        logOperation("Executing operation %s", operation);
+        ModelNode result = executeAndNotify(operation);
         return new ModelNodeResult(result);
     }
 
@@ -157,9 +192,8 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
     public ModelNodeResult execute(Operation operation) throws IOException {
         checkClosed();
         operation = adjustOperationForDomain.adjust(operation);
-        log.debugf("Executing operation %s", ModelNodeOperationToCliString.convert(operation.getOperation()));
-        log.tracef("JSON format:%n%s", operation.getOperation().toJSONString(false));
-        ModelNode result = client.execute(operation);
+        logOperation("Executing operation %s", operation.getOperation());
+        ModelNode result = executeAndNotify(operation);
         return new ModelNodeResult(result);
     }
 
@@ -170,15 +204,90 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
         log.debugf("Executing operation %s", operation);
         ModelNode parsedOperation;
         try {
-            parsedOperation = cliContext.buildRequest(operation);
+            parsedOperation = cliContext().buildRequest(operation);
         } catch (CommandFormatException e) {
             throw new CliException(e);
         }
 
-        ModelNode result = client.execute(parsedOperation);
+        ModelNode result = executeAndNotify(parsedOperation);
         return new ModelNodeResult(result);
     }
 
+    @Override
+    public CompletableFuture<ModelNodeResult> executeAsync(ModelNode operation) {
+        checkClosed();
+        operation = adjustOperationForDomain.adjust(operation);
+        logOperation("Executing operation asynchronously %s", operation);
+        JfrEvents.StartedOperation event = JfrEvents.operationStarted(true);
+        long start = System.nanoTime();
+        CompletableFuture<ModelNode> result = client.executeAsync(operation);
+        notifyWhenComplete(operation, result, event, start);
+        return AsyncExecution.toModelNodeResult(result);
+    }
+
+    @Override
+    public CompletableFuture<ModelNodeResult> executeAsync(Operation operation) {
+        checkClosed();
+        operation = adjustOperationForDomain.adjust(operation);
+        logOperation("Executing operation asynchronously %s", operation.getOperation());
+        JfrEvents.StartedOperation event = JfrEvents.operationStarted(true);
+        long start = System.nanoTime();
+        CompletableFuture<ModelNode> result = client.executeAsync(operation);
+        notifyWhenComplete(operation.getOperation(), result, event, start);
+        return AsyncExecution.toModelNodeResult(result);
+    }
+
+    private ModelNode executeAndNotify(ModelNode operation) throws IOException {
+        JfrEvents.StartedOperation event = JfrEvents.operationStarted(false);
+        long start = System.nanoTime();
+        try {
+            ModelNode result = client.execute(operation);
+            operationExecuted(operation, result, null, event, start);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            operationExecuted(operation, null, e, event, start);
+            throw e;
+        }
+    }
+
+    private ModelNode executeAndNotify(Operation operation) throws IOException {
+        JfrEvents.StartedOperation event = JfrEvents.operationStarted(false);
+        long start = System.nanoTime();
+        try {
+            ModelNode result = client.execute(operation);
+            operationExecuted(operation.getOperation(), result, null, event, start);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            operationExecuted(operation.getOperation(), null, e, event, start);
+            throw e;
+        }
+    }
+
+    private void notifyWhenComplete(ModelNode operation, CompletableFuture<ModelNode> result,
+                                    JfrEvents.StartedOperation event, long start) {
+        result.whenComplete((value, failure) ->
+                operationExecuted(operation, value, AsyncExecution.unwrap(failure), event, start));
+    }
+
+    /** Both JFR and the listeners only do any real work when they are enabled. */
+    private void operationExecuted(ModelNode operation, ModelNode result, Throwable failure,
+                                   JfrEvents.StartedOperation event, long start) {
+        event.finish(operation, result, failure);
+        if (listeners.isEnabled()) {
+            listeners.operationExecuted(operation, result, failure, start);
+        }
+    }
+
+    /** Converting the operation to a string is expensive, so it's only done if it's actually going to be logged. */
+    private static void logOperation(String format, ModelNode operation) {
+        if (log.isDebugEnabled()) {
+            log.debugf(format, ModelNodeOperationToCliString.convert(operation));
+        }
+        if (log.isTraceEnabled()) {
+            log.tracef("JSON format:%n%s", operation.toJSONString(false));
+        }
+    }
+
     @Override
     public void executeCli(String cliOperation) throws CliException, IOException {
         if (cliOperation.trim().startsWith("connect")) {
@@ -198,7 +307,7 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
                 // helps in those situations
                 new Administration(this).reload();
             } else {
-                cliContext.handle(cliOperation);
+                cliContext().handle(cliOperation);
             }
         } catch (Exception e) {
             if (e.getCause() instanceof IOException) {
@@ -208,7 +317,7 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
             throw new CliException(e);
         }
 
-        if (cliContext.getExitCode() != 0 || cliContext.isTerminated()) {
+        if (cliContext != null && (cliContext.getExitCode() != 0 || cliContext.isTerminated())) {
             throw new CliException("CLI operation failed: " + cliOperation);
         }
     }
@@ -220,27 +329,38 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
         }
 
         log.info("Reconnecting the client");
+        JfrEvents.StartedReconnect event = JfrEvents.reconnectStarted();
 
         try {
             client.close();
-            cliContext.disconnectController();
+            disconnectCliContext();
         } catch (Throwable ignored) {
         }
 
-        long endTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutInSeconds);
-        while (System.currentTimeMillis() < endTime) {
-            try {
-                connect();
-                return;
-            } catch (Throwable e) {
-                log.info(e.getMessage());
-                // server is probably down, will retry
-            }
-
-            Thread.sleep(500);
+        // the TCP probe is cheap, so it's used to wait until the server is back at all, and only then
+        // a full connection is attempted
+        long endTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutInSeconds);
+        try {
+            options.readinessWaiter.awaitPortOpen(options.host, options.port, timeoutInSeconds, TimeUnit.SECONDS);
+            options.readinessWaiter.await("reconnect", endTime - System.nanoTime(), TimeUnit.NANOSECONDS, () -> {
+                try {
+                    connect();
+                    return true;
+                } catch (IOException | RuntimeException e) {
+                    log.info(e.getMessage());
+                    throw e; // server is probably down, will retry
+                }
+            });
+        } catch (TimeoutException e) {
+            event.finish(options, e);
+            TimeoutException timeoutException = new TimeoutException("Timeout reconnecting to server");
+            timeoutException.initCause(e);
+            throw timeoutException;
+        } catch (InterruptedException | RuntimeException e) {
+            event.finish(options, e);
+            throw e;
         }
-
-        throw new TimeoutException("Timeout reconnecting to server");
+        event.finish(options, null);
     }
 
     @Override
@@ -253,7 +373,7 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
     @Override
     public void close() throws IOException {
         client.close();
-        cliContext.disconnectController();
+        disconnectCliContext();
 
         if (closedAt == null) {
             closedAt = new ThisIsWhereTheClientWasClosed();
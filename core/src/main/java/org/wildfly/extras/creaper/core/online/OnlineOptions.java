@@ -1,9 +1,11 @@
 package org.wildfly.extras.creaper.core.online;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeoutException;
 import javax.net.ssl.SSLContext;
 import javax.security.auth.callback.Callback;
 import javax.security.auth.callback.CallbackHandler;
@@ -13,7 +15,6 @@ import javax.security.auth.callback.UnsupportedCallbackException;
 import javax.security.sasl.RealmCallback;
 import org.jboss.as.controller.client.ModelControllerClient;
 import org.jboss.as.controller.client.ModelControllerClientConfiguration;
-import org.jboss.dmr.ModelNode;
 import org.wildfly.extras.creaper.core.ManagementClient;
 
 /**
@@ -33,8 +34,8 @@ public final class OnlineOptions {
     final String host;
     final int port;
     private final ManagementProtocol protocol; // this can be "null" for unspecified protocol
-    private final int connectionTimeout;
-    private final int bootTimeout;
+    final int connectionTimeout;
+    final int bootTimeout;
 
     private final String username;
     private final String password;
@@ -43,6 +44,17 @@ public final class OnlineOptions {
 
     private final SslOptions sslOptions;
 
+    private final boolean sharedThreadPool;
+
+    /** Used when waiting for the server to boot, reload, restart etc. */
+    public final ReadinessWaiter readinessWaiter;
+
+    /** Notified about each executed operation and applied command. Unmodifiable, possibly empty. */
+    public final List<OperationListener> operationListeners;
+
+    /** Whether writes executed by commands are deferred and sent in composite operations. */
+    public final boolean deferWrites;
+
     private final ModelControllerClient wrappedModelControllerClient;
     final boolean isWrappedClient; // see OnlineManagementClientImpl.reconnect
 
@@ -85,6 +97,10 @@ public final class OnlineOptions {
         this.password = data.password;
         this.localAuthDisabled = data.localAuthDisabled;
         this.sslOptions = data.sslOptions;
+        this.sharedThreadPool = data.sharedThreadPool;
+        this.readinessWaiter = data.readinessWaiter != null ? data.readinessWaiter : ReadinessWaiter.defaults();
+        this.operationListeners = Collections.unmodifiableList(new ArrayList<>(data.operationListeners));
+        this.deferWrites = data.deferWrites;
         this.wrappedModelControllerClient = data.wrappedModelControllerClient;
         this.isWrappedClient = data.wrappedModelControllerClient != null;
 
@@ -120,6 +136,14 @@ public final class OnlineOptions {
 
         private SslOptions sslOptions;
 
+        private boolean sharedThreadPool;
+
+        private ReadinessWaiter readinessWaiter;
+
+        private final List<OperationListener> operationListeners = new ArrayList<>();
+
+        private boolean deferWrites;
+
         private ModelControllerClient wrappedModelControllerClient;
     }
 
@@ -195,6 +219,40 @@ public final class OnlineOptions {
             this.data = data;
         }
 
+        /**
+         * Register an {@link OperationListener} that will be notified about each operation executed and each command
+         * applied by the client. Optional, can be called multiple times to register multiple listeners. Unlike most
+         * other options, this can be used with a {@link #wrap(ModelControllerClient) wrapped} client as well.
+         */
+        public ConnectionOnlineOptions operationListener(OperationListener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("Operation listener must be set");
+            }
+
+            data.operationListeners.add(listener);
+            return this;
+        }
+
+        /**
+         * <p>When applying commands, don't send write operations ({@code add}, {@code remove},
+         * {@code write-attribute}, {@code undefine-attribute}, the {@code map-*} and {@code list-*} operations
+         * and batches consisting only of these) immediately. Instead, buffer them and send them
+         * as a single {@code composite} operation when a command executes any other operation (e.g. a read),
+         * and after the last command. Executing a write then returns a successful result without any value.
+         * Provisioning many resources with many commands takes far fewer round trips this way.</p>
+         *
+         * <p>If a deferred write fails, the entire composite is rolled back and the {@code CommandFailedException}
+         * names the command that executed the failed write. Writes executed in an
+         * {@link OnlineManagementClient#allowFailures() allowFailures} block, or with operation headers or
+         * attachments, are not deferred. Optional, disabled by default, as it changes the semantics: a failing
+         * write also rolls back writes of the preceding commands from the same composite. Unlike most other options,
+         * this can be used with a {@link #wrap(ModelControllerClient) wrapped} client as well.</p>
+         */
+        public ConnectionOnlineOptions deferWrites() {
+            data.deferWrites = true;
+            return this;
+        }
+
         /**
          * <p>Connect to {@code localhost} and use the default management port of the application server.
          * This is {@code 9990} by default, but if {@link OptionalOnlineOptions#ssl(SslOptions) ssl} is not null,
@@ -341,14 +399,63 @@ public final class OnlineOptions {
             return this;
         }
 
+        /**
+         * <p>Use a thread pool that is shared by all clients in the JVM that use this option, instead of a thread pool
+         * per client. Optional. This is useful when many clients are kept open at the same time, because each client
+         * would otherwise keep a couple of threads alive. The shared thread pool is created when the first such client
+         * connects and shut down when the last one is closed.</p>
+         *
+         * <p>Note that only the executor of the clients is shared. Each client still creates its own remoting endpoint,
+         * because {@code ModelControllerClient} doesn't allow passing one in.</p>
+         */
+        public OptionalOnlineOptions sharedThreadPool() {
+            data.sharedThreadPool = true;
+            return this;
+        }
+
+        /**
+         * Use given {@link ReadinessWaiter} when waiting for the server to accept connections, to boot,
+         * or to come back after reload or restart. Optional, {@link ReadinessWaiter#defaults()} is used by default.
+         */
+        public OptionalOnlineOptions readinessWaiter(ReadinessWaiter readinessWaiter) {
+            if (readinessWaiter == null) {
+                throw new IllegalArgumentException("Readiness waiter must be set");
+            }
+
+            data.readinessWaiter = readinessWaiter;
+            return this;
+        }
+
         /** Build the final {@code OnlineOptions}. */
         public OnlineOptions build() {
             return new OnlineOptions(data);
         }
     }
 
+    /** A short description of the server these options point to, useful for logging purposes. */
+    @Override
+    public String toString() {
+        String mode = isDomain ? "domain" : "standalone";
+        if (isWrappedClient) {
+            return mode + " (wrapped ModelControllerClient)";
+        }
+        String scheme = protocol != null ? protocol.protocolName() + "://" : "";
+        return mode + " " + scheme + host + ":" + port;
+    }
+
     // ---
 
+    /**
+     * Options with equal keys create interchangeable clients, so {@link OnlineClientPool} can share them. SSL options,
+     * the readiness waiter and operation listeners are compared using their {@code equals}, which usually means
+     * that they must be the same objects.
+     */
+    List<Object> poolKey() {
+        return Arrays.asList(isDomain, defaultProfile, defaultHost, host, port, protocol, connectionTimeout,
+                bootTimeout, username, password, localAuthDisabled, sslOptions, sharedThreadPool, readinessWaiter,
+                operationListeners, deferWrites);
+    }
+
     ModelControllerClient createModelControllerClient() throws IOException {
         if (wrappedModelControllerClient != null) {
             return wrappedModelControllerClient;
@@ -388,81 +495,29 @@ public final class OnlineOptions {
             sslContext = sslOptions.createSslContext();
         }
 
-        ModelControllerClient modelControllerClient;
-
-        modelControllerClient = ModelControllerClient.Factory.create(new ModelControllerClientConfiguration.Builder()
+        ModelControllerClientConfiguration configuration = new ModelControllerClientConfiguration.Builder()
                 .setProtocol(protocol != null ? protocol.protocolName() : null)
                 .setHostName(host)
                 .setPort(port)
                 .setSslContext(sslContext)
                 .setConnectionTimeout(connectionTimeout)
                 .setSaslOptions(saslOptions)
-                .setHandler(callbackHandler).build());
-
-        try {
-            connectAndWaitUntilServerBoots(modelControllerClient, connectionTimeout, bootTimeout);
-        } catch (Exception e) {
-            modelControllerClient.close();
-
-            if (e instanceof IOException) {
-                throw (IOException) e;
-            } else if (e instanceof IllegalStateException) {
-                throw (IllegalStateException) e;
-            } else {
-                throw new IllegalStateException(e);
-            }
+                .setHandler(callbackHandler).build();
+        if (sharedThreadPool) {
+            configuration = SharedClientThreadPool.share(configuration);
         }
 
-        return modelControllerClient;
-    }
-
-    private static void connectAndWaitUntilServerBoots(ModelControllerClient client, int connectionTimeoutInMillis,
-                                                       int bootTimeoutInMillis)
-            throws IOException, InterruptedException, TimeoutException {
-        ModelNode op = new ModelNode();
-        op.get(Constants.OP).set(Constants.WHOAMI);
-        op.get(Constants.OP_ADDR).setEmptyList();
-
-        long endTime = System.currentTimeMillis() + connectionTimeoutInMillis;
-        while (System.currentTimeMillis() < endTime) {
+        // waiting for the server to accept connections and to boot is part of the ConnectionHandshake
+        try {
+            return ModelControllerClient.Factory.create(configuration);
+        } catch (RuntimeException e) {
+            // the configuration is normally closed with the client; this releases the shared thread pool
             try {
-                client.execute(op);
-                break;
-            } catch (IOException e) {
-                // server is probably not up yet, keep waiting
-                Thread.sleep(100);
-            }
-        }
-
-        endTime = System.currentTimeMillis() + bootTimeoutInMillis;
-        while (System.currentTimeMillis() < endTime) {
-            ModelNodeResult result = new ModelNodeResult(client.execute(op));
-
-            if (result.isSuccess()) {
-                return;
-            }
-
-            boolean stillBooting = false;
-
-            String failureDescription = result.get(Constants.FAILURE_DESCRIPTION).asString();
-            for (String code : Constants.RESULT_CODES_FOR_BOOT_IN_PROGRESS) {
-                if (failureDescription.startsWith(code)) {
-                    stillBooting = true;
-                    break;
-                }
-            }
-
-            if (stillBooting) {
-                Thread.sleep(100);
-            } else {
-                // shouldn't happen
-                throw new IllegalStateException("Unknown server state: " + failureDescription);
+                configuration.close();
+            } catch (IOException closeException) {
+                e.addSuppressed(closeException);
             }
-        }
-
-        ModelNodeResult result = new ModelNodeResult(client.execute(op));
-        if (!result.isSuccess()) {
-            throw new TimeoutException("Waiting for server to boot timed out");
+            throw e;
         }
     }
 
@@ -26,16 +26,20 @@ final class OnlineServerVersion {
         ModelNodeResult result = new ModelNodeResult(client.execute(op));
         result.assertSuccess();
 
-        ModelNode resultValue = result.get(Constants.RESULT);
+        return fromRootResource(result.get(Constants.RESULT));
+    }
+
+    /** Returns the management version from the root resource attributes, as returned by {@code read-resource}. */
+    static ServerVersion fromRootResource(ModelNode rootResource) {
         return ServerVersion.from(
-                readPart(resultValue, ManagementVersionPart.MAJOR),
-                readPart(resultValue, ManagementVersionPart.MINOR),
-                readPart(resultValue, ManagementVersionPart.MICRO)
+                readPart(rootResource, ManagementVersionPart.MAJOR),
+                readPart(rootResource, ManagementVersionPart.MINOR),
+                readPart(rootResource, ManagementVersionPart.MICRO)
         );
     }
 
     /** Returns the value of the {@code part} from the management model or 0 if it doesn't exist. */
-    private static int readPart(ModelNode result, ManagementVersionPart part) throws IOException {
+    private static int readPart(ModelNode result, ManagementVersionPart part) {
         if (result.hasDefined(part.attributeName())) {
             return result.get(part.attributeName()).asInt();
         } else {
@@ -0,0 +1,201 @@
+package org.wildfly.extras.creaper.core.online;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>An {@link OperationListener} that records latency histograms per operation name (e.g. {@code read-resource})
+ * and per command class. Recording is lock-free and doesn't allocate, so it's cheap enough to be left enabled
+ * in production. The histograms have a fixed number of buckets whose width grows with the value, so percentiles
+ * are approximate, with a relative error of at most 12.5 %. The maximum is exact.</p>
+ *
+ * <p>A single instance can be registered to many clients to get aggregated numbers.</p>
+ */
+public final class OperationLatencyHistogram implements OperationListener {
+    private final ConcurrentMap<String, Recorder> operations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Recorder> commands = new ConcurrentHashMap<>();
+
+    @Override
+    public void operationExecuted(OperationEvent event) {
+        recorder(operations, event.operationName()).record(event.durationNanos());
+    }
+
+    @Override
+    public void commandApplied(CommandEvent event) {
+        recorder(commands, event.command().getClass().getName()).record(event.durationNanos());
+    }
+
+    private static Recorder recorder(ConcurrentMap<String, Recorder> recorders, String key) {
+        Recorder recorder = recorders.get(key);
+        if (recorder == null) {
+            recorder = recorders.computeIfAbsent(key, ignored -> new Recorder());
+        }
+        return recorder;
+    }
+
+    /** Latency summaries per operation name, sorted by the operation name. */
+    public SortedMap<String, Summary> operations() {
+        return summarize(operations);
+    }
+
+    /** Latency summaries per fully qualified command class name, sorted by the class name. */
+    public SortedMap<String, Summary> commands() {
+        return summarize(commands);
+    }
+
+    private static SortedMap<String, Summary> summarize(Map<String, Recorder> recorders) {
+        SortedMap<String, Summary> result = new TreeMap<>();
+        recorders.forEach((key, recorder) -> result.put(key, recorder.summary()));
+        return Collections.unmodifiableSortedMap(result);
+    }
+
+    /** Forgets everything recorded so far. */
+    public void reset() {
+        operations.clear();
+        commands.clear();
+    }
+
+    /** A human readable table with count, p50, p99 and max (in milliseconds) of each operation and command. */
+    public String report() {
+        StringBuilder result = new StringBuilder();
+        appendTable(result, "operation", operations());
+        appendTable(result, "command", commands());
+        return result.toString();
+    }
+
+    private static void appendTable(StringBuilder result, String title, SortedMap<String, Summary> summaries) {
+        if (summaries.isEmpty()) {
+            return;
+        }
+
+        int width = title.length();
+        for (String key : summaries.keySet()) {
+            width = Math.max(width, key.length());
+        }
+        String format = "%-" + width + "s %10s %10s %10s %10s%n";
+
+        result.append(String.format(format, title, "count", "p50 [ms]", "p99 [ms]", "max [ms]"));
+        summaries.forEach((key, summary) -> result.append(String.format(format, key, summary.count,
+                millis(summary.p50Nanos), millis(summary.p99Nanos), millis(summary.maxNanos))));
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1_000_000.0);
+    }
+
+    @Override
+    public String toString() {
+        return report();
+    }
+
+    /** Immutable summary of a single histogram. */
+    public static final class Summary {
+        public final long count;
+        public final long p50Nanos;
+        public final long p99Nanos;
+        public final long maxNanos;
+
+        Summary(long count, long p50Nanos, long p99Nanos, long maxNanos) {
+            this.count = count;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long p50(TimeUnit unit) {
+            return unit.convert(p50Nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public long p99(TimeUnit unit) {
+            return unit.convert(p99Nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public long max(TimeUnit unit) {
+            return unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return "count " + count + ", p50 " + millis(p50Nanos) + " ms, p99 " + millis(p99Nanos)
+                    + " ms, max " + millis(maxNanos) + " ms";
+        }
+    }
+
+    /**
+     * Values below {@code 2^SUB_BUCKET_BITS} have a bucket each, larger values are split by their highest bit
+     * into exponential ranges and each range into {@code 2^SUB_BUCKET_BITS} linear sub-buckets. This is basically
+     * a very simplified HdrHistogram.
+     */
+    static final class Recorder {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int LINEAR_BUCKETS = 2 * SUB_BUCKETS;
+        private static final int BUCKETS = LINEAR_BUCKETS + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            long value = Math.max(nanos, 0);
+            counts.incrementAndGet(bucket(value));
+            long currentMax = max.get();
+            while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+                currentMax = max.get();
+            }
+        }
+
+        static int bucket(long value) {
+            if (value < LINEAR_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return LINEAR_BUCKETS + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+        }
+
+        /** The largest value that falls into given bucket. */
+        static long highestValue(int bucket) {
+            if (bucket < LINEAR_BUCKETS) {
+                return bucket;
+            }
+            int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+            int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+            long lowest = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+            return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+        }
+
+        Summary summary() {
+            long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                total += snapshot[i];
+            }
+            long maxValue = max.get();
+            return new Summary(total, percentile(snapshot, total, 0.5, maxValue),
+                    percentile(snapshot, total, 0.99, maxValue), maxValue);
+        }
+
+        private static long percentile(long[] counts, long total, double percentile, long maxValue) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValue(i), maxValue);
+                }
+            }
+            return maxValue;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Receives an event after each management operation executed by an {@link OnlineManagementClient} and after each
+ * {@link OnlineCommand} applied by it. This is meant for collecting metrics; see {@link OperationLatencyHistogram}
+ * for a built-in implementation. Listeners are registered with
+ * {@link OnlineOptions.ConnectionOnlineOptions#operationListener(OperationListener)}.</p>
+ *
+ * <p>Listeners are called synchronously on the thread that executed the operation (or on the thread that completed
+ * an asynchronous operation), so they must be fast and thread safe. Exceptions thrown by a listener are logged
+ * and otherwise ignored. The events are only valid for the duration of the call; don't keep them around.</p>
+ */
+public interface OperationListener {
+    /**
+     * Called after an operation is executed. Operations executed as a part of a command are reported too,
+     * both by this method and as part of the command duration.
+     */
+    default void operationExecuted(OperationEvent event) {
+    }
+
+    /** Called after a command is applied, both successfully and unsuccessfully. */
+    default void commandApplied(CommandEvent event) {
+    }
+
+    final class OperationEvent {
+        private final ModelNode operation;
+        private final ModelNode result;
+        private final Throwable failure;
+        private final long durationNanos;
+
+        OperationEvent(ModelNode operation, ModelNode result, Throwable failure, long durationNanos) {
+            this.operation = operation;
+            this.result = result;
+            this.failure = failure;
+            this.durationNanos = durationNanos;
+        }
+
+        /** The operation as it was sent to the server, i.e. already adjusted for domain if applicable. */
+        public ModelNode operation() {
+            return operation;
+        }
+
+        /** The name of the operation, e.g. {@code read-resource} or {@code composite}. */
+        public String operationName() {
+            return operation.get(Constants.OP).asString();
+        }
+
+        /** The address of the operation, possibly undefined for operations on the root resource. */
+        public ModelNode address() {
+            return operation.has(Constants.OP_ADDR) ? operation.get(Constants.OP_ADDR) : new ModelNode();
+        }
+
+        /** The response of the server, or {@code null} if the operation failed with an exception. */
+        public ModelNode result() {
+            return result;
+        }
+
+        /** The exception thrown by the underlying client (typically {@code IOException}) or {@code null}. */
+        public Throwable failure() {
+            return failure;
+        }
+
+        /**
+         * The {@code outcome} of the operation as reported by the server (e.g. {@code success} or {@code failed}),
+         * or {@code exception} if the operation failed with an exception.
+         */
+        public String outcome() {
+            if (result == null) {
+                return "exception";
+            }
+            return result.hasDefined(Constants.OUTCOME) ? result.get(Constants.OUTCOME).asString() : "unknown";
+        }
+
+        public boolean isSuccess() {
+            return result != null && Constants.SUCCESS.equals(outcome());
+        }
+
+        public long durationNanos() {
+            return durationNanos;
+        }
+
+        public long duration(TimeUnit unit) {
+            return unit.convert(durationNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Approximate size of the request in bytes, based on the binary DMR encoding. This is computed on demand
+         * and is not free, so only call it when you need it.
+         */
+        public long requestSize() {
+            return encodedSize(operation);
+        }
+
+        /** Same as {@link #requestSize()}, but for the response. Returns {@code 0} if there's no response. */
+        public long responseSize() {
+            return result != null ? encodedSize(result) : 0;
+        }
+
+        @Override
+        public String toString() {
+            return operationName() + " " + address().asString() + " " + outcome() + " in "
+                    + duration(TimeUnit.MICROSECONDS) + " us";
+        }
+
+        private static long encodedSize(ModelNode node) {
+            CountingOutputStream counter = new CountingOutputStream();
+            try (DataOutputStream out = new DataOutputStream(counter)) {
+                node.writeExternal(out);
+            } catch (IOException e) {
+                // can't happen, nothing is actually written
+                throw new IllegalStateException(e);
+            }
+            return counter.count;
+        }
+
+        private static final class CountingOutputStream extends OutputStream {
+            private long count;
+
+            @Override
+            public void write(int b) {
+                count++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                count += len;
+            }
+        }
+    }
+
+    final class CommandEvent {
+        private final OnlineCommand command;
+        private final Throwable failure;
+        private final long durationNanos;
+
+        CommandEvent(OnlineCommand command, Throwable failure, long durationNanos) {
+            this.command = command;
+            this.failure = failure;
+            this.durationNanos = durationNanos;
+        }
+
+        public OnlineCommand command() {
+            return command;
+        }
+
+        /** The exception thrown by the command or {@code null} if it was applied successfully. */
+        public Throwable failure() {
+            return failure;
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        public long durationNanos() {
+            return durationNanos;
+        }
+
+        public long duration(TimeUnit unit) {
+            return unit.convert(durationNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return command + (failure == null ? " succeeded" : " failed") + " in "
+                    + duration(TimeUnit.MICROSECONDS) + " us";
+        }
+    }
+}
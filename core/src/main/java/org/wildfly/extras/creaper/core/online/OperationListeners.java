@@ -0,0 +1,46 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+
+import java.util.List;
+
+/** Dispatches events to all {@link OperationListener}s registered in {@link OnlineOptions}. */
+final class OperationListeners {
+    private static final Logger log = Logger.getLogger(OperationListeners.class);
+
+    private final OperationListener[] listeners;
+
+    OperationListeners(List<OperationListener> listeners) {
+        this.listeners = listeners.toArray(new OperationListener[0]);
+    }
+
+    /** If {@code false}, there's no need to measure anything. */
+    boolean isEnabled() {
+        return listeners.length > 0;
+    }
+
+    void operationExecuted(ModelNode operation, ModelNode result, Throwable failure, long startNanos) {
+        OperationListener.OperationEvent event = new OperationListener.OperationEvent(operation, result,
+                failure, System.nanoTime() - startNanos);
+        for (OperationListener listener : listeners) {
+            try {
+                listener.operationExecuted(event);
+            } catch (RuntimeException e) {
+                log.warnf(e, "Operation listener %s failed", listener);
+            }
+        }
+    }
+
+    void commandApplied(OnlineCommand command, Throwable failure, long startNanos) {
+        OperationListener.CommandEvent event = new OperationListener.CommandEvent(command, failure,
+                System.nanoTime() - startNanos);
+        for (OperationListener listener : listeners) {
+            try {
+                listener.commandApplied(event);
+            } catch (RuntimeException e) {
+                log.warnf(e, "Operation listener %s failed", listener);
+            }
+        }
+    }
+}
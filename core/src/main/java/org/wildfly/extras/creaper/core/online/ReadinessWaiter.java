@@ -0,0 +1,218 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>Waits for a server to become ready: to accept connections, to finish booting, to come back after reload
+ * or restart etc. A condition is checked repeatedly until it's satisfied or until a deadline passes. The delay
+ * between checks starts small and grows exponentially up to a maximum, so that a server that becomes ready quickly
+ * is noticed quickly and a server that takes a long time isn't flooded with requests. The delay is randomized
+ * ({@link Builder#jitter(double) jitter}), so that many clients waiting for the same server don't poll it
+ * all at the same time.</p>
+ *
+ * <p>Time spent in each phase and number of checks are logged on the {@code DEBUG} level.</p>
+ *
+ * <p>Use {@code ReadinessWaiter.Builder} to create a new instance, or {@link #defaults()} to get the default one.
+ * Instances are immutable and can be shared freely.</p>
+ */
+public final class ReadinessWaiter {
+    private static final Logger log = Logger.getLogger(ReadinessWaiter.class);
+
+    private static final int MAX_PROBE_TIMEOUT_MILLIS = 1000;
+
+    private static final ReadinessWaiter DEFAULTS = new Builder().build();
+
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final double multiplier;
+    private final double jitter;
+    private final long settleDelayMillis;
+
+    private ReadinessWaiter(Builder builder) {
+        this.initialDelayMillis = builder.initialDelayMillis;
+        this.maxDelayMillis = Math.max(builder.maxDelayMillis, builder.initialDelayMillis);
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.settleDelayMillis = builder.settleDelayMillis;
+    }
+
+    /**
+     * The default waiter: delays start at 50 ms and double up to 1 second, with 20% jitter. The settle delay
+     * is 500 ms.
+     */
+    public static ReadinessWaiter defaults() {
+        return DEFAULTS;
+    }
+
+    /** A condition that is checked repeatedly. */
+    @FunctionalInterface
+    public interface Condition {
+        /**
+         * @return {@code true} if the server is ready, {@code false} if it isn't ready yet
+         * @throws Exception if the server can't be checked; this is treated the same as returning {@code false}
+         * and the exception is used as a cause of the {@code TimeoutException} if the deadline passes
+         */
+        boolean isReady() throws Exception;
+    }
+
+    /**
+     * Sleeps for the {@link Builder#settleDelay(long, TimeUnit) settle delay}. This is meant to be called after
+     * an operation that makes the server unavailable only after a while (such as {@code :reload}), so that
+     * the server isn't mistakenly considered ready before it even started reloading.
+     */
+    public void settle() throws InterruptedException {
+        if (settleDelayMillis > 0) {
+            Thread.sleep(settleDelayMillis);
+        }
+    }
+
+    /**
+     * Checks the {@code condition} repeatedly until it's satisfied or until the {@code timeout} passes.
+     * The condition is checked at least once, even if the {@code timeout} is {@code 0}.
+     *
+     * @param phase a short description of what is being waited for, used in log messages and in the message
+     * of the {@code TimeoutException}
+     * @throws TimeoutException if the condition isn't satisfied in time; if the last check failed
+     * with an exception, that exception is the cause
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void await(String phase, long timeout, TimeUnit unit, Condition condition)
+            throws TimeoutException, InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + unit.toNanos(Math.max(timeout, 0));
+        long delayMillis = initialDelayMillis;
+        int attempts = 0;
+
+        while (true) {
+            attempts++;
+            Exception lastFailure = null;
+            try {
+                if (condition.isReady()) {
+                    log.debugf("Waiting for %s took %d ms (%d checks)", phase, elapsedMillis(start), attempts);
+                    return;
+                }
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                lastFailure = e;
+            }
+
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                log.debugf("Waiting for %s timed out after %d ms (%d checks)", phase, elapsedMillis(start), attempts);
+                TimeoutException timeoutException = new TimeoutException("Waiting for " + phase + " timed out");
+                if (lastFailure != null) {
+                    timeoutException.initCause(lastFailure);
+                }
+                throw timeoutException;
+            }
+
+            Thread.sleep(Math.min(jittered(delayMillis), remainingMillis));
+            delayMillis = Math.min((long) (delayMillis * multiplier), maxDelayMillis);
+        }
+    }
+
+    /**
+     * Waits until a TCP connection to given {@code host} and {@code port} can be established. This is much cheaper
+     * than creating a management client and performing an operation, so it's useful as a first step when waiting
+     * for a server that is currently down.
+     */
+    public void awaitPortOpen(final String host, final int port, long timeout, TimeUnit unit)
+            throws TimeoutException, InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(Math.max(timeout, 0));
+        await("port " + host + ":" + port, timeout, unit, () -> {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            int probeTimeout = (int) Math.max(1, Math.min(remainingMillis, MAX_PROBE_TIMEOUT_MILLIS));
+            return isPortOpen(host, port, probeTimeout);
+        });
+    }
+
+    static boolean isPortOpen(String host, int port, int timeoutInMillis) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), timeoutInMillis);
+            return true;
+        }
+    }
+
+    private long jittered(long delayMillis) {
+        if (jitter == 0) {
+            return delayMillis;
+        }
+        double factor = 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Math.max(1, (long) (delayMillis * factor));
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    public static final class Builder {
+        private long initialDelayMillis = 50;
+        private long maxDelayMillis = 1000;
+        private double multiplier = 2;
+        private double jitter = 0.2;
+        private long settleDelayMillis = 500; // this value is taken from implementation of CLI "reload"
+
+        /** Delay after the first unsuccessful check. Optional, 50 ms by default. */
+        public Builder initialDelay(long time, TimeUnit unit) {
+            if (time <= 0) {
+                throw new IllegalArgumentException("initialDelay must be greater than 0 but it's set to " + time);
+            }
+            this.initialDelayMillis = Math.max(1, unit.toMillis(time));
+            return this;
+        }
+
+        /** Upper bound of the delay between two checks. Optional, 1 second by default. */
+        public Builder maxDelay(long time, TimeUnit unit) {
+            if (time <= 0) {
+                throw new IllegalArgumentException("maxDelay must be greater than 0 but it's set to " + time);
+            }
+            this.maxDelayMillis = Math.max(1, unit.toMillis(time));
+            return this;
+        }
+
+        /**
+         * The delay is multiplied by this number after each unsuccessful check. Optional, {@code 2} by default.
+         * Use {@code 1} for a constant delay.
+         */
+        public Builder multiplier(double multiplier) {
+            if (multiplier < 1) {
+                throw new IllegalArgumentException("multiplier must be >= 1 but it's set to " + multiplier);
+            }
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * Each delay is randomly shortened or prolonged by up to this fraction of itself. Optional, {@code 0.2}
+         * by default. Use {@code 0} to disable randomization.
+         */
+        public Builder jitter(double jitter) {
+            if (jitter < 0 || jitter >= 1) {
+                throw new IllegalArgumentException("jitter must be >= 0 and < 1 but it's set to " + jitter);
+            }
+            this.jitter = jitter;
+            return this;
+        }
+
+        /** See {@link ReadinessWaiter#settle()}. Optional, 500 ms by default. Use {@code 0} for no delay. */
+        public Builder settleDelay(long time, TimeUnit unit) {
+            if (time < 0) {
+                throw new IllegalArgumentException("settleDelay must be >= 0 but it's set to " + time);
+            }
+            this.settleDelayMillis = unit.toMillis(time);
+            return this;
+        }
+
+        public ReadinessWaiter build() {
+            return new ReadinessWaiter(this);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+import org.jboss.logging.Logger;
+import org.wildfly.extras.creaper.core.ServerVersion;
+import org.wildfly.extras.creaper.core.online.operations.Address;
+import org.wildfly.extras.creaper.core.online.operations.Operations;
+import org.wildfly.extras.creaper.core.online.operations.Values;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>Caches resource descriptions ({@code :read-resource-description(recursive=true, operations=true)}) per
+ * {@link ServerVersion management version} and address pattern. A resource description only depends on the version
+ * of the server, so it's enough to fetch it once per version instead of once per client or per run.</p>
+ *
+ * <p>The address pattern is the {@code Address} passed to {@link #get(OnlineManagementClient, Address) get},
+ * in the form it was passed (i.e., before adjusting it for a managed domain). To use one description for all
+ * resources of the same type, use a {@code *} wildcard, e.g.
+ * {@code Address.subsystem("datasources").and("data-source", "*")}.</p>
+ *
+ * <p>An {@link #inMemory() in-memory} cache lives as long as the object. A {@link #persistent(Path) persistent}
+ * cache additionally stores descriptions to a directory, one compressed file in the binary DMR format per server
+ * version, so that they survive JVM restarts. Descriptions of standalone servers and managed domains are kept
+ * separately. Only successful results are cached.</p>
+ *
+ * <p>Instances are thread safe and are meant to be shared.</p>
+ */
+public final class ResourceDescriptionCache {
+    private static final Logger log = Logger.getLogger(ResourceDescriptionCache.class);
+
+    private static final String READ_RESOURCE_DESCRIPTION_OPERATION = "read-resource-description";
+    private static final String FILE_SUFFIX = ".dmr.gz";
+
+    private final Path directory;
+    /** Key is {@code standalone-<version>} or {@code domain-<version>}, the same as the file name. */
+    private final Map<String, Map<String, ModelNode>> descriptions = new ConcurrentHashMap<>();
+    private final AtomicLong fetchCount = new AtomicLong();
+
+    private ResourceDescriptionCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /** A cache that only keeps descriptions in memory. */
+    public static ResourceDescriptionCache inMemory() {
+        return new ResourceDescriptionCache(null);
+    }
+
+    /**
+     * A cache that keeps descriptions in memory and also stores them in given {@code directory}. The directory
+     * is created if it doesn't exist. Files that can't be read (e.g. because they are corrupted) are ignored
+     * and rewritten.
+     */
+    public static ResourceDescriptionCache persistent(Path directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory must be set");
+        }
+        return new ResourceDescriptionCache(directory);
+    }
+
+    /**
+     * Returns the recursive description (including operations) of {@code addressPattern}, fetching it from
+     * the server only if it isn't cached yet for the server's version. The returned result is a copy and can be
+     * modified freely.
+     */
+    public ModelNodeResult get(OnlineManagementClient client, Address addressPattern) throws IOException {
+        ModelNode cached = cached(client, addressPattern);
+        if (cached != null) {
+            return new ModelNodeResult(cached.clone());
+        }
+        return fetch(client, addressPattern);
+    }
+
+    /**
+     * Returns just the description of {@code addressPattern} (i.e., the {@code result} of a successful
+     * {@code read-resource-description}), or {@code null} if it can't be obtained. If the address contains
+     * a wildcard, the description of the first matching registration is returned instead of a list; use
+     * {@link #description(OnlineManagementClient, Address, Address)} if resources of the type can be registered
+     * separately per name. The returned node is shared and {@link ModelNode#protect() protected} against
+     * modification; unlike {@link #get(OnlineManagementClient, Address) get}, there's no copying.
+     */
+    public ModelNode description(OnlineManagementClient client, Address addressPattern) throws IOException {
+        ModelNode result = cachedResult(client, addressPattern);
+        if (result != null && result.getType() == ModelType.LIST) {
+            List<ModelNode> entries = result.asList();
+            return entries.isEmpty() ? null : entries.get(0).get(Constants.RESULT);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the description of the resource at {@code address} (which must not contain wildcards), using
+     * the cached description of {@code addressPattern}, or {@code null} if it can't be obtained. If the pattern
+     * contains a wildcard, the server returns one entry per registration, e.g. {@code core-service=management}
+     * and {@code core-service=platform-mbean} are described separately, while {@code data-source=*} is one
+     * registration for all data sources. The entry registered for exactly {@code address} is returned, or the entry
+     * registered for the whole {@code addressPattern} if there's none. Like
+     * {@link #description(OnlineManagementClient, Address)}, the returned node is shared and protected.
+     */
+    public ModelNode description(OnlineManagementClient client, Address addressPattern, Address address)
+            throws IOException {
+        ModelNode result = cachedResult(client, addressPattern);
+        if (result == null || result.getType() != ModelType.LIST) {
+            return result;
+        }
+
+        ModelNode wildcardMatch = null;
+        for (ModelNode entry : result.asList()) {
+            if (!entry.hasDefined(Constants.OP_ADDR) || !entry.hasDefined(Constants.RESULT)) {
+                continue;
+            }
+            Address registration = Address.root();
+            for (Property element : entry.get(Constants.OP_ADDR).asPropertyList()) {
+                registration = registration.and(element.getName(), element.getValue().asString());
+            }
+            if (registration.equals(address)) {
+                return entry.get(Constants.RESULT);
+            }
+            if (registration.equals(addressPattern) && wildcardMatch == null) {
+                wildcardMatch = entry.get(Constants.RESULT);
+            }
+        }
+        return wildcardMatch;
+    }
+
+    /** The {@code result} of a cached successful description, fetching it if needed. */
+    private ModelNode cachedResult(OnlineManagementClient client, Address addressPattern) throws IOException {
+        ModelNode cached = cached(client, addressPattern);
+        if (cached == null) {
+            fetch(client, addressPattern);
+            cached = cached(client, addressPattern);
+            if (cached == null) {
+                return null;
+            }
+        }
+        return cached.get(Constants.RESULT);
+    }
+
+    private ModelNode cached(OnlineManagementClient client, Address addressPattern) throws IOException {
+        return descriptions.computeIfAbsent(key(client), this::load).get(addressPattern.toString());
+    }
+
+    private ModelNodeResult fetch(OnlineManagementClient client, Address addressPattern) throws IOException {
+        fetchCount.incrementAndGet();
+        ModelNodeResult result = new Operations(client).invoke(READ_RESOURCE_DESCRIPTION_OPERATION, addressPattern,
+                Values.of(Constants.RECURSIVE, true).and("operations", true));
+        if (result.isSuccess()) {
+            String key = key(client);
+            Map<String, ModelNode> versionDescriptions = descriptions.computeIfAbsent(key, this::load);
+            ModelNode cached = result.clone();
+            cached.protect();
+            versionDescriptions.put(addressPattern.toString(), cached);
+            save(key, versionDescriptions);
+        }
+        return result;
+    }
+
+    /** How many times a description had to be fetched from a server. Useful for monitoring and tests. */
+    public long fetchCount() {
+        return fetchCount.get();
+    }
+
+    /** Removes all descriptions from memory and, for a persistent cache, all files from the directory. */
+    public synchronized void clear() throws IOException {
+        descriptions.clear();
+        if (directory != null && Files.isDirectory(directory)) {
+            for (String key : fileKeys()) {
+                Files.deleteIfExists(directory.resolve(key + FILE_SUFFIX));
+            }
+        }
+    }
+
+    private static String key(OnlineManagementClient client) throws IOException {
+        return (client.options().isDomain ? "domain-" : "standalone-") + client.version();
+    }
+
+    private String[] fileKeys() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(FILE_SUFFIX))
+                    .map(name -> name.substring(0, name.length() - FILE_SUFFIX.length()))
+                    .toArray(String[]::new);
+        }
+    }
+
+    private Map<String, ModelNode> load(String key) {
+        Map<String, ModelNode> result = new ConcurrentHashMap<>();
+        if (directory == null) {
+            return result;
+        }
+
+        Path file = directory.resolve(key + FILE_SUFFIX);
+        if (!Files.isRegularFile(file)) {
+            return result;
+        }
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            ModelNode stored = new ModelNode();
+            stored.readExternal(in);
+            for (Property property : stored.asPropertyList()) {
+                ModelNode description = property.getValue();
+                description.protect();
+                result.put(property.getName(), description);
+            }
+            log.debugf("Loaded %d resource descriptions from %s", result.size(), file);
+        } catch (IOException | RuntimeException e) {
+            log.warnf(e, "Ignoring resource descriptions in %s, they can't be read", file);
+            result.clear();
+        }
+        return result;
+    }
+
+    /** The file is written to a temporary file first and then moved, so that readers never see a partial file. */
+    private synchronized void save(String key, Map<String, ModelNode> versionDescriptions) {
+        if (directory == null) {
+            return;
+        }
+
+        ModelNode stored = new ModelNode().setEmptyObject();
+        versionDescriptions.forEach((pattern, description) -> stored.get(pattern).set(description));
+
+        try {
+            Files.createDirectories(directory);
+            Path file = directory.resolve(key + FILE_SUFFIX);
+            Path tmp = Files.createTempFile(directory, key, ".tmp");
+            try {
+                try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+                    stored.writeExternal(out);
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            log.warnf(e, "Failed to store resource descriptions to %s", directory);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.as.controller.client.ModelControllerClientConfiguration;
+import org.jboss.logging.Logger;
+import org.wildfly.security.SecurityFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.security.auth.callback.CallbackHandler;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A JVM-wide thread pool for {@code ModelControllerClient}s created with
+ * {@link OnlineOptions.OptionalOnlineOptions#sharedThreadPool()}. By default, each {@code ModelControllerClient}
+ * has its own executor, which keeps 2 threads alive for as long as the client is open. The shared pool only keeps
+ * threads that are busy or were used recently, and it isn't bounded, so that clients waiting for a long-running
+ * operation can't starve other clients. Only the executor is shared, each client still has its own remoting
+ * endpoint.</p>
+ *
+ * <p>The thread pool is reference counted: it is created when the first client configuration is
+ * {@link #share(ModelControllerClientConfiguration) shared} and shut down when the last shared configuration
+ * is closed (which happens when the {@code ModelControllerClient} is closed).</p>
+ */
+final class SharedClientThreadPool {
+    private static final Logger log = Logger.getLogger(SharedClientThreadPool.class);
+
+    private static final Object LOCK = new Object();
+    private static ExecutorService executor; // guarded by LOCK
+    private static int references; // guarded by LOCK
+
+    private SharedClientThreadPool() {
+        // avoid instantiation
+    }
+
+    /**
+     * Returns a configuration that is the same as the {@code configuration}, except that it provides the shared
+     * executor. Closing the returned configuration releases the reference to the shared executor and closes
+     * the original {@code configuration}.
+     */
+    static ModelControllerClientConfiguration share(ModelControllerClientConfiguration configuration) {
+        return new SharingConfiguration(configuration, acquire());
+    }
+
+    /** For tests. */
+    static int references() {
+        synchronized (LOCK) {
+            return references;
+        }
+    }
+
+    private static ExecutorService acquire() {
+        synchronized (LOCK) {
+            if (references == 0) {
+                log.debug("Creating shared management client thread pool");
+                executor = createExecutor();
+            }
+            references++;
+            return executor;
+        }
+    }
+
+    private static void release() {
+        synchronized (LOCK) {
+            references--;
+            if (references == 0) {
+                log.debug("Shutting down shared management client thread pool");
+                executor.shutdown();
+                executor = null;
+            }
+        }
+    }
+
+    private static ExecutorService createExecutor() {
+        final AtomicInteger counter = new AtomicInteger();
+        // threads are only created when needed and all of them are discarded when idle
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), runnable -> {
+                    Thread thread = new Thread(runnable, "creaper-management-client-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    private static final class SharingConfiguration implements ModelControllerClientConfiguration {
+        private final ModelControllerClientConfiguration delegate;
+        private final ExecutorService executor;
+        private boolean closed; // guarded by "this"
+
+        SharingConfiguration(ModelControllerClientConfiguration delegate, ExecutorService executor) {
+            this.delegate = delegate;
+            this.executor = executor;
+        }
+
+        @Override
+        public ExecutorService getExecutor() {
+            return executor;
+        }
+
+        @Override
+        public String getHost() {
+            return delegate.getHost();
+        }
+
+        @Override
+        public int getPort() {
+            return delegate.getPort();
+        }
+
+        @Override
+        public String getProtocol() {
+            return delegate.getProtocol();
+        }
+
+        @Override
+        public int getConnectionTimeout() {
+            return delegate.getConnectionTimeout();
+        }
+
+        @Override
+        public CallbackHandler getCallbackHandler() {
+            return delegate.getCallbackHandler();
+        }
+
+        @Override
+        public Map<String, String> getSaslOptions() {
+            return delegate.getSaslOptions();
+        }
+
+        // deprecated for removal, but still abstract, so it must be delegated until it's actually removed
+        @SuppressWarnings("removal")
+        @Override
+        public SSLContext getSSLContext() {
+            return delegate.getSSLContext();
+        }
+
+        @Override
+        public SecurityFactory<SSLContext> getSslContextFactory() {
+            return delegate.getSslContextFactory();
+        }
+
+        @Override
+        public String getClientBindAddress() {
+            return delegate.getClientBindAddress();
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public URI getAuthenticationConfigUri() {
+            return delegate.getAuthenticationConfigUri();
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+
+            release();
+            delegate.close();
+        }
+    }
+}
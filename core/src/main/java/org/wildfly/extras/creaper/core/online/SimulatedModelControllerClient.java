@@ -0,0 +1,747 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.OperationMessageHandler;
+import org.jboss.as.controller.client.OperationResponse;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A {@code ModelControllerClient} that keeps a management model in memory instead of talking to a server.
+ * It can be passed to {@link OnlineOptions.ConnectionOnlineOptions#wrap(ModelControllerClient) OnlineOptions.wrap}
+ * so that code using {@code OnlineManagementClient} (including commands) can run without booting WildFly.
+ * This is meant for tests and for measuring the overhead of the client itself, it is not a substitute
+ * for a real server: there's no validation of attributes and no runtime services.</p>
+ *
+ * <p>These operations are supported on any address: {@code add}, {@code remove}, {@code read-resource}
+ * (including {@code recursive}, {@code recursive-depth} and {@code attributes-only}), {@code read-attribute},
+ * {@code write-attribute}, {@code undefine-attribute}, {@code read-children-names},
+ * {@code read-children-types}, {@code read-resource-description} and {@code whoami}. Resource descriptions
+ * aren't backed by a schema, they are derived from the resources that currently exist: attributes of all
+ * resources matching the address (which may contain {@code *} wildcards) are described with the type of their
+ * current value; all resources matching a wildcard form one registration, unless their type is
+ * {@link Builder#registeredPerName(String...) registered per name}. A {@code composite} operation executes its steps
+ * in order and if one of them fails, all previous steps are rolled back. Failures use the same failure codes as WildFly
+ * (e.g. {@code WFLYCTL0216} for a resource that doesn't exist), so that {@code Operations.exists} and similar
+ * methods work as expected. Other operations fail with {@code WFLYCTL0031}.</p>
+ *
+ * <p>The model starts with a minimal {@link Builder#standalone() standalone} or {@link Builder#domain() domain}
+ * root layout, which is enough for {@code ManagementClient.online} to connect, and can be
+ * {@link Builder#model(ModelNode) seeded} with a snapshot obtained e.g. by
+ * {@code :read-resource(recursive=true)} from a real server. Each operation can be delayed by
+ * a configurable {@link Builder#latency(long, TimeUnit) latency} to mimic a remote server.</p>
+ *
+ * <p>Instances are thread safe; operations are executed one at a time.</p>
+ */
+public final class SimulatedModelControllerClient implements ModelControllerClient {
+    private static final String UNDEFINE_ATTRIBUTE_OPERATION = "undefine-attribute";
+    private static final String READ_RESOURCE_DESCRIPTION_OPERATION = "read-resource-description";
+    private static final String ROLLED_BACK = "rolled-back";
+    private static final String CANCELLED = "cancelled";
+    private static final List<String> NON_ATTRIBUTE_PARAMETERS = Arrays.asList(
+            Constants.OP, Constants.OP_ADDR, Constants.OPERATION_HEADERS);
+
+    private final Resource root;
+    private final long latencyNanos;
+    private final Set<String> registeredPerName;
+
+    private SimulatedModelControllerClient(Builder builder) {
+        this.root = builder.domain ? domainRoot(builder) : standaloneRoot(builder);
+        if (builder.model != null) {
+            root.merge(builder.model);
+        }
+        this.latencyNanos = builder.latencyNanos;
+        this.registeredPerName = new HashSet<>(builder.registeredPerName);
+    }
+
+    /** An empty standalone server with default settings. */
+    public static SimulatedModelControllerClient standalone() {
+        return new Builder().standalone().build();
+    }
+
+    /** An empty domain with default settings. */
+    public static SimulatedModelControllerClient domain() {
+        return new Builder().domain().build();
+    }
+
+    /** Returns a copy of the whole model, in the same format as {@code :read-resource(recursive=true)}. */
+    public ModelNode snapshot() {
+        synchronized (root) {
+            return root.toModelNode(Integer.MAX_VALUE);
+        }
+    }
+
+    // --- ModelControllerClient
+
+    @Override
+    public OperationResponse executeOperation(Operation operation, OperationMessageHandler messageHandler)
+            throws IOException {
+        simulateLatency();
+        return OperationResponse.Factory.createSimple(execute(operation.getOperation(), new ArrayDeque<>()));
+    }
+
+    @Override
+    public CompletableFuture<ModelNode> executeAsync(Operation operation, OperationMessageHandler messageHandler) {
+        ModelNode op = operation.getOperation().clone();
+        if (latencyNanos == 0) {
+            return CompletableFuture.completedFuture(execute(op, new ArrayDeque<>()));
+        }
+        return CompletableFuture.supplyAsync(() -> execute(op, new ArrayDeque<>()),
+                CompletableFuture.delayedExecutor(latencyNanos, TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public CompletableFuture<OperationResponse> executeOperationAsync(Operation operation,
+                                                                      OperationMessageHandler messageHandler) {
+        return executeAsync(operation, messageHandler).thenApply(OperationResponse.Factory::createSimple);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void simulateLatency() throws InterruptedIOException {
+        if (latencyNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(latencyNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while simulating latency");
+            }
+        }
+    }
+
+    // --- operations
+
+    /** Undo actions are collected in {@code undoLog} so that a failed {@code composite} can be rolled back. */
+    private ModelNode execute(ModelNode operation, Deque<Runnable> undoLog) {
+        synchronized (root) {
+            try {
+                return success(executeStep(operation, undoLog));
+            } catch (OperationFailure e) {
+                return failed(e);
+            }
+        }
+    }
+
+    private ModelNode executeStep(ModelNode operation, Deque<Runnable> undoLog) throws OperationFailure {
+        String name = operation.get(Constants.OP).asString();
+        List<Property> address = address(operation);
+
+        switch (name) {
+            case Constants.COMPOSITE:
+                return composite(operation, undoLog);
+            case Constants.ADD:
+                return add(address, operation, undoLog);
+            case Constants.REMOVE_OPERATION:
+                return remove(address, undoLog);
+            case Constants.READ_RESOURCE_OPERATION:
+                return readResource(address, operation);
+            case Constants.READ_ATTRIBUTE_OPERATION:
+                return readAttribute(address, operation);
+            case Constants.WRITE_ATTRIBUTE_OPERATION:
+                return writeAttribute(address, operation, operation.get(Constants.VALUE), undoLog);
+            case UNDEFINE_ATTRIBUTE_OPERATION:
+                return writeAttribute(address, operation, new ModelNode(), undoLog);
+            case Constants.READ_CHILDREN_NAMES_OPERATION:
+                return readChildrenNames(address, operation);
+            case Constants.READ_CHILDREN_TYPES:
+                return readChildrenTypes(address);
+            case READ_RESOURCE_DESCRIPTION_OPERATION:
+                return readResourceDescription(address, operation);
+            case Constants.WHOAMI:
+                resolve(address);
+                ModelNode result = new ModelNode();
+                result.get("identity", "username").set("anonymous");
+                return result;
+            default:
+                resolve(address);
+                throw new OperationFailure(String.format("WFLYCTL0031: No operation named '%s' exists at address %s",
+                        name, format(address)));
+        }
+    }
+
+    private ModelNode composite(ModelNode operation, Deque<Runnable> undoLog) throws OperationFailure {
+        List<ModelNode> steps = operation.get(Constants.STEPS).isDefined()
+                ? operation.get(Constants.STEPS).asList() : Collections.<ModelNode>emptyList();
+
+        Deque<Runnable> compositeUndoLog = new ArrayDeque<>();
+        ModelNode result = new ModelNode().setEmptyObject();
+        for (int i = 0; i < steps.size(); i++) {
+            String stepName = "step-" + (i + 1);
+            try {
+                result.get(stepName).set(success(executeStep(steps.get(i), compositeUndoLog)));
+            } catch (OperationFailure e) {
+                compositeUndoLog.forEach(Runnable::run);
+
+                // like WildFly: the executed steps are reported as failed and rolled back, but only the step
+                // that caused the failure has a failure description; the remaining steps are cancelled
+                ModelNode stepResults = new ModelNode().setEmptyObject();
+                for (int j = 0; j < steps.size(); j++) {
+                    ModelNode stepResult = stepResults.get("step-" + (j + 1));
+                    if (j < i) {
+                        stepResult.get(Constants.OUTCOME).set(Constants.FAILED);
+                        stepResult.get(ROLLED_BACK).set(true);
+                    } else if (j == i) {
+                        stepResult.set(failed(e));
+                    } else {
+                        stepResult.get(Constants.OUTCOME).set(CANCELLED);
+                    }
+                }
+
+                ModelNode failureDescription = new ModelNode();
+                failureDescription.get("WFLYCTL0062: Composite operation failed and was rolled back. "
+                        + "Steps that failed:", "Operation " + stepName).set(e.failureDescription);
+                throw new OperationFailure(failureDescription, stepResults);
+            }
+        }
+
+        // undo actions are executed in reverse order, so the composite's actions must be on top of the outer log
+        compositeUndoLog.descendingIterator().forEachRemaining(undoLog::push);
+        return result;
+    }
+
+    private ModelNode add(List<Property> address, ModelNode operation, Deque<Runnable> undoLog)
+            throws OperationFailure {
+        if (address.isEmpty()) {
+            throw new OperationFailure("WFLYCTL0212: Duplicate resource " + format(address));
+        }
+
+        List<Property> parentAddress = address.subList(0, address.size() - 1);
+        Resource parent = root.resolve(parentAddress);
+        if (parent == null) {
+            throw new OperationFailure(String.format("WFLYCTL0175: Resource %s does not exist; a resource at address"
+                    + " %s cannot be created until all ancestor resources have been added",
+                    format(parentAddress), format(address)));
+        }
+
+        Property last = address.get(address.size() - 1);
+        String type = last.getName();
+        String name = last.getValue().asString();
+        if (parent.child(type, name) != null) {
+            throw new OperationFailure("WFLYCTL0212: Duplicate resource " + format(address));
+        }
+
+        Resource resource = new Resource();
+        for (Property parameter : operation.asPropertyList()) {
+            if (!NON_ATTRIBUTE_PARAMETERS.contains(parameter.getName()) && parameter.getValue().isDefined()) {
+                resource.attributes.put(parameter.getName(), parameter.getValue().clone());
+            }
+        }
+        parent.children.computeIfAbsent(type, ignored -> new LinkedHashMap<>()).put(name, resource);
+        undoLog.push(() -> parent.children.get(type).remove(name));
+        return new ModelNode();
+    }
+
+    private ModelNode remove(List<Property> address, Deque<Runnable> undoLog) throws OperationFailure {
+        resolve(address);
+        if (address.isEmpty()) {
+            throw new OperationFailure("WFLYCTL0031: No operation named 'remove' exists at address " + format(address));
+        }
+
+        Resource parent = root.resolve(address.subList(0, address.size() - 1));
+        Property last = address.get(address.size() - 1);
+        String type = last.getName();
+        String name = last.getValue().asString();
+        Map<String, Resource> siblings = parent.children.get(type);
+
+        // keep the order of children intact when rolling back
+        Map<String, Resource> original = new LinkedHashMap<>(siblings);
+        siblings.remove(name);
+        undoLog.push(() -> {
+            siblings.clear();
+            siblings.putAll(original);
+        });
+        return new ModelNode();
+    }
+
+    private ModelNode readResource(List<Property> address, ModelNode operation) throws OperationFailure {
+        Resource resource = resolve(address);
+        if (booleanParameter(operation, Constants.ATTRIBUTES_ONLY)) {
+            return resource.toModelNode(-1);
+        }
+
+        int depth = 0;
+        if (booleanParameter(operation, Constants.RECURSIVE)) {
+            depth = Integer.MAX_VALUE;
+        }
+        if (operation.hasDefined(Constants.RECURSIVE_DEPTH)) {
+            depth = operation.get(Constants.RECURSIVE_DEPTH).asInt();
+        }
+        return resource.toModelNode(depth);
+    }
+
+    private ModelNode readAttribute(List<Property> address, ModelNode operation) throws OperationFailure {
+        Resource resource = resolve(address);
+        String attribute = requiredParameter(operation, Constants.NAME);
+        if (!resource.attributes.containsKey(attribute)) {
+            throw new OperationFailure("WFLYCTL0201: Unknown attribute '" + attribute + "'");
+        }
+        return resource.attributes.get(attribute).clone();
+    }
+
+    private ModelNode writeAttribute(List<Property> address, ModelNode operation, ModelNode value,
+                                     Deque<Runnable> undoLog) throws OperationFailure {
+        Resource resource = resolve(address);
+        String attribute = requiredParameter(operation, Constants.NAME);
+
+        ModelNode original = resource.attributes.put(attribute, value.clone());
+        undoLog.push(() -> {
+            if (original == null) {
+                resource.attributes.remove(attribute);
+            } else {
+                resource.attributes.put(attribute, original);
+            }
+        });
+        return new ModelNode();
+    }
+
+    private ModelNode readChildrenNames(List<Property> address, ModelNode operation) throws OperationFailure {
+        Resource resource = resolve(address);
+        String childType = requiredParameter(operation, Constants.CHILD_TYPE);
+        Map<String, Resource> children = resource.children.get(childType);
+        if (children == null) {
+            throw new OperationFailure("WFLYCTL0202: No known child type named " + childType);
+        }
+
+        ModelNode result = new ModelNode().setEmptyList();
+        children.keySet().forEach(result::add);
+        return result;
+    }
+
+    private ModelNode readChildrenTypes(List<Property> address) throws OperationFailure {
+        Resource resource = resolve(address);
+        ModelNode result = new ModelNode().setEmptyList();
+        resource.children.keySet().forEach(result::add);
+        return result;
+    }
+
+    private ModelNode readResourceDescription(List<Property> address, ModelNode operation) throws OperationFailure {
+        List<Resource> resources = Collections.singletonList(root);
+        List<Resource> parents = Collections.emptyList();
+        boolean wildcard = false;
+        for (int i = 0; i < address.size(); i++) {
+            String type = address.get(i).getName();
+            String name = address.get(i).getValue().asString();
+            List<Resource> matching = new ArrayList<>();
+            for (Resource resource : resources) {
+                Map<String, Resource> typeChildren = resource.children.getOrDefault(type, Collections.emptyMap());
+                if ("*".equals(name)) {
+                    wildcard = true;
+                    matching.addAll(typeChildren.values());
+                } else if (typeChildren.containsKey(name)) {
+                    matching.add(typeChildren.get(name));
+                }
+            }
+            if (matching.isEmpty() && !"*".equals(name)) {
+                throw new OperationFailure("WFLYCTL0216: Management resource '" + format(address.subList(0, i + 1))
+                        + "' not found");
+            }
+            parents = resources;
+            resources = matching;
+        }
+
+        boolean recursive = booleanParameter(operation, Constants.RECURSIVE);
+        boolean operations = booleanParameter(operation, "operations");
+        Property last = address.isEmpty() ? null : address.get(address.size() - 1);
+        if (last != null && "*".equals(last.getValue().asString()) && registeredPerName.contains(last.getName())) {
+            // like WildFly, each name of such type is a separate registration with its own entry
+            ModelNode result = new ModelNode().setEmptyList();
+            for (Resource parent : parents) {
+                parent.children.getOrDefault(last.getName(), Collections.emptyMap()).forEach((name, child) -> {
+                    ModelNode entry = success(describe(Collections.singletonList(child), recursive, operations));
+                    ModelNode entryAddress = entry.get(Constants.OP_ADDR).setEmptyList();
+                    address.subList(0, address.size() - 1).forEach(element ->
+                            entryAddress.add(element.getName(), element.getValue().asString()));
+                    entryAddress.add(last.getName(), name);
+                    result.add(entry);
+                });
+            }
+            return result;
+        }
+
+        ModelNode description = describe(resources, recursive, operations);
+        if (!wildcard) {
+            return description;
+        }
+
+        // like WildFly, a wildcard address yields a list with one entry for the matching registration
+        ModelNode entry = success(description);
+        entry.get(Constants.OP_ADDR).set(operation.get(Constants.OP_ADDR));
+        return new ModelNode().add(entry);
+    }
+
+    /** Describes all {@code resources} together, as if they were instances of one resource type. */
+    private static ModelNode describe(List<Resource> resources, boolean recursive, boolean operations) {
+        ModelNode attributes = new ModelNode().setEmptyObject();
+        Map<String, List<Resource>> children = new LinkedHashMap<>();
+        for (Resource resource : resources) {
+            resource.attributes.forEach((name, value) -> {
+                ModelNode attribute = attributes.get(name);
+                if (!attribute.isDefined() || value.isDefined()) {
+                    attribute.get("type").set(value.isDefined() ? value.getType() : ModelType.STRING);
+                    attribute.get("description").set("Simulated attribute " + name);
+                    attribute.get("nillable").set(true);
+                    attribute.get("access-type").set("read-write");
+                }
+            });
+            resource.children.forEach((type, typeChildren) ->
+                    children.computeIfAbsent(type, ignored -> new ArrayList<>()).addAll(typeChildren.values()));
+        }
+
+        ModelNode result = new ModelNode();
+        result.get("description").set("Simulated resource");
+        result.get("attributes").set(attributes);
+        if (operations) {
+            ModelNode operationsNode = result.get("operations");
+            for (String name : Arrays.asList(Constants.ADD, Constants.REMOVE_OPERATION,
+                    Constants.READ_RESOURCE_OPERATION, Constants.READ_ATTRIBUTE_OPERATION,
+                    Constants.WRITE_ATTRIBUTE_OPERATION, UNDEFINE_ATTRIBUTE_OPERATION,
+                    Constants.READ_CHILDREN_NAMES_OPERATION, Constants.READ_CHILDREN_TYPES,
+                    READ_RESOURCE_DESCRIPTION_OPERATION)) {
+                operationsNode.get(name, "operation-name").set(name);
+                operationsNode.get(name, "request-properties").setEmptyObject();
+            }
+            operationsNode.get(Constants.ADD, "request-properties").set(attributes);
+        }
+        ModelNode childrenNode = result.get("children").setEmptyObject();
+        children.forEach((type, typeChildren) -> {
+            childrenNode.get(type, "description").set("Simulated child type " + type);
+            ModelNode modelDescription = childrenNode.get(type, "model-description", "*");
+            // without any instance, nothing is known about the child type
+            if (recursive && !typeChildren.isEmpty()) {
+                modelDescription.set(describe(typeChildren, true, operations));
+            }
+        });
+        return result;
+    }
+
+    // --- helpers
+
+    private Resource resolve(List<Property> address) throws OperationFailure {
+        Resource resource = root.resolve(address);
+        if (resource == null) {
+            throw new OperationFailure("WFLYCTL0216: Management resource '" + format(address) + "' not found");
+        }
+        return resource;
+    }
+
+    private static List<Property> address(ModelNode operation) {
+        ModelNode address = operation.get(Constants.OP_ADDR);
+        if (!address.isDefined()) {
+            return Collections.emptyList();
+        }
+
+        List<Property> result = new ArrayList<>();
+        for (ModelNode element : address.asList()) {
+            // address elements are usually properties, but objects with a single key are accepted by WildFly as well
+            result.add(element.getType() == ModelType.PROPERTY
+                    ? element.asProperty() : element.asPropertyList().get(0));
+        }
+        return result;
+    }
+
+    private static String format(List<Property> address) {
+        ModelNode node = new ModelNode().setEmptyList();
+        for (Property element : address) {
+            node.add(element.getName(), element.getValue().asString());
+        }
+        return node.asString();
+    }
+
+    private static boolean booleanParameter(ModelNode operation, String name) {
+        return operation.hasDefined(name) && operation.get(name).asBoolean();
+    }
+
+    private static String requiredParameter(ModelNode operation, String name) throws OperationFailure {
+        if (!operation.hasDefined(name)) {
+            throw new OperationFailure("WFLYCTL0155: '" + name + "' may not be null");
+        }
+        return operation.get(name).asString();
+    }
+
+    private static ModelNode success(ModelNode result) {
+        ModelNode response = new ModelNode();
+        response.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        if (result.isDefined()) {
+            response.get(Constants.RESULT).set(result);
+        }
+        return response;
+    }
+
+    private static ModelNode failed(OperationFailure failure) {
+        ModelNode response = new ModelNode();
+        response.get(Constants.OUTCOME).set(Constants.FAILED);
+        if (failure.result != null) {
+            response.get(Constants.RESULT).set(failure.result);
+        }
+        response.get(Constants.FAILURE_DESCRIPTION).set(failure.failureDescription);
+        response.get(ROLLED_BACK).set(true);
+        return response;
+    }
+
+    // --- root layouts
+
+    private static Resource standaloneRoot(Builder builder) {
+        Resource root = new Resource();
+        setVersion(root, builder);
+        root.attributes.put("name", new ModelNode("localhost"));
+        root.attributes.put("process-type", new ModelNode("Server"));
+        root.attributes.put("launch-type", new ModelNode("STANDALONE"));
+        root.attributes.put("running-mode", new ModelNode("NORMAL"));
+        root.attributes.put("server-state", new ModelNode("running"));
+        root.attributes.put("runtime-configuration-state", new ModelNode("ok"));
+        root.attributes.put("suspend-state", new ModelNode("RUNNING"));
+        root.childTypes("core-service", "deployment", "deployment-overlay", "extension", "interface", "path",
+                "socket-binding-group", Constants.SUBSYSTEM, "system-property");
+        return root;
+    }
+
+    private static Resource domainRoot(Builder builder) {
+        Resource root = new Resource();
+        setVersion(root, builder);
+        root.attributes.put("name", new ModelNode("Unnamed Domain"));
+        root.attributes.put("process-type", new ModelNode("Domain Controller"));
+        root.attributes.put("launch-type", new ModelNode("DOMAIN"));
+        root.childTypes("core-service", "deployment", "deployment-overlay", "extension", Constants.HOST, "interface",
+                "path", Constants.PROFILE, "server-group", "socket-binding-group", "system-property");
+
+        Resource profile = root.addChild(Constants.PROFILE, "default");
+        profile.childTypes(Constants.SUBSYSTEM);
+
+        Resource serverGroup = root.addChild("server-group", "main-server-group");
+        serverGroup.attributes.put(Constants.PROFILE, new ModelNode("default"));
+        serverGroup.attributes.put("socket-binding-group", new ModelNode("standard-sockets"));
+        serverGroup.childTypes("deployment", "jvm", "system-property");
+
+        Resource host = root.addChild(Constants.HOST, "master");
+        host.attributes.put("name", new ModelNode("master"));
+        host.attributes.put("master", new ModelNode(true));
+        host.attributes.put("running-mode", new ModelNode("NORMAL"));
+        host.attributes.put("host-state", new ModelNode("running"));
+        host.childTypes("core-service", "interface", "jvm", "path", "server", "server-config", Constants.SUBSYSTEM,
+                "system-property");
+        for (String serverName : Arrays.asList("server-one", "server-two")) {
+            Resource serverConfig = host.addChild("server-config", serverName);
+            serverConfig.attributes.put("group", new ModelNode("main-server-group"));
+            serverConfig.attributes.put("auto-start", new ModelNode(true));
+            serverConfig.childTypes("interface", "jvm", "path", "system-property");
+
+            Resource server = host.addChild("server", serverName);
+            server.attributes.put("name", new ModelNode(serverName));
+            server.attributes.put("server-state", new ModelNode("running"));
+            server.attributes.put("server-group", new ModelNode("main-server-group"));
+            server.childTypes("core-service", "deployment", "interface", "path", "socket-binding-group",
+                    Constants.SUBSYSTEM, "system-property");
+        }
+        return root;
+    }
+
+    private static void setVersion(Resource root, Builder builder) {
+        root.attributes.put("management-major-version", new ModelNode(builder.majorVersion));
+        root.attributes.put("management-minor-version", new ModelNode(builder.minorVersion));
+        root.attributes.put("management-micro-version", new ModelNode(builder.microVersion));
+    }
+
+    // --- model
+
+    private static final class Resource {
+        private final Map<String, ModelNode> attributes = new LinkedHashMap<>();
+        private final Map<String, Map<String, Resource>> children = new LinkedHashMap<>();
+
+        void childTypes(String... types) {
+            for (String type : types) {
+                children.computeIfAbsent(type, ignored -> new LinkedHashMap<>());
+            }
+        }
+
+        Resource addChild(String type, String name) {
+            Resource child = new Resource();
+            children.computeIfAbsent(type, ignored -> new LinkedHashMap<>()).put(name, child);
+            return child;
+        }
+
+        Resource child(String type, String name) {
+            Map<String, Resource> typeChildren = children.get(type);
+            return typeChildren != null ? typeChildren.get(name) : null;
+        }
+
+        Resource resolve(List<Property> address) {
+            Resource current = this;
+            for (Property element : address) {
+                current = current.child(element.getName(), element.getValue().asString());
+                if (current == null) {
+                    return null;
+                }
+            }
+            return current;
+        }
+
+        /**
+         * @param depth {@code -1} for attributes only, {@code 0} for attributes and names of children,
+         * more for nested children
+         */
+        ModelNode toModelNode(int depth) {
+            ModelNode result = new ModelNode().setEmptyObject();
+            attributes.forEach((name, value) -> result.get(name).set(value));
+            if (depth < 0) {
+                return result;
+            }
+
+            children.forEach((type, typeChildren) -> {
+                ModelNode typeNode = result.get(type);
+                typeChildren.forEach((name, child) -> {
+                    if (depth > 0) {
+                        typeNode.get(name).set(child.toModelNode(depth - 1));
+                    } else {
+                        typeNode.get(name);
+                    }
+                });
+            });
+            return result;
+        }
+
+        /**
+         * Merges a snapshot in the {@code :read-resource(recursive=true)} format into this resource. A key is taken
+         * as a child type if it is already known as a child type, or if its value is an object whose values are all
+         * objects or undefined (that is, a map of child names to child resources). Everything else is an attribute.
+         */
+        void merge(ModelNode snapshot) {
+            if (!snapshot.isDefined()) {
+                return;
+            }
+
+            for (Property property : snapshot.asPropertyList()) {
+                String key = property.getName();
+                ModelNode value = property.getValue();
+                if (children.containsKey(key) && !value.isDefined()) {
+                    continue;
+                }
+
+                if (children.containsKey(key) || isChildrenMap(value)) {
+                    Map<String, Resource> typeChildren = children.computeIfAbsent(key,
+                            ignored -> new LinkedHashMap<>());
+                    for (Property child : value.asPropertyList()) {
+                        typeChildren.computeIfAbsent(child.getName(), ignored -> new Resource())
+                                .merge(child.getValue());
+                    }
+                } else {
+                    attributes.put(key, value.clone());
+                }
+            }
+        }
+
+        private static boolean isChildrenMap(ModelNode value) {
+            if (value.getType() != ModelType.OBJECT || value.keys().isEmpty()) {
+                return false;
+            }
+            for (Property property : value.asPropertyList()) {
+                ModelType type = property.getValue().getType();
+                if (type != ModelType.OBJECT && type != ModelType.UNDEFINED) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class OperationFailure extends Exception {
+        private final ModelNode failureDescription;
+        private final ModelNode result; // step results of a failed composite, otherwise null
+
+        OperationFailure(String failureDescription) {
+            this(new ModelNode(failureDescription), null);
+        }
+
+        OperationFailure(ModelNode failureDescription, ModelNode result) {
+            super(failureDescription.asString(), null, false, false);
+            this.failureDescription = failureDescription;
+            this.result = result;
+        }
+    }
+
+    public static final class Builder {
+        private boolean domain;
+        private int majorVersion = 29;
+        private int minorVersion;
+        private int microVersion;
+        private long latencyNanos;
+        private ModelNode model;
+        private final Set<String> registeredPerName = new HashSet<>();
+
+        /** Use the standalone server root layout. This is the default. */
+        public Builder standalone() {
+            this.domain = false;
+            return this;
+        }
+
+        /**
+         * Use the domain root layout: profile {@code default}, server group {@code main-server-group} and host
+         * {@code master} with servers {@code server-one} and {@code server-two}.
+         */
+        public Builder domain() {
+            this.domain = true;
+            return this;
+        }
+
+        /** Management version reported by the root resource. Optional, {@code 29.0.0} by default. */
+        public Builder managementVersion(int major, int minor, int micro) {
+            if (major <= 0) {
+                throw new IllegalArgumentException("major version must be greater than 0 but it's set to " + major);
+            }
+            this.majorVersion = major;
+            this.minorVersion = minor;
+            this.microVersion = micro;
+            return this;
+        }
+
+        /** Delay before each operation is executed. Optional, no delay by default. */
+        public Builder latency(long time, TimeUnit unit) {
+            if (time < 0) {
+                throw new IllegalArgumentException("latency must be >= 0 but it's set to " + time);
+            }
+            this.latencyNanos = unit.toNanos(time);
+            return this;
+        }
+
+        /**
+         * A snapshot of the model (in the format of {@code :read-resource(recursive=true)}) that is merged into
+         * the root layout. Optional.
+         */
+        public Builder model(ModelNode snapshot) {
+            this.model = snapshot != null ? snapshot.clone() : null;
+            return this;
+        }
+
+        /**
+         * Child types whose resources are registered separately for each name, like {@code core-service}
+         * in WildFly. A {@code read-resource-description} with a wildcard for such a type returns one entry
+         * per existing resource instead of one entry for all of them. Optional, none by default.
+         */
+        public Builder registeredPerName(String... childTypes) {
+            this.registeredPerName.addAll(Arrays.asList(childTypes));
+            return this;
+        }
+
+        public SimulatedModelControllerClient build() {
+            return new SimulatedModelControllerClient(this);
+        }
+    }
+}
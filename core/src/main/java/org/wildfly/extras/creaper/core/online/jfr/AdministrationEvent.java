@@ -0,0 +1,49 @@
+package org.wildfly.extras.creaper.core.online.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a reload or restart performed by {@code Administration} (including waiting for the server to come
+ * back) and for waiting until a server is running.
+ */
+@Name("org.wildfly.extras.creaper.Administration")
+@Label("Server Administration")
+@Description("Reload, restart or waiting for a server performed by Administration")
+@Category({"Creaper", "Online"})
+@StackTrace(false)
+final class AdministrationEvent extends Event {
+    static final String RELOAD = "reload";
+    static final String RESTART = "restart";
+    static final String WAIT = "wait";
+
+    @Label("Action")
+    private String action;
+
+    @Label("Target")
+    private String target;
+
+    @Label("Outcome")
+    private String outcome;
+
+    /** Creates a new event and starts the timing. */
+    static AdministrationEvent start(String action) {
+        AdministrationEvent event = new AdministrationEvent();
+        event.action = action;
+        event.begin();
+        return event;
+    }
+
+    /** Ends the timing and commits the event if it should be recorded. */
+    void finish(String target, Throwable failure) {
+        if (shouldCommit()) {
+            this.target = target;
+            this.outcome = JfrEvents.outcome(failure);
+            commit();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.wildfly.extras.creaper.core.online.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** JFR event for an {@code OnlineCommand} applied by {@code OnlineManagementClient}. */
+@Name("org.wildfly.extras.creaper.Command")
+@Label("Online Command")
+@Description("Online command applied by OnlineManagementClient")
+@Category({"Creaper", "Online"})
+@StackTrace(false)
+final class CommandEvent extends Event implements JfrEvents.StartedCommand {
+    @Label("Command")
+    private String command;
+
+    @Label("Command Class")
+    private Class<?> commandClass;
+
+    @Label("Outcome")
+    private String outcome;
+
+    /** Creates a new event and starts the timing. */
+    static CommandEvent start() {
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        return event;
+    }
+
+    /** Ends the timing and commits the event if it should be recorded. */
+    @Override
+    public void finish(Object command, Throwable failure) {
+        if (shouldCommit()) {
+            this.command = String.valueOf(command);
+            this.commandClass = command.getClass();
+            this.outcome = JfrEvents.outcome(failure);
+            commit();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.wildfly.extras.creaper.core.online.jfr;
+
+import jdk.jfr.EventType;
+import org.jboss.dmr.ModelNode;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Ignore, this is not a part of public API. Records the JFR events of Creaper; the event classes themselves
+ * are not public. Each {@code ...Started} method returns a started event, which must be finished by calling
+ * its {@code finish} method. If the event type isn't enabled, a shared instance that does nothing is returned,
+ * so that nothing is allocated when JFR isn't recording.
+ */
+public final class JfrEvents {
+    public static final String RELOAD = AdministrationEvent.RELOAD;
+    public static final String RESTART = AdministrationEvent.RESTART;
+    public static final String WAIT = AdministrationEvent.WAIT;
+
+    private static final EventType OPERATION = EventType.getEventType(OperationEvent.class);
+    private static final EventType COMMAND = EventType.getEventType(CommandEvent.class);
+    private static final EventType RECONNECT = EventType.getEventType(ReconnectEvent.class);
+
+    private static final StartedOperation NO_OPERATION = (operation, result, failure) -> { };
+    private static final StartedCommand NO_COMMAND = (command, failure) -> { };
+    private static final StartedReconnect NO_RECONNECT = (server, failure) -> { };
+
+    private JfrEvents() {
+        // avoid instantiation
+    }
+
+    public static StartedOperation operationStarted(boolean async) {
+        return OPERATION.isEnabled() ? OperationEvent.start(async) : NO_OPERATION;
+    }
+
+    public static StartedCommand commandStarted() {
+        return COMMAND.isEnabled() ? CommandEvent.start() : NO_COMMAND;
+    }
+
+    public static StartedReconnect reconnectStarted() {
+        return RECONNECT.isEnabled() ? ReconnectEvent.start() : NO_RECONNECT;
+    }
+
+    /**
+     * Performs the {@code administration} action (one of {@link #RELOAD}, {@link #RESTART} or {@link #WAIT})
+     * on the {@code target} and records it as an event.
+     */
+    public static void administration(String action, String target, AdministrationAction administration)
+            throws IOException, InterruptedException, TimeoutException {
+        AdministrationEvent event = AdministrationEvent.start(action);
+        try {
+            administration.perform();
+        } catch (IOException | InterruptedException | TimeoutException | RuntimeException e) {
+            event.finish(target, e);
+            throw e;
+        }
+        event.finish(target, null);
+    }
+
+    /** The value of the {@code outcome} field of all Creaper events, {@code failure} is {@code null} on success. */
+    public static String outcome(Throwable failure) {
+        return failure == null ? "success" : "failed: " + failure.getClass().getName();
+    }
+
+    public interface StartedOperation {
+        void finish(ModelNode operation, ModelNode result, Throwable failure);
+    }
+
+    public interface StartedCommand {
+        void finish(Object command, Throwable failure);
+    }
+
+    public interface StartedReconnect {
+        void finish(Object server, Throwable failure);
+    }
+
+    public interface AdministrationAction {
+        void perform() throws IOException, InterruptedException, TimeoutException;
+    }
+}
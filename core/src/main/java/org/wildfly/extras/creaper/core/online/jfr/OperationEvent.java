@@ -0,0 +1,70 @@
+package org.wildfly.extras.creaper.core.online.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.Property;
+import org.wildfly.extras.creaper.core.online.Constants;
+
+/**
+ * JFR event for a management operation executed by {@code OnlineManagementClient}. The operation and its outcome
+ * are only converted to strings if the event is actually recorded, so the overhead is negligible when JFR
+ * isn't recording.
+ */
+@Name("org.wildfly.extras.creaper.Operation")
+@Label("Management Operation")
+@Description("Management operation executed by OnlineManagementClient")
+@Category({"Creaper", "Online"})
+@StackTrace(false)
+final class OperationEvent extends Event implements JfrEvents.StartedOperation {
+    @Label("Operation")
+    private String operation;
+
+    @Label("Address")
+    private String address;
+
+    @Label("Outcome")
+    private String outcome;
+
+    @Label("Asynchronous")
+    private boolean async;
+
+    /** Creates a new event and starts the timing. */
+    static OperationEvent start(boolean async) {
+        OperationEvent event = new OperationEvent();
+        event.async = async;
+        event.begin();
+        return event;
+    }
+
+    /** Ends the timing and commits the event if it should be recorded. */
+    @Override
+    public void finish(ModelNode operation, ModelNode result, Throwable failure) {
+        if (shouldCommit()) {
+            this.operation = operation.hasDefined(Constants.OP) ? operation.get(Constants.OP).asString() : null;
+            this.address = operation.has(Constants.OP_ADDR) ? format(operation.get(Constants.OP_ADDR)) : "/";
+            if (result != null && result.hasDefined(Constants.OUTCOME)) {
+                this.outcome = result.get(Constants.OUTCOME).asString();
+            } else {
+                this.outcome = JfrEvents.outcome(failure);
+            }
+            commit();
+        }
+    }
+
+    private static String format(ModelNode address) {
+        if (!address.isDefined()) {
+            return "/";
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (Property element : address.asPropertyList()) {
+            result.append('/').append(element.getName()).append('=').append(element.getValue().asString());
+        }
+        return result.length() > 0 ? result.toString() : "/";
+    }
+}
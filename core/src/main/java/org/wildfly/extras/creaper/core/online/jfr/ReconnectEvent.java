@@ -0,0 +1,39 @@
+package org.wildfly.extras.creaper.core.online.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** JFR event for {@code OnlineManagementClient.reconnect}, including all the waiting for the server. */
+@Name("org.wildfly.extras.creaper.Reconnect")
+@Label("Reconnect")
+@Description("Reconnecting OnlineManagementClient to a server")
+@Category({"Creaper", "Online"})
+@StackTrace(false)
+final class ReconnectEvent extends Event implements JfrEvents.StartedReconnect {
+    @Label("Server")
+    private String server;
+
+    @Label("Outcome")
+    private String outcome;
+
+    /** Creates a new event and starts the timing. */
+    static ReconnectEvent start() {
+        ReconnectEvent event = new ReconnectEvent();
+        event.begin();
+        return event;
+    }
+
+    /** Ends the timing and commits the event if it should be recorded. */
+    @Override
+    public void finish(Object server, Throwable failure) {
+        if (shouldCommit()) {
+            this.server = String.valueOf(server);
+            this.outcome = JfrEvents.outcome(failure);
+            commit();
+        }
+    }
+}
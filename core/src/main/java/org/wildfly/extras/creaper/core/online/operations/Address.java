@@ -3,9 +3,7 @@ package org.wildfly.extras.creaper.core.online.operations;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.extras.creaper.core.online.Constants;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Objects;
 
 /**
  * <p>An address in the management tree. It is a sequence of string pairs ({@code key=value}), possibly empty. This
@@ -32,12 +30,25 @@ import java.util.List;
  *
  * <p>So creating an address of {@code /foo=bar/baz=quux} looks like this:
  * {@code Address.of("foo", "bar").and("baz", "quux")}</p>
+ *
+ * <p>Addresses share structure: {@code address.and("foo", "bar")} only points to {@code address} instead of copying
+ * its elements, so building many addresses under a common parent is cheap. The {@code ModelNode} form of
+ * an address is created at most once and addresses can be compared and used as keys in hash maps.</p>
  */
 public final class Address {
-    private final List<StringPair> address;
+    private static final Address ROOT = new Address(null, null, null);
+
+    /** {@code null} for the root address */
+    private final Address parent;
+    private final String key;
+    private final String value;
+    private final int size;
+    private final int hashCode;
+    /** lazily created and {@link ModelNode#protect() protected}, so that it can be shared */
+    private volatile ModelNode modelNode;
 
     public static Address root() {
-        return new Address(Collections.<StringPair>emptyList());
+        return ROOT;
     }
 
     public static Address extension(String extension) {
@@ -65,60 +76,142 @@ public final class Address {
     }
 
     public static Address of(String key, String value) {
-        return new Address(Collections.singletonList(new StringPair(key, value)));
+        return ROOT.and(key, value);
     }
 
-    private Address(List<StringPair> address) {
-        this.address = Collections.unmodifiableList(address);
+    private Address(Address parent, String key, String value) {
+        this.parent = parent;
+        this.key = key;
+        this.value = value;
+        if (parent == null) {
+            this.size = 0;
+            this.hashCode = 1;
+        } else {
+            this.size = parent.size + 1;
+            this.hashCode = 31 * (31 * parent.hashCode + Objects.hashCode(key)) + Objects.hashCode(value);
+        }
     }
 
     public Address and(String key, String value) {
-        List<StringPair> newAddress = new ArrayList<StringPair>(this.address);
-        newAddress.add(new StringPair(key, value));
-        return new Address(newAddress);
+        return new Address(this, key, value);
     }
 
+    /**
+     * Returns the {@code ModelNode} form of this address. The returned object is shared and protected
+     * against modification; {@code ModelNode.set} copies it, so it can be directly set as an operation address.
+     */
     ModelNode toModelNode() {
-        ModelNode result = new ModelNode();
-        result.setEmptyList();
-        for (StringPair pair : address) {
-            result.add(pair.key, pair.value);
+        ModelNode result = modelNode;
+        if (result == null) {
+            Address[] elements = elements();
+            result = new ModelNode();
+            result.setEmptyList();
+            for (Address element : elements) {
+                result.add(element.key, element.value);
+            }
+            result.protect();
+            modelNode = result;
         }
         return result;
     }
 
+    /**
+     * Returns this address adjusted for a managed domain, following the same rules as the client does for raw
+     * operations: an address that starts with {@code /subsystem=...} is prefixed with {@code /profile=...},
+     * an address that starts with {@code /core-service=...} is prefixed with {@code /host=...} if there is
+     * a default host, and an address that already contains {@code /profile=...} or {@code /host=...} is left as is.
+     *
+     * @throws IllegalArgumentException if the address starts with {@code /subsystem=...} and there is no default
+     * profile
+     */
+    Address forDomain(String defaultProfile, String defaultHost) {
+        Address[] elements = elements();
+        for (Address element : elements) {
+            if (Constants.PROFILE.equals(element.key) || Constants.HOST.equals(element.key)) {
+                return this;
+            }
+            if (Constants.SUBSYSTEM.equals(element.key)) {
+                if (defaultProfile == null) {
+                    throw new IllegalArgumentException("No default profile, can't perform operation in domain: "
+                            + this);
+                }
+                return prefixed(Constants.PROFILE, defaultProfile, elements);
+            }
+            if (Constants.CORE_SERVICE.equals(element.key) && defaultHost != null) {
+                return prefixed(Constants.HOST, defaultHost, elements);
+            }
+        }
+        return this;
+    }
+
+    private static Address prefixed(String key, String value, Address[] elements) {
+        Address result = Address.of(key, value);
+        for (Address element : elements) {
+            result = result.and(element.key, element.value);
+        }
+        return result;
+    }
+
+    /** The non-root addresses along the path from the root to this address, in this order. */
+    private Address[] elements() {
+        Address[] elements = new Address[size];
+        for (Address current = this; current.parent != null; current = current.parent) {
+            elements[current.size - 1] = current;
+        }
+        return elements;
+    }
+
     /**
      * @return value of the last pair in the string sequence or null in case it is only root address.
      */
     public String getLastPairValue() {
-        if (address.isEmpty()) {
-            return null;
-        } else {
-            StringPair last = address.get(address.size() - 1);
-            return last.value;
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
         }
+        if (!(o instanceof Address)) {
+            return false;
+        }
+
+        Address a = this;
+        Address b = (Address) o;
+        if (a.size != b.size || a.hashCode != b.hashCode) {
+            return false;
+        }
+        while (a != b) {
+            if (!Objects.equals(a.key, b.key) || !Objects.equals(a.value, b.value)) {
+                return false;
+            }
+            a = a.parent;
+            b = b.parent;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
     }
 
     @Override
     public String toString() {
-        if (address.isEmpty()) {
+        if (parent == null) {
             return "/";
         }
 
         StringBuilder result = new StringBuilder();
-        for (StringPair addressElement : address) {
-            result.append("/").append(addressElement.key).append("=").append(addressElement.value);
-        }
+        appendTo(result);
         return result.toString();
     }
 
-    private static final class StringPair {
-        private final String key;
-        private final String value;
-
-        private StringPair(String key, String value) {
-            this.key = key;
-            this.value = value;
+    private void appendTo(StringBuilder result) {
+        if (parent != null) {
+            parent.appendTo(result);
+            result.append("/").append(key).append("=").append(value);
         }
     }
 }
@@ -2,6 +2,7 @@ package org.wildfly.extras.creaper.core.online.operations;
 
 import org.jboss.dmr.ModelNode;
 import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,7 +26,21 @@ import java.util.List;
  */
 public final class Batch implements SharedCommonOperations<Batch> {
     private final List<ModelNode> operations = new ArrayList<ModelNode>();
-    private final OperationsModelNodeBuilder builder = new OperationsModelNodeBuilder();
+    private final OperationsModelNodeBuilder builder;
+
+    public Batch() {
+        this.builder = new OperationsModelNodeBuilder();
+    }
+
+    /**
+     * Creates a batch whose operations are built for the server described by {@code options}. In a managed domain,
+     * addresses are prefixed with the default profile or host from {@code options} when operations are added,
+     * so the client doesn't have to rewrite the whole composite operation each time the batch is executed.
+     * Use as {@code new Batch(client.options())}.
+     */
+    public Batch(OnlineOptions options) {
+        this.builder = new OperationsModelNodeBuilder(options);
+    }
 
     @Override
     public Batch whoami() {
@@ -147,9 +162,46 @@ public final class Batch implements SharedCommonOperations<Batch> {
         return this;
     }
 
+    /**
+     * Drops steps that don't affect the result of the batch: writes of an attribute that is written again later
+     * in the batch, and a {@code remove} followed by an identical {@code add} of a resource that was added earlier
+     * in the batch. Steps are never reordered. Results of the executed batch only contain the remaining steps,
+     * so call this before relying on step numbers. Any other operation (including reads) and any operation
+     * with headers is a barrier: steps before it are never dropped because of steps after it.
+     */
+    public Batch optimize() {
+        List<ModelNode> optimized = optimizeSteps(operations);
+        if (optimized.size() < operations.size()) {
+            operations.clear();
+            operations.addAll(optimized);
+        }
+        return this;
+    }
+
+    /**
+     * Same as {@link #optimize()}, but for {@code steps} of a composite operation that wasn't built by a batch.
+     * Returns a new list of the remaining steps; these are the same {@code ModelNode} instances, in the same order.
+     */
+    public static List<ModelNode> optimizeSteps(List<ModelNode> steps) {
+        int[] kept = BatchOptimizer.stepsToKeep(steps);
+        List<ModelNode> optimized = new ArrayList<ModelNode>(kept.length);
+        for (int index : kept) {
+            optimized.add(steps.get(index));
+        }
+        return optimized;
+    }
+
     // ---
 
     ModelNode toModelNode() {
+        return composite(operations);
+    }
+
+    List<ModelNode> steps() {
+        return operations;
+    }
+
+    static ModelNode composite(List<ModelNode> operations) {
         ModelNode composite = new ModelNode();
         composite.get(Constants.OP).set(Constants.COMPOSITE);
         composite.get(Constants.OP_ADDR).setEmptyList();
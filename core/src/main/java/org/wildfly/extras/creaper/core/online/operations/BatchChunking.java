@@ -0,0 +1,168 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Limits the size of {@code composite} operations created for a {@link Batch}, see
+ * {@link Operations#batch(Batch, BatchChunking)}. A batch with tens of thousands of steps results in a huge request
+ * and response, and the server keeps the whole rollback log in memory, so it's better to limit the number of steps
+ * and/or the size of the request (in the binary DMR format, as sent over the wire).</p>
+ *
+ * <p>In the {@link Builder#atomic() atomic} mode, a batch that exceeds the limits isn't executed at all and
+ * {@code IllegalArgumentException} is thrown instead. In the {@link Builder#chunked() chunked} mode (the default),
+ * the batch is split into multiple composite operations that are executed one after another. Each of them is atomic,
+ * but the batch as a whole isn't: if one chunk fails, the previous chunks stay applied and the following chunks
+ * aren't executed. Progress can be observed with a {@link Builder#progress(Progress) listener}.</p>
+ *
+ * <pre>
+ * BatchChunking chunking = new BatchChunking.Builder()
+ *         .maxSteps(1000)
+ *         .progress((executedSteps, totalSteps) -&gt; log.infof("%d of %d done", executedSteps, totalSteps))
+ *         .build();
+ * ops.batch(hugeBatch, chunking).assertSuccess();
+ * </pre>
+ */
+public final class BatchChunking {
+    /** Notified after each successfully executed chunk. */
+    @FunctionalInterface
+    public interface Progress {
+        void chunkExecuted(int executedSteps, int totalSteps);
+    }
+
+    private final int maxSteps;
+    private final long maxBytes;
+    private final boolean atomic;
+    private final Progress progress;
+
+    private BatchChunking(Builder builder) {
+        this.maxSteps = builder.maxSteps;
+        this.maxBytes = builder.maxBytes;
+        this.atomic = builder.atomic;
+        this.progress = builder.progress;
+    }
+
+    boolean isAtomic() {
+        return atomic;
+    }
+
+    void chunkExecuted(int executedSteps, int totalSteps) {
+        if (progress != null) {
+            progress.chunkExecuted(executedSteps, totalSteps);
+        }
+    }
+
+    /**
+     * Splits {@code steps} into chunks that fit the limits. A single step that is larger than {@code maxBytes}
+     * forms a chunk of its own.
+     * @throws IllegalArgumentException in the atomic mode, if the steps don't fit into a single chunk
+     */
+    List<List<ModelNode>> split(List<ModelNode> steps) {
+        if (steps.size() <= maxSteps && maxBytes == Long.MAX_VALUE) {
+            return Collections.singletonList(steps);
+        }
+
+        List<List<ModelNode>> chunks = new ArrayList<>();
+        List<ModelNode> chunk = new ArrayList<>();
+        long chunkBytes = 0;
+        for (ModelNode step : steps) {
+            long stepBytes = maxBytes == Long.MAX_VALUE ? 0 : sizeOf(step);
+            if (!chunk.isEmpty() && (chunk.size() == maxSteps || chunkBytes + stepBytes > maxBytes)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                chunkBytes = 0;
+            }
+            chunk.add(step);
+            chunkBytes += stepBytes;
+        }
+        if (!chunk.isEmpty() || chunks.isEmpty()) {
+            chunks.add(chunk);
+        }
+
+        if (atomic && (chunks.size() > 1 || chunkBytes > maxBytes)) {
+            throw new IllegalArgumentException("Batch of " + steps.size() + " steps doesn't fit into a single"
+                    + " composite operation with at most " + maxSteps + " steps and " + maxBytes + " bytes");
+        }
+        return chunks;
+    }
+
+    private static long sizeOf(ModelNode node) {
+        CountingOutputStream counter = new CountingOutputStream();
+        try {
+            node.writeExternal(counter);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // can't happen
+        }
+        return counter.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    public static final class Builder {
+        private int maxSteps = Integer.MAX_VALUE;
+        private long maxBytes = Long.MAX_VALUE;
+        private boolean atomic;
+        private Progress progress;
+
+        /** Maximum number of steps of one composite operation. Optional, unlimited by default. */
+        public Builder maxSteps(int maxSteps) {
+            if (maxSteps <= 0) {
+                throw new IllegalArgumentException("maxSteps must be greater than 0 but it's set to " + maxSteps);
+            }
+            this.maxSteps = maxSteps;
+            return this;
+        }
+
+        /**
+         * Maximum size of the steps of one composite operation in bytes, as encoded in the binary DMR format.
+         * Optional, unlimited by default.
+         */
+        public Builder maxBytes(long maxBytes) {
+            if (maxBytes <= 0) {
+                throw new IllegalArgumentException("maxBytes must be greater than 0 but it's set to " + maxBytes);
+            }
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /** Fail if the batch doesn't fit into a single composite operation. */
+        public Builder atomic() {
+            this.atomic = true;
+            return this;
+        }
+
+        /** Split the batch into multiple composite operations if needed. This is the default. */
+        public Builder chunked() {
+            this.atomic = false;
+            return this;
+        }
+
+        /** Notified after each successfully executed chunk. Optional. Only makes sense in the chunked mode. */
+        public Builder progress(Progress progress) {
+            this.progress = progress;
+            return this;
+        }
+
+        public BatchChunking build() {
+            return new BatchChunking(this);
+        }
+    }
+}
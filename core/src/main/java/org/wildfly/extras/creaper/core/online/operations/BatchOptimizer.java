@@ -0,0 +1,157 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+import org.wildfly.extras.creaper.core.online.Constants;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Finds steps of a composite operation that can be dropped without changing the resulting management model.
+ * Used by {@link Batch#optimize()} and when deferred writes of commands are sent
+ * (through {@link Batch#optimizeSteps(List)}, see
+ * {@link org.wildfly.extras.creaper.core.online.OnlineOptions#deferWrites}). The following steps are dropped:</p>
+ *
+ * <ul>
+ * <li>a {@code write-attribute} or {@code undefine-attribute} that is followed by another {@code write-attribute}
+ *     or {@code undefine-attribute} of the same attribute of the same resource</li>
+ * <li>a {@code remove} that is followed by an {@code add} of the same resource, if that resource was added earlier
+ *     in the batch with exactly the same {@code add} operation and neither the resource nor its children
+ *     were modified in between (both the {@code remove} and the second {@code add} are dropped)</li>
+ * </ul>
+ *
+ * <p>Steps are never reordered. Any other operation (including reads) and any operation with headers is a barrier:
+ * steps before it are never dropped because of steps after it. A dropped write isn't validated by the server,
+ * so a batch whose only invalid step is a write that is later overwritten fails without optimization and succeeds
+ * with it.</p>
+ */
+final class BatchOptimizer {
+    private BatchOptimizer() {
+        // avoid instantiation
+    }
+
+    /** @return indices of the {@code steps} that must be kept, in ascending order */
+    static int[] stepsToKeep(List<ModelNode> steps) {
+        boolean[] dropped = new boolean[steps.size()];
+        // address -> attribute -> index of the last write
+        Map<List<String>, Map<String, Integer>> lastWrites = new HashMap<>();
+        // address -> index of the add, if the resource wasn't modified since
+        Map<List<String>, Integer> lastAdds = new HashMap<>();
+        // address -> index of the remove and of the previous add, if the resource wasn't modified since the remove
+        Map<List<String>, int[]> pendingRemoves = new HashMap<>();
+
+        for (int i = 0; i < steps.size(); i++) {
+            ModelNode step = steps.get(i);
+            List<String> address = address(step);
+            String name = step.hasDefined(Constants.OP) ? step.get(Constants.OP).asString() : null;
+            if (address == null || name == null || step.hasDefined(Constants.OPERATION_HEADERS)) {
+                lastWrites.clear();
+                lastAdds.clear();
+                pendingRemoves.clear();
+                continue;
+            }
+
+            switch (name) {
+                case Constants.WRITE_ATTRIBUTE_OPERATION:
+                case Constants.UNDEFINE_ATTRIBUTE_OPERATION:
+                    if (!step.hasDefined(Constants.NAME)) {
+                        lastWrites.clear();
+                        lastAdds.clear();
+                        pendingRemoves.clear();
+                        break;
+                    }
+                    invalidate(lastAdds, address);
+                    invalidate(pendingRemoves, address);
+                    Integer previousWrite = lastWrites.computeIfAbsent(address, ignored -> new HashMap<>())
+                            .put(step.get(Constants.NAME).asString(), i);
+                    if (previousWrite != null) {
+                        dropped[previousWrite] = true;
+                    }
+                    break;
+                case Constants.ADD:
+                    int[] pendingRemove = pendingRemoves.remove(address);
+                    if (pendingRemove != null && steps.get(pendingRemove[1]).equals(step)) {
+                        dropped[pendingRemove[0]] = true;
+                        dropped[i] = true;
+                        lastAdds.put(address, pendingRemove[1]);
+                        break;
+                    }
+                    invalidate(lastWrites, address);
+                    invalidate(lastAdds, address);
+                    invalidate(pendingRemoves, address);
+                    lastAdds.put(address, i);
+                    break;
+                case Constants.REMOVE_OPERATION:
+                    Integer previousAdd = lastAdds.get(address);
+                    invalidate(lastWrites, address);
+                    invalidate(lastAdds, address);
+                    invalidate(pendingRemoves, address);
+                    if (previousAdd != null) {
+                        pendingRemoves.put(address, new int[] {i, previousAdd});
+                    }
+                    break;
+                default:
+                    lastWrites.clear();
+                    lastAdds.clear();
+                    pendingRemoves.clear();
+            }
+        }
+
+        int keptCount = 0;
+        for (boolean stepDropped : dropped) {
+            if (!stepDropped) {
+                keptCount++;
+            }
+        }
+        int[] kept = new int[keptCount];
+        for (int i = 0, j = 0; i < dropped.length; i++) {
+            if (!dropped[i]) {
+                kept[j++] = i;
+            }
+        }
+        return kept;
+    }
+
+    /** Removes entries for {@code address}, its ancestors and its descendants. */
+    private static void invalidate(Map<List<String>, ?> map, List<String> address) {
+        Iterator<List<String>> keys = map.keySet().iterator();
+        while (keys.hasNext()) {
+            List<String> key = keys.next();
+            int common = Math.min(key.size(), address.size());
+            if (key.subList(0, common).equals(address.subList(0, common))) {
+                keys.remove();
+            }
+        }
+    }
+
+    /** @return the address as a flat list of types and names, or {@code null} if it can't be understood */
+    private static List<String> address(ModelNode step) {
+        if (!step.hasDefined(Constants.OP_ADDR)) {
+            return new ArrayList<>();
+        }
+        ModelNode address = step.get(Constants.OP_ADDR);
+        if (address.getType() != ModelType.LIST) {
+            return null;
+        }
+
+        List<String> result = new ArrayList<>();
+        for (ModelNode element : address.asList()) {
+            Property property;
+            if (element.getType() == ModelType.PROPERTY) {
+                property = element.asProperty();
+            } else if (element.getType() == ModelType.OBJECT && element.keys().size() == 1) {
+                property = element.asPropertyList().get(0);
+            } else {
+                return null;
+            }
+            result.add(property.getName());
+            result.add(property.getValue().asString());
+        }
+        return result;
+    }
+}
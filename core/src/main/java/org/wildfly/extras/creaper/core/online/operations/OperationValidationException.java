@@ -0,0 +1,23 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown by a {@link Operations#validating(org.wildfly.extras.creaper.core.online.ResourceDescriptionCache)
+ * validating} {@code Operations} when an operation doesn't match the resource description, before anything is sent
+ * to the server.
+ */
+public class OperationValidationException extends IllegalArgumentException {
+    private final List<String> problems;
+
+    public OperationValidationException(List<String> problems) {
+        super("Operation validation failed: " + String.join("; ", problems));
+        this.problems = Collections.unmodifiableList(problems);
+    }
+
+    /** All problems found, one per invalid address, operation, attribute or parameter. */
+    public List<String> problems() {
+        return problems;
+    }
+}
@@ -0,0 +1,305 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.ResourceDescriptionCache;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>Checks operations against resource descriptions obtained from a {@link ResourceDescriptionCache}: that child
+ * types in the address exist, that the operation exists, that parameters and attributes are known and have
+ * a compatible type, that required parameters are present and that written attributes are writable.</p>
+ *
+ * <p>Descriptions are fetched per subsystem (or per top-level resource type outside subsystems), so that a single
+ * cached description covers all operations inside. If a description can't be obtained (e.g. the operation adds
+ * a subsystem that doesn't exist yet), the operation isn't validated. Reads and {@code remove} are never validated,
+ * so that {@link Operations#exists(Address)} and {@link Operations#removeIfExists(Address)} keep working
+ * for resources that don't exist on every server version.</p>
+ */
+final class OperationValidator {
+    private static final String UNDEFINE_ATTRIBUTE_OPERATION = "undefine-attribute";
+
+    private static final Set<String> NOT_VALIDATED = new HashSet<>(Arrays.asList(
+            Constants.READ_RESOURCE_OPERATION,
+            Constants.READ_ATTRIBUTE_OPERATION,
+            Constants.READ_CHILDREN_NAMES_OPERATION,
+            Constants.READ_CHILDREN_TYPES,
+            "read-children-resources",
+            "read-resource-description",
+            "read-operation-names",
+            "read-operation-description",
+            Constants.WHOAMI,
+            Constants.REMOVE_OPERATION
+    ));
+
+    private static final Set<String> ATTRIBUTE_OPERATIONS = new HashSet<>(Arrays.asList(
+            Constants.WRITE_ATTRIBUTE_OPERATION,
+            UNDEFINE_ATTRIBUTE_OPERATION,
+            "map-put", "map-remove", "map-clear",
+            "list-add", "list-remove", "list-clear"
+    ));
+
+    private static final Set<ModelType> NUMBER_TYPES = EnumSet.of(ModelType.INT, ModelType.LONG, ModelType.DOUBLE,
+            ModelType.BIG_INTEGER, ModelType.BIG_DECIMAL);
+
+    private final OnlineManagementClient client;
+    private final ResourceDescriptionCache descriptions;
+
+    OperationValidator(OnlineManagementClient client, ResourceDescriptionCache descriptions) {
+        this.client = client;
+        this.descriptions = descriptions;
+    }
+
+    /** @throws OperationValidationException if the operation (or any step of a composite) is invalid */
+    void validate(ModelNode operation) throws IOException {
+        List<String> problems = new ArrayList<>();
+        validate(operation, "", problems);
+        if (!problems.isEmpty()) {
+            throw new OperationValidationException(problems);
+        }
+    }
+
+    private void validate(ModelNode operation, String prefix, List<String> problems) throws IOException {
+        String name = operation.get(Constants.OP).asString();
+        if (Constants.COMPOSITE.equals(name)) {
+            if (operation.hasDefined(Constants.STEPS)) {
+                List<ModelNode> steps = operation.get(Constants.STEPS).asList();
+                for (int i = 0; i < steps.size(); i++) {
+                    validate(steps.get(i), prefix + "step-" + (i + 1) + ": ", problems);
+                }
+            }
+            return;
+        }
+
+        List<Property> address = operation.hasDefined(Constants.OP_ADDR)
+                ? operation.get(Constants.OP_ADDR).asPropertyList() : Collections.<Property>emptyList();
+        if (NOT_VALIDATED.contains(name) || address.isEmpty()) {
+            return;
+        }
+
+        String where = prefix + format(address) + ":" + name + ": ";
+        ModelNode description = describe(address, where, problems);
+        if (description == null) {
+            return;
+        }
+
+        if (ATTRIBUTE_OPERATIONS.contains(name)) {
+            validateAttributeOperation(operation, name, description, where, problems);
+            return;
+        }
+
+        if (!description.hasDefined("operations")) {
+            return;
+        }
+        if (!description.get("operations").has(name)) {
+            problems.add(where + "no such operation");
+            return;
+        }
+        ModelNode operationDescription = description.get("operations").get(name);
+        if (operationDescription.hasDefined("request-properties")) {
+            validateParameters(operation, operationDescription.get("request-properties"), where, problems);
+        }
+    }
+
+    /**
+     * Returns the description of the resource at {@code address}, or {@code null} if it isn't known. If a child type
+     * in the address doesn't exist, adds a problem and returns {@code null}.
+     */
+    private ModelNode describe(List<Property> address, String where, List<String> problems) throws IOException {
+        int patternLength = 1;
+        for (int i = 0; i < address.size(); i++) {
+            if (Constants.SUBSYSTEM.equals(address.get(i).getName())) {
+                patternLength = i + 1;
+                break;
+            }
+        }
+
+        Address pattern = Address.root();
+        Address concrete = Address.root();
+        for (int i = 0; i < patternLength; i++) {
+            Property element = address.get(i);
+            boolean keepValue = Constants.SUBSYSTEM.equals(element.getName())
+                    || Constants.PROFILE.equals(element.getName()) || Constants.HOST.equals(element.getName());
+            pattern = pattern.and(element.getName(), keepValue ? element.getValue().asString() : "*");
+            concrete = concrete.and(element.getName(), element.getValue().asString());
+        }
+
+        // top-level types such as core-service=* have a separate registration for each name
+        ModelNode description = descriptions.description(client, pattern, concrete);
+        for (int i = patternLength; i < address.size() && description != null; i++) {
+            String type = address.get(i).getName();
+            String name = address.get(i).getValue().asString();
+            if (!description.hasDefined("children")) {
+                return null;
+            }
+            if (!description.get("children").has(type)) {
+                problems.add(where + "no child type '" + type + "' at " + format(address.subList(0, i)));
+                return null;
+            }
+
+            ModelNode child = description.get("children").get(type);
+            if (!child.hasDefined("model-description")) {
+                return null;
+            }
+            ModelNode modelDescription = child.get("model-description");
+            if (modelDescription.has(name)) {
+                description = modelDescription.get(name);
+            } else if (modelDescription.has("*")) {
+                description = modelDescription.get("*");
+            } else {
+                problems.add(where + "no resource named '" + name + "' of type '" + type + "' can exist, only "
+                        + modelDescription.keys());
+                return null;
+            }
+            if (!description.isDefined()) {
+                return null;
+            }
+        }
+        return description;
+    }
+
+    private static void validateAttributeOperation(ModelNode operation, String name, ModelNode description,
+                                                   String where, List<String> problems) {
+        if (!description.hasDefined("attributes")) {
+            return;
+        }
+        String attributeName = operation.get(Constants.NAME).asString();
+        if (!description.get("attributes").has(attributeName)) {
+            problems.add(where + "unknown attribute '" + attributeName + "'");
+            return;
+        }
+
+        ModelNode attribute = description.get("attributes").get(attributeName);
+        if (attribute.hasDefined("access-type") && !"read-write".equals(attribute.get("access-type").asString())) {
+            problems.add(where + "attribute '" + attributeName + "' isn't writable, it's "
+                    + attribute.get("access-type").asString());
+            return;
+        }
+        if (Constants.WRITE_ATTRIBUTE_OPERATION.equals(name)) {
+            validateValue(attributeName, operation.get(Constants.VALUE), attribute, "attribute", where, problems);
+        } else if (UNDEFINE_ATTRIBUTE_OPERATION.equals(name) && isRequired(attribute)) {
+            problems.add(where + "attribute '" + attributeName + "' is required");
+        }
+    }
+
+    private static void validateParameters(ModelNode operation, ModelNode requestProperties, String where,
+                                           List<String> problems) {
+        for (Property parameter : operation.asPropertyList()) {
+            String name = parameter.getName();
+            if (Constants.OP.equals(name) || Constants.OP_ADDR.equals(name)
+                    || Constants.OPERATION_HEADERS.equals(name)) {
+                continue;
+            }
+            if (!requestProperties.has(name)) {
+                problems.add(where + "unknown parameter '" + name + "'");
+            } else {
+                validateValue(name, parameter.getValue(), requestProperties.get(name), "parameter", where, problems);
+            }
+        }
+
+        for (Property property : requestProperties.asPropertyList()) {
+            String name = property.getName();
+            ModelNode description = property.getValue();
+            if (isRequired(description) && !operation.hasDefined(name) && !hasAlternative(operation, description)) {
+                problems.add(where + "missing required parameter '" + name + "'");
+            }
+        }
+    }
+
+    private static boolean isRequired(ModelNode description) {
+        return description.hasDefined("required") && description.get("required").asBoolean()
+                && !description.hasDefined("default");
+    }
+
+    private static boolean hasAlternative(ModelNode operation, ModelNode description) {
+        if (description.hasDefined("alternatives")) {
+            for (ModelNode alternative : description.get("alternatives").asList()) {
+                if (operation.hasDefined(alternative.asString())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void validateValue(String name, ModelNode value, ModelNode description, String kind, String where,
+                                      List<String> problems) {
+        if (!value.isDefined() || !description.hasDefined("type")) {
+            return;
+        }
+
+        ModelType expected;
+        try {
+            expected = description.get("type").asType();
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+
+        if (!isCompatible(value, expected)) {
+            problems.add(where + kind + " '" + name + "' must be " + expected + " but it's " + value.getType()
+                    + " (" + value.asString() + ")");
+        }
+    }
+
+    /** The server converts strings to other simple types, so only values that it would reject are incompatible. */
+    private static boolean isCompatible(ModelNode value, ModelType expected) {
+        ModelType actual = value.getType();
+        if (actual == expected || actual == ModelType.EXPRESSION) {
+            return true;
+        }
+
+        boolean expression = actual == ModelType.STRING && value.asString().contains("${");
+        switch (expected) {
+            case LIST:
+                return false;
+            case OBJECT:
+                return actual == ModelType.PROPERTY;
+            case BOOLEAN:
+                return expression || actual == ModelType.STRING
+                        && ("true".equalsIgnoreCase(value.asString()) || "false".equalsIgnoreCase(value.asString()));
+            case INT:
+            case LONG:
+            case DOUBLE:
+            case BIG_INTEGER:
+            case BIG_DECIMAL:
+                return expression || NUMBER_TYPES.contains(actual) || actual == ModelType.STRING
+                        && isNumber(value.asString());
+            case STRING:
+                return actual != ModelType.LIST && actual != ModelType.OBJECT && actual != ModelType.PROPERTY;
+            default:
+                return true;
+        }
+    }
+
+    private static boolean isNumber(String value) {
+        try {
+            new BigDecimal(value.trim());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static String format(List<Property> address) {
+        if (address.isEmpty()) {
+            return "/";
+        }
+        StringBuilder result = new StringBuilder();
+        for (Property element : address) {
+            result.append("/").append(element.getName()).append("=").append(element.getValue().asString());
+        }
+        return result.toString();
+    }
+}
@@ -1,14 +1,18 @@
 package org.wildfly.extras.creaper.core.online.operations;
 
 import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
 import org.jboss.dmr.Property;
 import org.wildfly.extras.creaper.core.online.Constants;
 import org.wildfly.extras.creaper.core.online.FailuresAllowedBlock;
 import org.wildfly.extras.creaper.core.online.ModelNodeResult;
 import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.ResourceDescriptionCache;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * <p>A convenience for commonly performed management operations. The intent is to have a statically typed API
@@ -19,16 +23,21 @@ import java.util.List;
  * {@code OnlineManagementClient} is valid, this class is usable.</p>
  */
 public final class Operations implements SharedCommonOperations<ModelNodeResult> {
+    private static final Pattern STEP_NAME = Pattern.compile("step-(\\d+)");
+
     private final OnlineManagementClient client;
     private final OperationsModelNodeBuilder builder;
+    private final OperationValidator validator;
 
     public Operations(OnlineManagementClient client) {
-        this(client, new OperationsModelNodeBuilder());
+        this(client, new OperationsModelNodeBuilder(client.options()), null);
     }
 
-    private Operations(OnlineManagementClient client, OperationsModelNodeBuilder builder) {
+    private Operations(OnlineManagementClient client, OperationsModelNodeBuilder builder,
+                       OperationValidator validator) {
         this.client = client;
         this.builder = builder;
+        this.validator = validator;
     }
 
     /**
@@ -47,124 +56,269 @@ public final class Operations implements SharedCommonOperations<ModelNodeResult>
      * but that shouldn't be a problem (there are other inherent sources of excessive allocation).</p>
      */
     public Operations headers(Values headers) {
-        return new Operations(client, builder.withHeaders(headers));
+        return new Operations(client, builder.withHeaders(headers), validator);
+    }
+
+    /**
+     * <p>Returns a new {@code Operations} object that checks each operation against resource descriptions
+     * from given {@code descriptions} cache before sending it to the server. Addresses, operation names, attribute
+     * and parameter names, value types, required parameters and writability of attributes are checked. For
+     * a {@link #batch(Batch) batch}, all steps are checked, so that a typo is reported immediately instead of
+     * causing a rollback of the whole composite operation on the server.</p>
+     *
+     * <p>If an operation is invalid, {@link OperationValidationException} is thrown and nothing is sent.
+     * Descriptions are fetched per subsystem and management version, so the cache should be shared
+     * (and possibly {@link ResourceDescriptionCache#persistent(java.nio.file.Path) persistent}). Read operations
+     * and {@code remove} aren't validated.</p>
+     */
+    public Operations validating(ResourceDescriptionCache descriptions) {
+        return new Operations(client, builder, new OperationValidator(client, descriptions));
+    }
+
+    private ModelNodeResult execute(ModelNode operation) throws IOException {
+        if (validator != null) {
+            validator.validate(operation);
+        }
+        return client.execute(operation);
     }
 
     @Override
     public ModelNodeResult whoami() throws IOException {
-        return client.execute(builder.whoami());
+        return execute(builder.whoami());
     }
 
     @Override
     public ModelNodeResult readAttribute(Address address, String attributeName, ReadAttributeOption... options)
             throws IOException {
-        return client.execute(builder.readAttribute(address, attributeName, options));
+        return execute(builder.readAttribute(address, attributeName, options));
     }
 
     @Override
     public ModelNodeResult writeAttribute(Address address, String attributeName, boolean attributeValue)
             throws IOException {
-        return client.execute(builder.writeAttribute(address, attributeName, attributeValue));
+        return execute(builder.writeAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeAttribute(Address address, String attributeName, int attributeValue)
             throws IOException {
-        return client.execute(builder.writeAttribute(address, attributeName, attributeValue));
+        return execute(builder.writeAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeAttribute(Address address, String attributeName, long attributeValue)
             throws IOException {
-        return client.execute(builder.writeAttribute(address, attributeName, attributeValue));
+        return execute(builder.writeAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeAttribute(Address address, String attributeName, String attributeValue)
             throws IOException {
-        return client.execute(builder.writeAttribute(address, attributeName, attributeValue));
+        return execute(builder.writeAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeAttribute(Address address, String attributeName, ModelNode attributeValue)
             throws IOException {
-        return client.execute(builder.writeAttribute(address, attributeName, attributeValue));
+        return execute(builder.writeAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeListAttribute(Address address, String attributeName, boolean... attributeValue)
             throws IOException {
-        return client.execute(builder.writeListAttribute(address, attributeName, attributeValue));
+        return execute(builder.writeListAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeListAttribute(Address address, String attributeName, int... attributeValue)
             throws IOException {
-        return client.execute(builder.writeListAttribute(address, attributeName, attributeValue));
+        return execute(builder.writeListAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeListAttribute(Address address, String attributeName, long... attributeValue)
             throws IOException {
-        return client.execute(builder.writeListAttribute(address, attributeName, attributeValue));
+        return execute(builder.writeListAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeListAttribute(Address address, String attributeName, String... attributeValue)
             throws IOException {
-        return client.execute(builder.writeListAttribute(address, attributeName, attributeValue));
+        return execute(builder.writeListAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult writeListAttribute(Address address, String attributeName, ModelNode... attributeValue)
             throws IOException {
-        return client.execute(builder.writeListAttribute(address, attributeName, attributeValue));
+        return execute(builder.writeListAttribute(address, attributeName, attributeValue));
     }
 
     @Override
     public ModelNodeResult undefineAttribute(Address address, String attributeName) throws IOException {
-        return client.execute(builder.undefineAttribute(address, attributeName));
+        return execute(builder.undefineAttribute(address, attributeName));
     }
 
     @Override
     public ModelNodeResult readResource(Address address, ReadResourceOption... options) throws IOException {
-        return client.execute(builder.readResource(address, options));
+        return execute(builder.readResource(address, options));
     }
 
     @Override
     public ModelNodeResult readChildrenNames(Address address, String childType) throws IOException {
-        return client.execute(builder.readChildrenNames(address, childType));
+        return execute(builder.readChildrenNames(address, childType));
     }
 
     @Override
     public ModelNodeResult add(Address address) throws IOException {
-        return client.execute(builder.add(address));
+        return execute(builder.add(address));
     }
 
     @Override
     public ModelNodeResult add(Address address, Values parameters) throws IOException {
-        return client.execute(builder.add(address, parameters));
+        return execute(builder.add(address, parameters));
     }
 
     @Override
     public ModelNodeResult remove(Address address) throws IOException {
-        return client.execute(builder.remove(address));
+        return execute(builder.remove(address));
     }
 
     @Override
     public ModelNodeResult invoke(String operationName, Address address) throws IOException {
-        return client.execute(builder.invoke(operationName, address));
+        return execute(builder.invoke(operationName, address));
     }
 
     @Override
     public ModelNodeResult invoke(String operationName, Address address, Values parameters) throws IOException {
-        return client.execute(builder.invoke(operationName, address, parameters));
+        return execute(builder.invoke(operationName, address, parameters));
     }
 
     // ---
 
     public ModelNodeResult batch(Batch batch) throws IOException {
-        return client.execute(batch.toModelNode());
+        return execute(batch.toModelNode());
+    }
+
+    /**
+     * <p>Executes the {@code batch} as one or more composite operations, as limited by {@code chunking}.
+     * In the atomic mode, throws {@code IllegalArgumentException} if the batch doesn't fit into a single composite
+     * operation. In the chunked mode, executes the chunks one by one and stops after the first failed chunk.</p>
+     *
+     * <p>The result has the same form as the result of a single composite operation: the steps are numbered
+     * from {@code step-1} across all executed chunks, so {@link ModelNodeResult#forBatchStep(int)} works as usual.
+     * If a chunk fails, the result is failed and contains the failure description of that chunk (where steps are
+     * numbered from 1 within the chunk) and results of all steps executed so far.</p>
+     */
+    public ModelNodeResult batch(Batch batch, BatchChunking chunking) throws IOException {
+        List<List<ModelNode>> chunks = chunking.split(batch.steps());
+        int totalSteps = batch.steps().size();
+        if (chunks.size() == 1) {
+            ModelNodeResult result = batch(batch);
+            if (result.isSuccess()) {
+                chunking.chunkExecuted(totalSteps, totalSteps);
+            }
+            return result;
+        }
+
+        ModelNode combined = new ModelNode();
+        ModelNode stepResults = combined.get(Constants.RESULT).setEmptyObject();
+        int executedSteps = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            List<ModelNode> chunk = chunks.get(i);
+            ModelNodeResult result = execute(Batch.composite(chunk));
+            if (result.hasDefined(Constants.RESULT)) {
+                List<Property> chunkSteps = result.get(Constants.RESULT).asPropertyList();
+                for (int step = 0; step < chunkSteps.size(); step++) {
+                    stepResults.get("step-" + (executedSteps + step + 1)).set(chunkSteps.get(step).getValue());
+                }
+            }
+            if (result.hasDefined(Constants.RESPONSE_HEADERS)) {
+                mergeResponseHeaders(combined, result.get(Constants.RESPONSE_HEADERS));
+            }
+
+            if (!result.isSuccess()) {
+                combined.get(Constants.OUTCOME).set(result.get(Constants.OUTCOME));
+                if (result.has(Constants.FAILURE_DESCRIPTION)) {
+                    combined.get(Constants.FAILURE_DESCRIPTION).set(
+                            renumberSteps(result.get(Constants.FAILURE_DESCRIPTION), executedSteps));
+                }
+                return new ModelNodeResult(combined);
+            }
+
+            executedSteps += chunk.size();
+            chunking.chunkExecuted(executedSteps, totalSteps);
+        }
+        combined.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        return new ModelNodeResult(combined);
+    }
+
+    /**
+     * Merges the response headers of a chunk into the {@code combined} result. A later chunk overwrites
+     * the headers of the previous ones, except for the process state, where the one requiring the most drastic
+     * action wins (restart required, then reload required, then anything else).
+     */
+    private static void mergeResponseHeaders(ModelNode combined, ModelNode chunkHeaders) {
+        ModelNode headers = combined.get(Constants.RESPONSE_HEADERS);
+        for (String key : chunkHeaders.keys()) {
+            ModelNode value = chunkHeaders.get(key);
+            if (Constants.PROCESS_STATE.equals(key) && headers.hasDefined(Constants.PROCESS_STATE)
+                    && processStateRank(headers.get(Constants.PROCESS_STATE)) >= processStateRank(value)) {
+                continue;
+            }
+            headers.get(key).set(value);
+        }
+    }
+
+    private static int processStateRank(ModelNode processState) {
+        String state = processState.asString();
+        if (Constants.CONTROLLER_PROCESS_STATE_RESTART_REQUIRED.equals(state)) {
+            return 2;
+        } else if (Constants.CONTROLLER_PROCESS_STATE_RELOAD_REQUIRED.equals(state)) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns a copy of the {@code failureDescription} of a chunk where step names in object keys
+     * (such as {@code "Operation step-3"}) are shifted by {@code offset}, so that they match the step numbers
+     * of the whole batch.
+     */
+    private static ModelNode renumberSteps(ModelNode failureDescription, int offset) {
+        if (failureDescription.getType() != ModelType.OBJECT) {
+            return failureDescription;
+        }
+
+        ModelNode result = new ModelNode().setEmptyObject();
+        for (Property property : failureDescription.asPropertyList()) {
+            Matcher matcher = STEP_NAME.matcher(property.getName());
+            StringBuffer name = new StringBuffer();
+            while (matcher.find()) {
+                matcher.appendReplacement(name, "step-" + (Integer.parseInt(matcher.group(1)) + offset));
+            }
+            matcher.appendTail(name);
+            result.get(name.toString()).set(renumberSteps(property.getValue(), offset));
+        }
+        return result;
+    }
+
+    /**
+     * <p>Walks the subtree of the management model starting at {@code address} and hands each resource
+     * to the {@code visitor}, see {@link ResourceVisitor}. This is an alternative to {@code read-resource} with
+     * the {@link ReadResourceOption#RECURSIVE RECURSIVE} option for large models (e.g. with
+     * {@link ReadResourceOption#INCLUDE_RUNTIME INCLUDE_RUNTIME}), where the whole result would have to be held
+     * in memory at once. Each visited resource is read separately, so only the attributes of one resource
+     * are held in memory at a time, for the price of one round trip per resource.</p>
+     *
+     * <p>The {@code options} apply to each {@code read-resource} operation; options that make it recursive
+     * or limit it to attributes are ignored. If a resource is removed while the walk is in progress,
+     * it is silently skipped.</p>
+     *
+     * @throws OperationException if a resource can't be read, including when {@code address} doesn't exist
+     */
+    public void walk(Address address, ResourceVisitor visitor, ReadResourceOption... options)
+            throws IOException, OperationException {
+        new ResourceWalker(client, builder, visitor, options).walk(address);
     }
 
     /**
@@ -216,7 +370,8 @@ public final class Operations implements SharedCommonOperations<ModelNodeResult>
     static boolean isResultUnknownOrNotFound(ModelNodeResult result) {
         result.assertFailed();
 
-        ModelNode failureDescription = result.get(Constants.FAILURE_DESCRIPTION);
+        ModelNode failureDescription = result.has(Constants.FAILURE_DESCRIPTION)
+                ? result.get(Constants.FAILURE_DESCRIPTION) : new ModelNode();
         if (failureDescription.hasDefined(Constants.HOST_FAILURE_DESCRIPTIONS)) {
             List<Property> hostFailures = failureDescription.get(Constants.HOST_FAILURE_DESCRIPTIONS).asPropertyList();
             for (Property hostFailure : hostFailures) {
@@ -2,16 +2,24 @@ package org.wildfly.extras.creaper.core.online.operations;
 
 import org.jboss.dmr.ModelNode;
 import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
 
 final class OperationsModelNodeBuilder implements SharedCommonOperations<ModelNode> {
     private final Values headers;
+    /** if not {@code null} and it's a domain, addresses are adjusted for the domain when operations are built */
+    private final OnlineOptions options;
 
     OperationsModelNodeBuilder() {
-        this(null);
+        this(null, null);
     }
 
-    private OperationsModelNodeBuilder(Values headers) {
+    OperationsModelNodeBuilder(OnlineOptions options) {
+        this(null, options);
+    }
+
+    private OperationsModelNodeBuilder(Values headers, OnlineOptions options) {
         this.headers = headers;
+        this.options = options != null && options.isDomain ? options : null;
     }
 
     OperationsModelNodeBuilder withHeaders(Values headers) {
@@ -20,7 +28,18 @@ final class OperationsModelNodeBuilder implements SharedCommonOperations<ModelNo
                     + ", can't set headers again: " + headers);
         }
 
-        return new OperationsModelNodeBuilder(headers);
+        return new OperationsModelNodeBuilder(headers, options);
+    }
+
+    /**
+     * In a managed domain, the address is prefixed with the default profile or host here, once, so that
+     * the client doesn't have to rewrite the operation each time it's executed.
+     */
+    private ModelNode address(Address address) {
+        if (options != null) {
+            address = address.forDomain(options.defaultProfile, options.defaultHost);
+        }
+        return address.toModelNode();
     }
 
     /** This <b>must</b> be used for creating a new {@code ModelNode} that will represent a management operation. */
@@ -46,7 +65,7 @@ final class OperationsModelNodeBuilder implements SharedCommonOperations<ModelNo
     public ModelNode readAttribute(Address address, String attributeName, ReadAttributeOption... options) {
         ModelNode op = newOp();
         op.get(Constants.OP).set(Constants.READ_ATTRIBUTE_OPERATION);
-        op.get(Constants.OP_ADDR).set(address.toModelNode());
+        op.get(Constants.OP_ADDR).set(address(address));
         op.get(Constants.NAME).set(attributeName);
         for (ReadAttributeOption option : options) {
             if ((option instanceof ReadAttributeOptionInternal)) { // only allow internal implementations
@@ -80,7 +99,7 @@ final class OperationsModelNodeBuilder implements SharedCommonOperations<ModelNo
     public ModelNode writeAttribute(Address address, String attributeName, ModelNode attributeValue) {
         ModelNode op = newOp();
         op.get(Constants.OP).set(Constants.WRITE_ATTRIBUTE_OPERATION);
-        op.get(Constants.OP_ADDR).set(address.toModelNode());
+        op.get(Constants.OP_ADDR).set(address(address));
         op.get(Constants.NAME).set(attributeName);
         op.get(Constants.VALUE).set(attributeValue);
         return op;
@@ -140,7 +159,7 @@ final class OperationsModelNodeBuilder implements SharedCommonOperations<ModelNo
     public ModelNode undefineAttribute(Address address, String attributeName) {
         ModelNode op = newOp();
         op.get(Constants.OP).set(Constants.UNDEFINE_ATTRIBUTE_OPERATION);
-        op.get(Constants.OP_ADDR).set(address.toModelNode());
+        op.get(Constants.OP_ADDR).set(address(address));
         op.get(Constants.NAME).set(attributeName);
         return op;
     }
@@ -149,7 +168,7 @@ final class OperationsModelNodeBuilder implements SharedCommonOperations<ModelNo
     public ModelNode readResource(Address address, ReadResourceOption... options) {
         ModelNode op = newOp();
         op.get(Constants.OP).set(Constants.READ_RESOURCE_OPERATION);
-        op.get(Constants.OP_ADDR).set(address.toModelNode());
+        op.get(Constants.OP_ADDR).set(address(address));
         for (ReadResourceOption option : options) {
             if ((option instanceof ReadResourceOptionInternal)) { // only allow internal implementations
                 ((ReadResourceOptionInternal) option).modifyReadResourceOperation(op);
@@ -162,7 +181,7 @@ final class OperationsModelNodeBuilder implements SharedCommonOperations<ModelNo
     public ModelNode readChildrenNames(Address address, String childType) {
         ModelNode op = newOp();
         op.get(Constants.OP).set(Constants.READ_CHILDREN_NAMES_OPERATION);
-        op.get(Constants.OP_ADDR).set(address.toModelNode());
+        op.get(Constants.OP_ADDR).set(address(address));
         op.get(Constants.CHILD_TYPE).set(childType);
         return op;
     }
@@ -176,7 +195,7 @@ final class OperationsModelNodeBuilder implements SharedCommonOperations<ModelNo
     public ModelNode add(Address address, Values parameters) {
         ModelNode op = newOp();
         op.get(Constants.OP).set(Constants.ADD);
-        op.get(Constants.OP_ADDR).set(address.toModelNode());
+        op.get(Constants.OP_ADDR).set(address(address));
         parameters.addToModelNode(op);
         return op;
     }
@@ -185,7 +204,7 @@ final class OperationsModelNodeBuilder implements SharedCommonOperations<ModelNo
     public ModelNode remove(Address address) {
         ModelNode op = newOp();
         op.get(Constants.OP).set(Constants.REMOVE_OPERATION);
-        op.get(Constants.OP_ADDR).set(address.toModelNode());
+        op.get(Constants.OP_ADDR).set(address(address));
         return op;
     }
 
@@ -198,7 +217,7 @@ final class OperationsModelNodeBuilder implements SharedCommonOperations<ModelNo
     public ModelNode invoke(String operationName, Address address, Values parameters) {
         ModelNode op = newOp();
         op.get(Constants.OP).set(operationName);
-        op.get(Constants.OP_ADDR).set(address.toModelNode());
+        op.get(Constants.OP_ADDR).set(address(address));
         parameters.addToModelNode(op);
         return op;
     }
@@ -0,0 +1,244 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Sends many independent operations at once over the client's connection and collects their results in the order
+ * in which the operations were added. The operations are sent without waiting for previous results, so reading
+ * statistics of 200 resources takes roughly one round trip instead of 200. Obtained by
+ * {@link OnlineManagementClient#pipeline()}.</p>
+ *
+ * <pre>
+ * List&lt;ModelNodeResult&gt; results = client.pipeline()
+ *         .readResource(Address.subsystem("datasources").and("data-source", "ExampleDS")
+ *                 .and("statistics", "pool"), ReadResourceOption.INCLUDE_RUNTIME)
+ *         .readAttribute(Address.subsystem("undertow"), "statistics-enabled")
+ *         .await();
+ * </pre>
+ *
+ * <p>The server executes pipelined operations concurrently, in no particular order. That's why pipelines are meant
+ * for reads; operations that modify the management model should be put into a {@link Batch} instead. At most
+ * {@link #maxInFlight(int) maxInFlight} operations are sent without having a result, so that the server's management
+ * thread pool isn't exhausted. Failed operations don't stop the pipeline, their results are simply failed.</p>
+ *
+ * <p>Like {@link Batch}, the builder is fluent and not thread safe. A pipeline can be sent multiple times.</p>
+ */
+public final class Pipeline {
+    /** Default maximum number of operations that are sent without having a result. */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 32;
+
+    private final OnlineManagementClient client;
+    private final OperationsModelNodeBuilder builder;
+    private final List<ModelNode> operations = new ArrayList<>();
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+    public Pipeline(OnlineManagementClient client) {
+        this.client = client;
+        this.builder = new OperationsModelNodeBuilder(client.options());
+    }
+
+    /** Maximum number of operations that are sent without having a result. Optional, 32 by default. */
+    public Pipeline maxInFlight(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be greater than 0 but it's set to " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    public Pipeline whoami() {
+        operations.add(builder.whoami());
+        return this;
+    }
+
+    public Pipeline readAttribute(Address address, String attributeName, ReadAttributeOption... options) {
+        operations.add(builder.readAttribute(address, attributeName, options));
+        return this;
+    }
+
+    public Pipeline readResource(Address address, ReadResourceOption... options) {
+        operations.add(builder.readResource(address, options));
+        return this;
+    }
+
+    public Pipeline readChildrenNames(Address address, String childType) {
+        operations.add(builder.readChildrenNames(address, childType));
+        return this;
+    }
+
+    public Pipeline invoke(String operationName, Address address) {
+        operations.add(builder.invoke(operationName, address));
+        return this;
+    }
+
+    public Pipeline invoke(String operationName, Address address, Values parameters) {
+        operations.add(builder.invoke(operationName, address, parameters));
+        return this;
+    }
+
+    /** Adds a raw operation. It is copied, so it can be modified later without affecting the pipeline. */
+    public Pipeline operation(ModelNode operation) {
+        operations.add(operation.clone());
+        return this;
+    }
+
+    /** Number of operations in this pipeline. */
+    public int size() {
+        return operations.size();
+    }
+
+    /**
+     * Sends all operations and returns a future that is completed with their results, in the order in which
+     * the operations were added. The future is completed exceptionally if any of the operations fails with
+     * an exception (typically {@code IOException}), but only after all operations finish.
+     */
+    public CompletableFuture<List<ModelNodeResult>> send() {
+        return new Execution(new ArrayList<>(operations), client, maxInFlight).start();
+    }
+
+    /** Sends all operations and waits for their results. Results are in the order in which operations were added. */
+    public List<ModelNodeResult> await() throws IOException, InterruptedException {
+        try {
+            return send().get();
+        } catch (ExecutionException e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Sends all operations and waits at most {@code timeout} for their results.
+     * @throws TimeoutException if the results aren't available in time; operations that weren't sent yet are not sent
+     */
+    public List<ModelNodeResult> await(long timeout, TimeUnit unit)
+            throws IOException, InterruptedException, TimeoutException {
+        CompletableFuture<List<ModelNodeResult>> future = send();
+        try {
+            return future.get(timeout, unit);
+        } catch (ExecutionException e) {
+            throw rethrow(e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    private static IOException rethrow(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException(cause);
+    }
+
+    /**
+     * One sending of the pipeline. Operations are started from {@link #drain()}, which is guarded by {@code wip}
+     * so that it doesn't recurse when results are available immediately and isn't executed concurrently.
+     */
+    private static final class Execution {
+        private final List<ModelNode> operations;
+        private final OnlineManagementClient client;
+        private final int maxInFlight;
+        private final CompletableFuture<ModelNodeResult>[] results;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger wip = new AtomicInteger();
+        private int next;
+        private volatile boolean cancelled;
+
+        @SuppressWarnings("unchecked")
+        Execution(List<ModelNode> operations, OnlineManagementClient client, int maxInFlight) {
+            this.operations = operations;
+            this.client = client;
+            this.maxInFlight = maxInFlight;
+            this.results = new CompletableFuture[operations.size()];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = new CompletableFuture<>();
+            }
+        }
+
+        CompletableFuture<List<ModelNodeResult>> start() {
+            CompletableFuture<List<ModelNodeResult>> all = new CompletableFuture<List<ModelNodeResult>>() {
+                @Override
+                public boolean cancel(boolean mayInterruptIfRunning) {
+                    cancelled = true;
+                    for (CompletableFuture<ModelNodeResult> result : results) {
+                        result.cancel(mayInterruptIfRunning);
+                    }
+                    return super.cancel(mayInterruptIfRunning);
+                }
+            };
+            CompletableFuture.allOf(results).whenComplete((ignored, exception) -> {
+                if (exception != null) {
+                    all.completeExceptionally(exception.getCause() != null ? exception.getCause() : exception);
+                } else {
+                    all.complete(Collections.unmodifiableList(Arrays.asList(Arrays.stream(results)
+                            .map(CompletableFuture::join)
+                            .toArray(ModelNodeResult[]::new))));
+                }
+            });
+            drain();
+            return all;
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            while (true) {
+                while (next < results.length && inFlight.get() < maxInFlight && !cancelled) {
+                    inFlight.incrementAndGet();
+                    send(next++);
+                }
+                if (wip.decrementAndGet() == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void send(int index) {
+            CompletableFuture<ModelNodeResult> future;
+            try {
+                // the client may adjust the operation in place (in a managed domain) and the pipeline can be resent
+                future = client.executeAsync(operations.get(index).clone());
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            CompletableFuture<ModelNodeResult> sent = future;
+            results[index].whenComplete((ignored, exception) -> {
+                if (results[index].isCancelled()) {
+                    sent.cancel(true);
+                }
+            });
+            future.whenComplete((result, exception) -> {
+                if (exception != null) {
+                    results[index].completeExceptionally(exception instanceof CompletionException
+                            && exception.getCause() != null ? exception.getCause() : exception);
+                } else {
+                    results[index].complete(result);
+                }
+                inFlight.decrementAndGet();
+                drain();
+            });
+        }
+    }
+}
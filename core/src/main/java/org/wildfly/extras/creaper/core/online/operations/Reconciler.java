@@ -0,0 +1,324 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.FailuresAllowedBlock;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Brings a part of the management model to a desired state, changing only what is different. The desired state
+ * is a set of resources with some of their attributes, resources that must not exist, and child types whose children
+ * must all be declared. The current state is read (one {@code read-resource} per topmost declared resource, all sent
+ * at once using a {@link Pipeline}), compared with the desired state, and only the needed {@code remove},
+ * {@code add}, {@code write-attribute} and {@code undefine-attribute} operations are sent in one composite
+ * operation. If nothing differs, nothing is written, so re-applying an unchanged configuration doesn't cause
+ * a reload.</p>
+ *
+ * <pre>
+ * Address datasources = Address.subsystem("datasources");
+ * new Reconciler()
+ *         .resource(datasources.and("data-source", "AppDS"), Values.builder()
+ *                 .and("jndi-name", "java:/AppDS")
+ *                 .and("driver-name", "h2")
+ *                 .and("connection-url", url)
+ *                 .and("max-pool-size", 20)
+ *                 .build())
+ *         .exclusive(datasources, "data-source")
+ *         .reconcile(client)
+ *         .assertSuccess();
+ * </pre>
+ *
+ * <p>Attributes that aren't declared are left as they are. Values are compared with the values returned
+ * by {@code read-resource} including defaults, so declaring an attribute with its default value doesn't cause
+ * a write. An attribute declared with an undefined {@code ModelNode} value is undefined. For attributes of type
+ * {@code OBJECT}, only the declared keys are compared and an undefined key is the same as a missing key.</p>
+ *
+ * <p>Like {@link Batch}, the builder is fluent and not thread safe. A reconciler can be used multiple times.</p>
+ */
+public final class Reconciler {
+    private final Map<Address, Values> resources = new LinkedHashMap<>();
+    private final Set<Address> absent = new LinkedHashSet<>();
+    private final Map<Address, Set<String>> exclusive = new LinkedHashMap<>();
+
+    /** The resource at {@code address} must exist; its other attributes don't matter. */
+    public Reconciler resource(Address address) {
+        return resource(address, Values.empty());
+    }
+
+    /**
+     * The resource at {@code address} must exist and have given {@code attributes}. If it doesn't exist,
+     * it is added with {@code attributes} as parameters of the {@code add} operation.
+     * @throws IllegalArgumentException if the resource or one of its ancestors was declared as absent
+     */
+    public Reconciler resource(Address address, Values attributes) {
+        for (Address absentAddress : absent) {
+            if (absentAddress.equals(address) || isAncestor(absentAddress, address)) {
+                throw new IllegalArgumentException("Resource " + address + " can't be present, because "
+                        + absentAddress + " was already declared as absent");
+            }
+        }
+        resources.put(address, attributes);
+        return this;
+    }
+
+    /**
+     * The resource at {@code address} must not exist.
+     * @throws IllegalArgumentException if the resource or one of its descendants was declared as present
+     */
+    public Reconciler absent(Address address) {
+        for (Address presentAddress : resources.keySet()) {
+            if (presentAddress.equals(address) || isAncestor(address, presentAddress)) {
+                throw new IllegalArgumentException("Resource " + address + " can't be absent, because "
+                        + presentAddress + " was already declared as present");
+            }
+        }
+        absent.add(address);
+        return this;
+    }
+
+    /**
+     * Children of type {@code childType} of the resource at {@code parent} that aren't declared
+     * by {@link #resource(Address, Values) resource} are removed.
+     */
+    public Reconciler exclusive(Address parent, String childType) {
+        exclusive.computeIfAbsent(parent, ignored -> new LinkedHashSet<>()).add(childType);
+        return this;
+    }
+
+    /**
+     * Reads the current state and returns a batch of operations that bring it to the desired state, without
+     * executing it. The batch is empty if the current state matches the desired state.
+     */
+    public Batch plan(OnlineManagementClient client) throws IOException, OperationException {
+        Set<Address> declared = new LinkedHashSet<>(resources.keySet());
+        declared.addAll(absent);
+        List<Address> roots = new ArrayList<>();
+        for (Address address : declared) {
+            if (!hasAncestorIn(address, declared)) {
+                roots.add(address);
+            }
+        }
+
+        Pipeline reads = client.pipeline();
+        for (Address root : roots) {
+            if (hasDescendantIn(root, declared)) {
+                reads.readResource(root, ReadResourceOption.RECURSIVE);
+            } else {
+                reads.readResource(root);
+            }
+        }
+        List<Address> exclusiveParents = new ArrayList<>();
+        List<String> exclusiveTypes = new ArrayList<>();
+        exclusive.forEach((parent, types) -> types.forEach(type -> {
+            exclusiveParents.add(parent);
+            exclusiveTypes.add(type);
+            reads.readChildrenNames(parent, type);
+        }));
+
+        List<ModelNodeResult> results;
+        try (FailuresAllowedBlock ignored = client.allowFailures()) {
+            results = reads.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading current state");
+        }
+
+        Map<Address, ModelNode> current = new LinkedHashMap<>();
+        for (int i = 0; i < roots.size(); i++) {
+            ModelNodeResult result = results.get(i);
+            if (result.isSuccess()) {
+                current.put(roots.get(i), result.value());
+            } else if (!Operations.isResultUnknownOrNotFound(result)) {
+                throw new OperationException("Reading " + roots.get(i) + " failed: " + result.asString());
+            }
+        }
+
+        Set<Address> removals = new LinkedHashSet<>();
+        for (Address address : absent) {
+            if (lookup(current, address) != null) {
+                removals.add(address);
+            }
+        }
+        for (int i = 0; i < exclusiveParents.size(); i++) {
+            ModelNodeResult result = results.get(roots.size() + i);
+            if (result.isSuccess()) {
+                for (String name : result.stringListValue()) {
+                    Address child = exclusiveParents.get(i).and(exclusiveTypes.get(i), name);
+                    if (!resources.containsKey(child)) {
+                        removals.add(child);
+                    }
+                }
+            } else if (!Operations.isResultUnknownOrNotFound(result)) {
+                throw new OperationException("Reading children of " + exclusiveParents.get(i) + " failed: "
+                        + result.asString());
+            }
+        }
+
+        Batch batch = new Batch(client.options());
+        List<Address> orderedRemovals = new ArrayList<>(removals);
+        orderedRemovals.sort(Comparator.comparingInt(Reconciler::depth).reversed());
+        for (Address address : orderedRemovals) {
+            batch.remove(address);
+        }
+
+        List<Address> orderedResources = new ArrayList<>(resources.keySet());
+        orderedResources.sort(Comparator.comparingInt(Reconciler::depth));
+        for (Address address : orderedResources) {
+            Values attributes = resources.get(address);
+            ModelNode currentResource = lookup(current, address);
+            if (currentResource == null) {
+                batch.add(address, attributes);
+                continue;
+            }
+
+            ModelNode desired = new ModelNode().setEmptyObject();
+            attributes.addToModelNode(desired);
+            for (Property attribute : desired.asPropertyList()) {
+                String name = attribute.getName();
+                ModelNode desiredValue = attribute.getValue();
+                ModelNode currentValue = currentResource.has(name) ? currentResource.get(name) : new ModelNode();
+                if (sameValue(currentValue, desiredValue)) {
+                    continue;
+                }
+                if (desiredValue.isDefined()) {
+                    batch.writeAttribute(address, name, desiredValue);
+                } else {
+                    batch.undefineAttribute(address, name);
+                }
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Reads the current state and sends the operations that bring it to the desired state in one composite
+     * operation. If the current state matches the desired state, nothing is sent and the returned result
+     * is successful with no steps.
+     */
+    public ModelNodeResult reconcile(OnlineManagementClient client) throws IOException, OperationException {
+        Batch batch = plan(client);
+        if (batch.steps().isEmpty()) {
+            ModelNodeResult result = new ModelNodeResult(new ModelNode());
+            result.get(Constants.OUTCOME).set(Constants.SUCCESS);
+            result.get(Constants.RESULT).setEmptyObject();
+            return result;
+        }
+        return new Operations(client).batch(batch);
+    }
+
+    // ---
+
+    private static int depth(Address address) {
+        return address.toModelNode().asList().size();
+    }
+
+    /** @return {@code true} if {@code ancestor} is a proper ancestor of {@code address} */
+    private static boolean isAncestor(Address ancestor, Address address) {
+        List<ModelNode> ancestorElements = ancestor.toModelNode().asList();
+        List<ModelNode> elements = address.toModelNode().asList();
+        return ancestorElements.size() < elements.size()
+                && ancestorElements.equals(elements.subList(0, ancestorElements.size()));
+    }
+
+    private static boolean hasAncestorIn(Address address, Set<Address> addresses) {
+        for (Address other : addresses) {
+            if (isAncestor(other, address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasDescendantIn(Address address, Set<Address> addresses) {
+        for (Address other : addresses) {
+            if (isAncestor(address, other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return the current state of the resource at {@code address}, or {@code null} if it doesn't exist */
+    private static ModelNode lookup(Map<Address, ModelNode> current, Address address) {
+        for (Map.Entry<Address, ModelNode> entry : current.entrySet()) {
+            Address root = entry.getKey();
+            if (root.equals(address)) {
+                return entry.getValue();
+            }
+            if (isAncestor(root, address)) {
+                List<ModelNode> elements = address.toModelNode().asList();
+                ModelNode node = entry.getValue();
+                for (int i = depth(root); i < elements.size(); i++) {
+                    Property element = elements.get(i).asProperty();
+                    String name = element.getValue().asString();
+                    if (!node.hasDefined(element.getName()) || !node.get(element.getName()).has(name)) {
+                        return null;
+                    }
+                    node = node.get(element.getName(), name);
+                }
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The server can return a value of a different type than was used for writing it (e.g. {@code INT} for a
+     * {@code STRING} containing a number), so scalar values are compared by their string form. Objects
+     * are compared only by the keys of the {@code desired} object; the server can add keys with default values.
+     */
+    private static boolean sameValue(ModelNode current, ModelNode desired) {
+        if (current.equals(desired)) {
+            return true;
+        }
+        if (!current.isDefined() || !desired.isDefined()) {
+            return false;
+        }
+
+        ModelType currentType = current.getType();
+        ModelType desiredType = desired.getType();
+        if (currentType == ModelType.LIST && desiredType == ModelType.LIST) {
+            List<ModelNode> currentList = current.asList();
+            List<ModelNode> desiredList = desired.asList();
+            if (currentList.size() != desiredList.size()) {
+                return false;
+            }
+            for (int i = 0; i < currentList.size(); i++) {
+                if (!sameValue(currentList.get(i), desiredList.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (currentType == ModelType.OBJECT && desiredType == ModelType.OBJECT) {
+            for (String key : desired.keys()) {
+                ModelNode currentValue = current.has(key) ? current.get(key) : new ModelNode();
+                if (!sameValue(currentValue, desired.get(key))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (isComplex(currentType) || isComplex(desiredType)) {
+            return false;
+        }
+        return current.asString().equals(desired.asString());
+    }
+
+    private static boolean isComplex(ModelType type) {
+        return type == ModelType.LIST || type == ModelType.OBJECT || type == ModelType.PROPERTY;
+    }
+}
@@ -0,0 +1,46 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+
+import java.io.IOException;
+
+/**
+ * <p>Visits resources of the management model, see {@link Operations#walk(Address, ResourceVisitor,
+ * ReadResourceOption...)}. Resources are visited depth-first: a resource is visited before its children,
+ * and {@link #postVisit(Address)} is called after all its children were visited.</p>
+ *
+ * <p>Each resource is read only when it is about to be visited, so a visitor that isn't interested
+ * in a subtree should skip it as early as possible: either based on the address in {@link #shouldVisit(Address)},
+ * which avoids reading the resource at all, or by returning {@link Result#SKIP_SUBTREE} from
+ * {@link #visit(Address, ModelNode)}, which avoids reading its children.</p>
+ */
+@FunctionalInterface
+public interface ResourceVisitor {
+    enum Result {
+        /** Continue with children of the visited resource. */
+        CONTINUE,
+        /** Don't visit children of the visited resource; {@link #postVisit(Address)} isn't called. */
+        SKIP_SUBTREE,
+        /** Stop the walk immediately; {@link #postVisit(Address)} isn't called for any resource. */
+        TERMINATE
+    }
+
+    /**
+     * Called before a resource is read. If it returns {@code false}, the resource and its whole subtree
+     * are skipped without reading them.
+     */
+    default boolean shouldVisit(Address address) {
+        return true;
+    }
+
+    /**
+     * Called for each resource with its attributes (that is, the result of non-recursive {@code read-resource},
+     * without the child types). The {@code attributes} object is not used after this method returns, so it can be
+     * retained or modified by the visitor.
+     */
+    Result visit(Address address, ModelNode attributes) throws IOException;
+
+    /** Called after all children of a resource were visited. */
+    default void postVisit(Address address) throws IOException {
+    }
+}
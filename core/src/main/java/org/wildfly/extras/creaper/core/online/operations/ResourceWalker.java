@@ -0,0 +1,100 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.FailuresAllowedBlock;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Implementation of {@link Operations#walk(Address, ResourceVisitor, ReadResourceOption...)}. Each resource is read
+ * by one {@code composite} of non-recursive {@code read-resource} and {@code read-children-types}, so only
+ * the attributes of one resource and the child addresses along the current path are held in memory.
+ */
+final class ResourceWalker {
+    private final OnlineManagementClient client;
+    private final OperationsModelNodeBuilder builder;
+    private final ResourceVisitor visitor;
+    private final ReadResourceOption[] options;
+
+    ResourceWalker(OnlineManagementClient client, OperationsModelNodeBuilder builder, ResourceVisitor visitor,
+                   ReadResourceOption[] options) {
+        this.client = client;
+        this.builder = builder;
+        this.visitor = visitor;
+        this.options = options;
+    }
+
+    void walk(Address root) throws IOException, OperationException {
+        walk(root, true);
+    }
+
+    private ResourceVisitor.Result walk(Address address, boolean isRoot) throws IOException, OperationException {
+        if (!visitor.shouldVisit(address)) {
+            return ResourceVisitor.Result.CONTINUE;
+        }
+
+        ModelNodeResult result;
+        try (FailuresAllowedBlock ignored = client.allowFailures()) {
+            result = client.execute(readOperation(address));
+        }
+        if (!result.isSuccess()) {
+            // a runtime resource could have been removed after its parent was read
+            if (!isRoot && !new Operations(client).exists(address)) {
+                return ResourceVisitor.Result.CONTINUE;
+            }
+            throw new OperationException("walk failed at " + address + ": " + result.asString());
+        }
+
+        ModelNode steps = result.get(Constants.RESULT);
+        ModelNode resource = steps.get("step-1", Constants.RESULT);
+        List<Address> children = new ArrayList<>();
+        if (steps.hasDefined("step-2", Constants.RESULT)) {
+            for (ModelNode childType : steps.get("step-2", Constants.RESULT).asList()) {
+                String type = childType.asString();
+                if (resource.hasDefined(type)) {
+                    for (String name : resource.get(type).keys()) {
+                        children.add(address.and(type, name));
+                    }
+                }
+                if (resource.has(type)) {
+                    resource.remove(type);
+                }
+            }
+        }
+        if (!resource.isDefined()) {
+            resource.setEmptyObject();
+        }
+
+        ResourceVisitor.Result visitResult = visitor.visit(address, resource);
+        if (visitResult != ResourceVisitor.Result.CONTINUE) {
+            return visitResult;
+        }
+
+        for (Address child : children) {
+            if (walk(child, false) == ResourceVisitor.Result.TERMINATE) {
+                return ResourceVisitor.Result.TERMINATE;
+            }
+        }
+
+        visitor.postVisit(address);
+        return ResourceVisitor.Result.CONTINUE;
+    }
+
+    private ModelNode readOperation(Address address) {
+        ModelNode readResource = builder.readResource(address, options);
+        for (String recursiveParameter : Arrays.asList(Constants.RECURSIVE, Constants.RECURSIVE_DEPTH,
+                Constants.ATTRIBUTES_ONLY)) {
+            if (readResource.has(recursiveParameter)) {
+                readResource.remove(recursiveParameter);
+            }
+        }
+        ModelNode readChildrenTypes = builder.invoke(Constants.READ_CHILDREN_TYPES, address);
+        return Batch.composite(Arrays.asList(readResource, readChildrenTypes));
+    }
+}
@@ -59,6 +59,17 @@ import java.util.Map;
  *       .and("answer", 42)
  *       .andObject("a", Values.of("b", "c").and("d", "e"))
  * </pre>
+ *
+ * <p>Each of the {@code and*} methods copies the whole list, so a long chain of them takes quadratic time.
+ * When building many values (e.g. all attributes of a resource), use a {@link #builder() builder} instead:</p>
+ *
+ * <pre>
+ * Values values = Values.builder()
+ *       .andOptional("foo", foo)
+ *       .andOptional("bar", bar)
+ *       ...
+ *       .build();
+ * </pre>
  */
 public final class Values {
     private static final Values EMPTY = new Values();
@@ -69,6 +80,11 @@ public final class Values {
         return EMPTY;
     }
 
+    /** Returns a new mutable builder of {@code Values}. See {@link Builder}. */
+    public static Builder builder() {
+        return new Builder(new ArrayList<Property>());
+    }
+
     public static Values of(String name, boolean value) {
         return EMPTY.and(name, value);
     }
@@ -142,40 +158,35 @@ public final class Values {
         this.namedValues = Collections.unmodifiableList(namedValues);
     }
 
+    /** A builder that contains all the values of this list and has room for one more. */
+    private Builder copy() {
+        List<Property> newList = new ArrayList<Property>(namedValues.size() + 1);
+        newList.addAll(namedValues);
+        return new Builder(newList);
+    }
+
     public Values and(String name, boolean value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, new ModelNode(value)));
-        return new Values(newList);
+        return copy().and(name, value).build();
     }
 
     public Values and(String name, int value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, new ModelNode(value)));
-        return new Values(newList);
+        return copy().and(name, value).build();
     }
 
     public Values and(String name, long value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, new ModelNode(value)));
-        return new Values(newList);
+        return copy().and(name, value).build();
     }
 
     public Values and(String name, double value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, new ModelNode(value)));
-        return new Values(newList);
+        return copy().and(name, value).build();
     }
 
     public Values and(String name, String value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, new ModelNode(value)));
-        return new Values(newList);
+        return copy().and(name, value).build();
     }
 
     public Values and(String name, ModelNode value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, value));
-        return new Values(newList);
+        return copy().and(name, value).build();
     }
 
     public Values andOptional(String name, Boolean value) {
@@ -209,69 +220,27 @@ public final class Values {
     }
 
     public Values andList(String name, boolean... value) {
-        ModelNode listValue = new ModelNode().setEmptyList();
-        for (boolean singleValue : value) {
-            listValue.add(singleValue);
-        }
-
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return copy().andList(name, value).build();
     }
 
     public Values andList(String name, int... value) {
-        ModelNode listValue = new ModelNode().setEmptyList();
-        for (int singleValue : value) {
-            listValue.add(singleValue);
-        }
-
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return copy().andList(name, value).build();
     }
 
     public Values andList(String name, long... value) {
-        ModelNode listValue = new ModelNode().setEmptyList();
-        for (long singleValue : value) {
-            listValue.add(singleValue);
-        }
-
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return copy().andList(name, value).build();
     }
 
     public Values andList(String name, double... value) {
-        ModelNode listValue = new ModelNode().setEmptyList();
-        for (double singleValue : value) {
-            listValue.add(singleValue);
-        }
-
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return copy().andList(name, value).build();
     }
 
     public Values andList(String name, String... value) {
-        ModelNode listValue = new ModelNode().setEmptyList();
-        for (String singleValue : value) {
-            listValue.add(singleValue);
-        }
-
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return copy().andList(name, value).build();
     }
 
     public Values andList(String name, ModelNode... value) {
-        ModelNode listValue = new ModelNode().setEmptyList();
-        for (ModelNode singleValue : value) {
-            listValue.add(singleValue);
-        }
-
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return copy().andList(name, value).build();
     }
 
     /**
@@ -282,24 +251,8 @@ public final class Values {
      * @throws ClassCastException if some elements of the {@code value} list are not of type {@code clazz}
      * @throws ArrayStoreException if some elements of the {@code value} list are not of type {@code clazz}
      */
-    @SuppressWarnings({"unchecked", "SuspiciousToArrayCall"})
     public <T> Values andList(Class<T> clazz, String name, List<T> value) {
-        if (clazz == Boolean.class) {
-            return andList(name, Booleans.toArray((List<Boolean>) value));
-        } else if (clazz == Integer.class) {
-            return andList(name, Ints.toArray((List<Integer>) value));
-        } else if (clazz == Long.class) {
-            return andList(name, Longs.toArray((List<Long>) value));
-        } else if (clazz == Double.class) {
-            return andList(name, Doubles.toArray((List<Double>) value));
-        } else if (clazz == String.class) {
-            return andList(name, value.toArray(new String[value.size()]));
-        }  else if (clazz == ModelNode.class) {
-            return andList(name, value.toArray(new ModelNode[value.size()]));
-        } else {
-            throw new IllegalArgumentException("Only List<Boolean>, List<Integer>, List<Long>, List<Double>, "
-                    + "List<String> and List<ModelNode> are supported");
-        }
+        return copy().andList(clazz, name, value).build();
     }
 
     /**
@@ -313,14 +266,7 @@ public final class Values {
     }
 
     public Values andObject(String name, Values value) {
-        ModelNode objectValue = new ModelNode().setEmptyObject();
-        for (Property property : value.namedValues) {
-            objectValue.get(property.getName()).set(property.getValue());
-        }
-
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, objectValue));
-        return new Values(newList);
+        return copy().andObject(name, value).build();
     }
 
     public Values andObjectOptional(String name, Values value) {
@@ -353,4 +299,178 @@ public final class Values {
     int size() {
         return namedValues.size();
     }
+
+    /**
+     * <p>A mutable builder of {@link Values}, obtained by {@link Values#builder()}. It has the same {@code and*}
+     * methods as {@code Values}, but they add the value to this builder instead of copying the whole list,
+     * so building {@code Values} with many elements takes linear time.</p>
+     *
+     * <p>The {@link #build()} method can only be called once; the builder can't be used after that.
+     * The builder is not thread safe.</p>
+     */
+    public static final class Builder {
+        private final List<Property> namedValues;
+        private boolean built;
+
+        private Builder(List<Property> namedValues) {
+            this.namedValues = namedValues;
+        }
+
+        private Builder add(String name, ModelNode value) {
+            if (built) {
+                throw new IllegalStateException("Values were already built, the builder can't be used anymore");
+            }
+            namedValues.add(new Property(name, value));
+            return this;
+        }
+
+        public Builder and(String name, boolean value) {
+            return add(name, new ModelNode(value));
+        }
+
+        public Builder and(String name, int value) {
+            return add(name, new ModelNode(value));
+        }
+
+        public Builder and(String name, long value) {
+            return add(name, new ModelNode(value));
+        }
+
+        public Builder and(String name, double value) {
+            return add(name, new ModelNode(value));
+        }
+
+        public Builder and(String name, String value) {
+            return add(name, new ModelNode(value));
+        }
+
+        public Builder and(String name, ModelNode value) {
+            return add(name, value);
+        }
+
+        public Builder andOptional(String name, Boolean value) {
+            if (value == null) return this;
+            return and(name, value);
+        }
+
+        public Builder andOptional(String name, Integer value) {
+            if (value == null) return this;
+            return and(name, value);
+        }
+
+        public Builder andOptional(String name, Long value) {
+            if (value == null) return this;
+            return and(name, value);
+        }
+
+        public Builder andOptional(String name, Double value) {
+            if (value == null) return this;
+            return and(name, value);
+        }
+
+        public Builder andOptional(String name, String value) {
+            if (value == null) return this;
+            return and(name, value);
+        }
+
+        public Builder andOptional(String name, ModelNode value) {
+            if (value == null) return this;
+            return and(name, value);
+        }
+
+        public Builder andList(String name, boolean... value) {
+            ModelNode listValue = new ModelNode().setEmptyList();
+            for (boolean singleValue : value) {
+                listValue.add(singleValue);
+            }
+            return add(name, listValue);
+        }
+
+        public Builder andList(String name, int... value) {
+            ModelNode listValue = new ModelNode().setEmptyList();
+            for (int singleValue : value) {
+                listValue.add(singleValue);
+            }
+            return add(name, listValue);
+        }
+
+        public Builder andList(String name, long... value) {
+            ModelNode listValue = new ModelNode().setEmptyList();
+            for (long singleValue : value) {
+                listValue.add(singleValue);
+            }
+            return add(name, listValue);
+        }
+
+        public Builder andList(String name, double... value) {
+            ModelNode listValue = new ModelNode().setEmptyList();
+            for (double singleValue : value) {
+                listValue.add(singleValue);
+            }
+            return add(name, listValue);
+        }
+
+        public Builder andList(String name, String... value) {
+            ModelNode listValue = new ModelNode().setEmptyList();
+            for (String singleValue : value) {
+                listValue.add(singleValue);
+            }
+            return add(name, listValue);
+        }
+
+        public Builder andList(String name, ModelNode... value) {
+            ModelNode listValue = new ModelNode().setEmptyList();
+            for (ModelNode singleValue : value) {
+                listValue.add(singleValue);
+            }
+            return add(name, listValue);
+        }
+
+        /** @see Values#andList(Class, String, List) */
+        @SuppressWarnings({"unchecked", "SuspiciousToArrayCall"})
+        public <T> Builder andList(Class<T> clazz, String name, List<T> value) {
+            if (clazz == Boolean.class) {
+                return andList(name, Booleans.toArray((List<Boolean>) value));
+            } else if (clazz == Integer.class) {
+                return andList(name, Ints.toArray((List<Integer>) value));
+            } else if (clazz == Long.class) {
+                return andList(name, Longs.toArray((List<Long>) value));
+            } else if (clazz == Double.class) {
+                return andList(name, Doubles.toArray((List<Double>) value));
+            } else if (clazz == String.class) {
+                return andList(name, value.toArray(new String[value.size()]));
+            }  else if (clazz == ModelNode.class) {
+                return andList(name, value.toArray(new ModelNode[value.size()]));
+            } else {
+                throw new IllegalArgumentException("Only List<Boolean>, List<Integer>, List<Long>, List<Double>, "
+                        + "List<String> and List<ModelNode> are supported");
+            }
+        }
+
+        /** @see Values#andListOptional(Class, String, List) */
+        public <T> Builder andListOptional(Class<T> clazz, String name, List<T> value) {
+            if (value == null) return this;
+            return andList(clazz, name, value);
+        }
+
+        public Builder andObject(String name, Values value) {
+            ModelNode objectValue = new ModelNode().setEmptyObject();
+            value.addToModelNode(objectValue);
+            return add(name, objectValue);
+        }
+
+        public Builder andObjectOptional(String name, Values value) {
+            if (value == null) return this;
+            return andObject(name, value);
+        }
+
+        /** Returns the built {@code Values}. Can only be called once. */
+        public Values build() {
+            if (built) {
+                throw new IllegalStateException("Values were already built, the builder can't be used anymore");
+            }
+            built = true;
+            return namedValues.isEmpty() ? EMPTY : new Values(namedValues);
+        }
+    }
 }
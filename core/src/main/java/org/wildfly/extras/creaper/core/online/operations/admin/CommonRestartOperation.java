@@ -2,6 +2,7 @@ package org.wildfly.extras.creaper.core.online.operations.admin;
 
 import org.wildfly.extras.creaper.core.online.Constants;
 import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.jfr.JfrEvents;
 import org.wildfly.extras.creaper.core.online.operations.Address;
 import org.wildfly.extras.creaper.core.online.operations.Operations;
 import org.wildfly.extras.creaper.core.online.operations.Values;
@@ -45,4 +46,9 @@ enum CommonRestartOperation implements RestartOperation {
     };
 
     abstract boolean isRequired(ModelNodeResult serverStateResult, boolean isManagedServerInDomain);
+
+    /** Name of the action for the JFR event; all restart operations other than restart are reloads. */
+    static String actionName(RestartOperation restartOperation) {
+        return restartOperation == RESTART ? JfrEvents.RESTART : JfrEvents.RELOAD;
+    }
 }
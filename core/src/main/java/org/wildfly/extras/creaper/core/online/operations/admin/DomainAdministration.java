@@ -3,6 +3,7 @@ package org.wildfly.extras.creaper.core.online.operations.admin;
 import org.wildfly.extras.creaper.core.online.Constants;
 import org.wildfly.extras.creaper.core.online.ModelNodeResult;
 import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.jfr.JfrEvents;
 import org.wildfly.extras.creaper.core.online.operations.Address;
 import org.wildfly.extras.creaper.core.online.operations.Batch;
 import org.wildfly.extras.creaper.core.online.operations.OperationException;
@@ -182,15 +183,17 @@ public final class DomainAdministration extends Administration {
             batch.invoke(Constants.RESTART, Address.host(host).and(Constants.SERVER_CONFIG, server));
         }
 
-        boolean needsToReconnect = false;
-        try {
-            ops.batch(batch);
-        } catch (Throwable e) {
-            // server went down before we received the response, this can happen
-            needsToReconnect = true;
-        }
-
-        domainOps.waitUntilServersAreRunning(host, servers, needsToReconnect);
+        JfrEvents.administration(JfrEvents.RESTART, "host '" + host + "' / servers " + servers, () -> {
+            boolean needsToReconnect = false;
+            try {
+                ops.batch(batch);
+            } catch (Throwable e) {
+                // server went down before we received the response, this can happen
+                needsToReconnect = true;
+            }
+
+            domainOps.waitUntilServersAreRunning(host, servers, needsToReconnect);
+        });
     }
 
     // ---
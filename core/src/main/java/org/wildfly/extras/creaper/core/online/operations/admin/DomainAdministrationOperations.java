@@ -3,6 +3,8 @@ package org.wildfly.extras.creaper.core.online.operations.admin;
 import org.wildfly.extras.creaper.core.online.Constants;
 import org.wildfly.extras.creaper.core.online.ModelNodeResult;
 import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.ReadinessWaiter;
+import org.wildfly.extras.creaper.core.online.jfr.JfrEvents;
 import org.wildfly.extras.creaper.core.online.operations.Address;
 import org.wildfly.extras.creaper.core.online.operations.Batch;
 import org.wildfly.extras.creaper.core.online.operations.Operations;
@@ -100,17 +102,19 @@ final class DomainAdministrationOperations implements AdministrationOperations {
 
     void performRestartOperation(String host, RestartOperation restartOperation) throws IOException, TimeoutException,
             InterruptedException {
-        List<String> allServers = allRunningServers(host);
+        JfrEvents.administration(CommonRestartOperation.actionName(restartOperation), "host '" + host + "'", () -> {
+            List<String> allServers = allRunningServers(host);
 
-        boolean needsToReconnect = false;
-        try {
-            restartOperation.perform(ops, Address.host(host));
-        } catch (Throwable e) {
-            // server went down before we received the response, this can happen
-            needsToReconnect = true;
-        }
+            boolean needsToReconnect = false;
+            try {
+                restartOperation.perform(ops, Address.host(host));
+            } catch (Throwable e) {
+                // server went down before we received the response, this can happen
+                needsToReconnect = true;
+            }
 
-        waitUntilServersAreRunning(host, allServers, needsToReconnect);
+            waitUntilServersAreRunning(host, allServers, needsToReconnect);
+        });
     }
 
     boolean isRestartOperationRequired(String host, CommonRestartOperation restartOperation) throws IOException {
@@ -160,34 +164,17 @@ final class DomainAdministrationOperations implements AdministrationOperations {
     void waitUntilServersAreRunning(String host, List<String> servers, boolean reconnect) throws IOException,
             InterruptedException, TimeoutException {
 
-        Thread.sleep(500); // this value is taken from implementation of CLI "reload"
-
-        if (reconnect) {
-            client.reconnect(timeoutInSeconds);
-        }
+        String target = "host '" + host + "' / servers " + servers;
+        JfrEvents.administration(JfrEvents.WAIT, target, () -> {
+            ReadinessWaiter waiter = client.options().readinessWaiter;
+            waiter.settle();
 
-        long endTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutInSeconds);
-        while (System.currentTimeMillis() < endTime) {
-            try {
-                if (areServersRunning(host, servers)) {
-                    break;
-                }
-            } catch (Throwable ignored) {
-                // server is probably down, will retry
+            if (reconnect) {
+                client.reconnect(timeoutInSeconds);
             }
 
-            Thread.sleep(200); // this value is completely arbitrary
-        }
-
-        boolean running = false;
-        try {
-            running = areServersRunning(host, servers);
-        } catch (Throwable ignored) {
-            // server probably down
-        }
-        if (!running) {
-            throw new TimeoutException("Waiting for host '" + host + "' / servers " + servers + " timed out");
-        }
+            waiter.await(target, timeoutInSeconds, TimeUnit.SECONDS, () -> areServersRunning(host, servers));
+        });
     }
 
     private boolean areServersRunning(String host, List<String> servers) throws IOException {
@@ -195,8 +182,7 @@ final class DomainAdministrationOperations implements AdministrationOperations {
 
         if (servers == null || servers.isEmpty()) {
             ModelNodeResult result = ops.readAttribute(Address.host(host), Constants.HOST_STATE);
-            result.assertDefinedValue();
-            return ServerState.isRunning(result.stringValue());
+            return result.hasDefinedValue() && ServerState.isRunning(result.stringValue());
         } else {
             for (String server : servers) {
                 Address serverAddress = hostAddress.and(Constants.SERVER, server);
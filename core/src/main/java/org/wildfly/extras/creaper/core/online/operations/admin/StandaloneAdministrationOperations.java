@@ -3,6 +3,8 @@ package org.wildfly.extras.creaper.core.online.operations.admin;
 import org.wildfly.extras.creaper.core.online.Constants;
 import org.wildfly.extras.creaper.core.online.ModelNodeResult;
 import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.ReadinessWaiter;
+import org.wildfly.extras.creaper.core.online.jfr.JfrEvents;
 import org.wildfly.extras.creaper.core.online.operations.Address;
 import org.wildfly.extras.creaper.core.online.operations.Operations;
 import org.wildfly.extras.creaper.core.online.operations.Values;
@@ -12,6 +14,8 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 final class StandaloneAdministrationOperations implements AdministrationOperations {
+    private static final String TARGET = "server";
+
     private final OnlineManagementClient client;
     private final Operations ops;
     private final int timeoutInSeconds;
@@ -82,15 +86,17 @@ final class StandaloneAdministrationOperations implements AdministrationOperatio
 
     void performRestartOperation(RestartOperation restartOperation) throws IOException, InterruptedException,
             TimeoutException {
-        boolean needsToReconnect = false;
-        try {
-            restartOperation.perform(ops, Address.root());
-        } catch (Throwable e) {
-            // server went down before we received the response, this can happen
-            needsToReconnect = true;
-        }
+        JfrEvents.administration(CommonRestartOperation.actionName(restartOperation), TARGET, () -> {
+            boolean needsToReconnect = false;
+            try {
+                restartOperation.perform(ops, Address.root());
+            } catch (Throwable e) {
+                // server went down before we received the response, this can happen
+                needsToReconnect = true;
+            }
 
-        waitUntilServerIsRunning(needsToReconnect);
+            waitUntilServerIsRunning(needsToReconnect);
+        });
     }
 
     private boolean isRestartOperationRequired(CommonRestartOperation restartOperation) throws IOException {
@@ -100,39 +106,20 @@ final class StandaloneAdministrationOperations implements AdministrationOperatio
     private void waitUntilServerIsRunning(boolean reconnect) throws IOException, InterruptedException,
             TimeoutException {
 
-        Thread.sleep(500); // this value is taken from implementation of CLI "reload"
-
-        if (reconnect) {
-            client.reconnect(timeoutInSeconds);
-        }
+        JfrEvents.administration(JfrEvents.WAIT, TARGET, () -> {
+            ReadinessWaiter waiter = client.options().readinessWaiter;
+            waiter.settle();
 
-        long endTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutInSeconds);
-        while (System.currentTimeMillis() < endTime) {
-            try {
-                if (isServerRunning()) {
-                    break;
-                }
-            } catch (Throwable ignored) {
-                // server is probably down, will retry
+            if (reconnect) {
+                client.reconnect(timeoutInSeconds);
             }
 
-            Thread.sleep(200); // this value is completely arbitrary
-        }
-
-        boolean running = false;
-        try {
-            running = isServerRunning();
-        } catch (Throwable ignored) {
-            // server probably down
-        }
-        if (!running) {
-            throw new TimeoutException("Waiting for server timed out");
-        }
+            waiter.await(TARGET, timeoutInSeconds, TimeUnit.SECONDS, this::isServerRunning);
+        });
     }
 
     private boolean isServerRunning() throws IOException {
         ModelNodeResult result = ops.readAttribute(Address.root(), Constants.SERVER_STATE);
-        result.assertDefinedValue();
-        return ServerState.isRunning(result.stringValue());
+        return result.hasDefinedValue() && ServerState.isRunning(result.stringValue());
     }
 }
@@ -0,0 +1,197 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.ManagementVersionPart;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AsyncExecutionTest {
+    private static final String FAILING_OPERATION = "fail";
+
+    private CompletableFuture<ModelNode> pendingOperation;
+    private OnlineManagementClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        ModelControllerClient mock = mock(ModelControllerClient.class);
+        when(mock.execute(any(ModelNode.class))).thenAnswer(invocation -> respond(invocation.getArgument(0)));
+        when(mock.executeAsync(any(ModelNode.class))).thenAnswer(invocation -> {
+            ModelNode operation = invocation.getArgument(0);
+            if (Constants.WHOAMI.equals(operation.get(Constants.OP).asString())) {
+                pendingOperation = new CompletableFuture<>();
+                return pendingOperation;
+            }
+            return CompletableFuture.completedFuture(respond(operation));
+        });
+
+        client = ManagementClient.online(OnlineOptions.standalone().wrap(mock));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+    }
+
+    private static ModelNode respond(ModelNode operation) {
+        String name = operation.get(Constants.OP).asString();
+        if (FAILING_OPERATION.equals(name)) {
+            return ModelNodeConstants.FAILED;
+        }
+
+        ModelNode response = new ModelNode();
+        response.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        if (Constants.COMPOSITE.equals(name)) {
+            int index = 1;
+            for (ModelNode step : operation.get(Constants.STEPS).asList()) {
+                response.get(Constants.RESULT, "step-" + index++).set(respond(step));
+            }
+        } else if (Constants.READ_RESOURCE_OPERATION.equals(name)) {
+            ModelNode result = response.get(Constants.RESULT);
+            result.get(ManagementVersionPart.MAJOR.attributeName()).set(26);
+            result.get(ManagementVersionPart.MINOR.attributeName()).set(0);
+            result.get(ManagementVersionPart.MICRO.attributeName()).set(0);
+        } else if (Constants.READ_CHILDREN_TYPES.equals(name)) {
+            response.get(Constants.RESULT).add(Constants.SUBSYSTEM);
+        } else {
+            response.get(Constants.RESULT).set(name);
+        }
+        return response;
+    }
+
+    private static ModelNode operation(String name) {
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set(name);
+        op.get(Constants.OP_ADDR).setEmptyList();
+        return op;
+    }
+
+    @Test
+    public void executeAsync() throws Exception {
+        ModelNodeResult result = client.executeAsync(operation("foo")).get(10, TimeUnit.SECONDS);
+        result.assertSuccess();
+        assertEquals("foo", result.stringValue());
+    }
+
+    @Test
+    public void executeAsync_failedOperationIsNotAnException() throws Exception {
+        client.executeAsync(operation(FAILING_OPERATION)).get(10, TimeUnit.SECONDS).assertFailed();
+    }
+
+    @Test
+    public void executeAsync_cancelCancelsManagementOperation() {
+        CompletableFuture<ModelNodeResult> future = client.executeAsync(operation(Constants.WHOAMI));
+        assertFalse(future.isDone());
+
+        future.cancel(true);
+        assertTrue(pendingOperation.isCancelled());
+    }
+
+    @Test
+    public void applyAsync() throws Exception {
+        final List<String> results = new ArrayList<>();
+        client.applyAsync(
+                ctx -> results.add(ctx.client.executeAsync(operation("foo")).join().stringValue()),
+                ctx -> results.add(ctx.client.execute(operation("bar")).stringValue())
+        ).get(10, TimeUnit.SECONDS);
+
+        assertEquals(2, results.size());
+        assertEquals("foo", results.get(0));
+        assertEquals("bar", results.get(1));
+    }
+
+    @Test
+    public void applyAsync_operationFailsInsideCommand() throws Exception {
+        final List<String> applied = new ArrayList<>();
+        try {
+            client.applyAsync(
+                    ctx -> ctx.client.executeAsync(operation(FAILING_OPERATION)).join(),
+                    ctx -> applied.add("second")
+            ).get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            // expected
+            assertTrue(e.getCause() instanceof CommandFailedException);
+            assertTrue(e.getCause().getMessage().contains("failed"));
+        }
+
+        assertTrue(applied.isEmpty());
+    }
+
+    @Test
+    public void apply_operationFailsInsideCommand() {
+        try {
+            client.apply(ctx -> ctx.client.executeAsync(operation(FAILING_OPERATION)).get());
+            fail();
+        } catch (CommandFailedException e) {
+            // expected
+            assertTrue(e.getMessage().contains("failed"));
+        }
+    }
+
+    @Test
+    public void applyAsync_failuresAllowed() throws Exception {
+        client.applyAsync(ctx -> {
+            CompletableFuture<ModelNodeResult> future;
+            try (FailuresAllowedBlock ignored = ctx.client.allowFailures()) {
+                future = ctx.client.executeAsync(operation(FAILING_OPERATION));
+            }
+            future.join().assertFailed();
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void applyAsync_cancelBeforeStart() throws Exception {
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<String> applied = new ArrayList<>();
+        List<OnlineCommand> commands = new ArrayList<>();
+        commands.add(ctx -> applied.add("first"));
+
+        CompletableFuture<Void> future = client.applyAsync(commands, tasks::add);
+        future.cancel(true);
+        tasks.forEach(Runnable::run);
+
+        assertTrue(future.isCancelled());
+        assertTrue(applied.isEmpty());
+    }
+
+    @Test
+    public void defaultMethodsUseSynchronousVariants() throws Exception {
+        OnlineManagementClient minimal = mock(OnlineManagementClient.class);
+        ModelNode operation = operation(Constants.READ_RESOURCE_OPERATION);
+        when(minimal.execute(operation)).thenReturn(new ModelNodeResult(ModelNodeConstants.SUCCESS));
+        when(minimal.executeAsync(any(ModelNode.class))).thenCallRealMethod();
+        when(minimal.applyAsync(ArgumentMatchers.<Iterable<OnlineCommand>>any(), any(Executor.class)))
+                .thenCallRealMethod();
+
+        assertTrue(minimal.executeAsync(operation).get(10, TimeUnit.SECONDS).isSuccess());
+
+        OnlineCommand first = ctx -> { };
+        OnlineCommand second = ctx -> { };
+        minimal.applyAsync(Arrays.asList(first, second), Runnable::run).get(10, TimeUnit.SECONDS);
+        verify(minimal).apply(first);
+        verify(minimal).apply(second);
+    }
+}
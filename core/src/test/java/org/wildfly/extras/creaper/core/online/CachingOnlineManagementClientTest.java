@@ -0,0 +1,186 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.operations.Address;
+import org.wildfly.extras.creaper.core.online.operations.Batch;
+import org.wildfly.extras.creaper.core.online.operations.Operations;
+import org.wildfly.extras.creaper.core.online.operations.ReadResourceOption;
+import org.wildfly.extras.creaper.core.online.operations.Values;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingOnlineManagementClientTest {
+    private static final Address DATASOURCES = Address.subsystem("datasources");
+    private static final Address EXAMPLE_DS = DATASOURCES.and("data-source", "ExampleDS");
+
+    private final AtomicInteger roundTrips = new AtomicInteger();
+
+    private CachingOnlineManagementClient client;
+    private Operations ops;
+
+    @Before
+    public void connect() throws IOException {
+        OnlineManagementClient original = ManagementClient.online(OnlineOptions.standalone()
+                .operationListener(new OperationListener() {
+                    @Override
+                    public void operationExecuted(OperationEvent event) {
+                        roundTrips.incrementAndGet();
+                    }
+                })
+                .wrap(SimulatedModelControllerClient.standalone()));
+        client = CachingOnlineManagementClient.wrap(original);
+        ops = new Operations(client);
+    }
+
+    @After
+    public void close() throws IOException {
+        client.close();
+    }
+
+    @Test
+    public void repeatedReadsAreCached() throws Exception {
+        ops.add(DATASOURCES).assertSuccess();
+        roundTrips.set(0);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(ops.exists(DATASOURCES));
+            assertFalse(ops.exists(EXAMPLE_DS)); // "not found" is cached too
+        }
+
+        assertEquals(2, roundTrips.get());
+        assertEquals(18, client.hitCount());
+        assertEquals(2, client.missCount());
+    }
+
+    @Test
+    public void writesInvalidateRelatedAddresses() throws Exception {
+        ops.add(DATASOURCES).assertSuccess();
+        ops.add(DATASOURCES.and("data-source", "OtherDS")).assertSuccess();
+        assertFalse(ops.exists(EXAMPLE_DS));
+        assertEquals(1, ops.readChildrenNames(DATASOURCES, "data-source").stringListValue().size());
+
+        ops.add(EXAMPLE_DS, Values.of("enabled", false)).assertSuccess();
+        assertTrue(ops.exists(EXAMPLE_DS));
+        assertEquals(2, ops.readChildrenNames(DATASOURCES, "data-source").stringListValue().size());
+
+        ModelNodeResult recursive = ops.readResource(DATASOURCES, ReadResourceOption.RECURSIVE);
+        assertFalse(recursive.value().get("data-source", "ExampleDS", "enabled").asBoolean());
+        ops.writeAttribute(EXAMPLE_DS, "enabled", true).assertSuccess();
+        recursive = ops.readResource(DATASOURCES, ReadResourceOption.RECURSIVE);
+        assertTrue(recursive.value().get("data-source", "ExampleDS", "enabled").asBoolean());
+
+        // unrelated address stays cached
+        ops.readChildrenNames(DATASOURCES, "data-source").assertSuccess();
+        roundTrips.set(0);
+        ops.add(Address.subsystem("foo")).assertSuccess();
+        ops.readChildrenNames(DATASOURCES, "data-source").assertSuccess();
+        assertEquals(1, roundTrips.get());
+    }
+
+    @Test
+    public void writesInvalidateWildcardReads() throws Exception {
+        ops.add(DATASOURCES).assertSuccess();
+        ops.add(EXAMPLE_DS).assertSuccess();
+        Address anyDataSource = DATASOURCES.and("data-source", "*");
+        ops.invoke("read-resource-description", anyDataSource).assertSuccess();
+        roundTrips.set(0);
+
+        ops.invoke("read-resource-description", anyDataSource).assertSuccess();
+        assertEquals(0, roundTrips.get());
+
+        ops.writeAttribute(EXAMPLE_DS, "enabled", true).assertSuccess();
+        roundTrips.set(0);
+        ops.invoke("read-resource-description", anyDataSource).assertSuccess();
+        assertEquals(1, roundTrips.get());
+    }
+
+    @Test
+    public void asyncReadCompletedAfterWriteIsNotCached() throws Exception {
+        OnlineManagementClient delegate = mock(OnlineManagementClient.class);
+        when(delegate.options()).thenReturn(OnlineOptions.standalone()
+                .wrap(SimulatedModelControllerClient.standalone()));
+        CompletableFuture<ModelNodeResult> pendingRead = new CompletableFuture<>();
+        when(delegate.executeAsync(any(ModelNode.class))).thenReturn(pendingRead);
+        when(delegate.execute(any(ModelNode.class))).thenReturn(new ModelNodeResult(ModelNodeConstants.SUCCESS));
+
+        CachingOnlineManagementClient caching = CachingOnlineManagementClient.wrap(delegate);
+        Operations cachingOps = new Operations(caching);
+        ModelNode read = new ModelNode();
+        read.get(Constants.OP).set(Constants.READ_RESOURCE_OPERATION);
+        read.get(Constants.OP_ADDR).add(Constants.SUBSYSTEM, "datasources");
+
+        CompletableFuture<ModelNodeResult> result = caching.executeAsync(read);
+        cachingOps.add(EXAMPLE_DS);
+        pendingRead.complete(new ModelNodeResult(ModelNodeConstants.SUCCESS));
+        assertTrue(result.get().isSuccess());
+
+        caching.executeAsync(read);
+        verify(delegate, times(2)).executeAsync(any(ModelNode.class));
+    }
+
+    @Test
+    public void compositeInvalidatesEachStep() throws Exception {
+        ops.add(DATASOURCES).assertSuccess();
+        assertFalse(ops.exists(EXAMPLE_DS));
+
+        ops.batch(new Batch().add(EXAMPLE_DS)).assertSuccess();
+        assertTrue(ops.exists(EXAMPLE_DS));
+    }
+
+    @Test
+    public void otherOperationsInvalidateEverything() throws Exception {
+        ops.add(DATASOURCES).assertSuccess();
+        assertTrue(ops.exists(DATASOURCES));
+
+        ops.invoke("foo", Address.root()); // fails, but the cache can't know what it does
+        roundTrips.set(0);
+        assertTrue(ops.exists(DATASOURCES));
+        assertEquals(1, roundTrips.get());
+    }
+
+    @Test
+    public void serverStateIsNeverCached() throws Exception {
+        roundTrips.set(0);
+        ops.readAttribute(Address.root(), Constants.SERVER_STATE).assertSuccess();
+        ops.readAttribute(Address.root(), Constants.SERVER_STATE).assertSuccess();
+        assertEquals(2, roundTrips.get());
+    }
+
+    @Test
+    public void commandsUseTheCache() throws Exception {
+        ops.add(DATASOURCES).assertSuccess();
+        roundTrips.set(0);
+
+        OnlineCommand command = ctx -> {
+            Operations ops = new Operations(ctx.client);
+            if (!ops.exists(DATASOURCES)) {
+                throw new IllegalStateException("Datasources subsystem doesn't exist");
+            }
+        };
+        client.apply(command, command, command);
+
+        assertEquals(1, roundTrips.get());
+    }
+
+    @Test
+    public void resultsAreCopied() throws Exception {
+        ModelNodeResult result = ops.readAttribute(Address.root(), "name");
+        result.get(Constants.RESULT).set("changed");
+        assertEquals("localhost", ops.readAttribute(Address.root(), "name").stringValue());
+    }
+}
@@ -0,0 +1,143 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.wildfly.extras.creaper.core.ServerVersion;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConnectionHandshakeTest {
+    private static final ReadinessWaiter WAITER = new ReadinessWaiter.Builder()
+            .initialDelay(10, TimeUnit.MILLISECONDS)
+            .maxDelay(50, TimeUnit.MILLISECONDS)
+            .build();
+
+    private static final ModelNode HANDSHAKE_RESULT = ModelNode.fromString(""
+            + "{\n"
+            + "    \"outcome\" => \"success\",\n"
+            + "    \"result\" => {\n"
+            + "        \"step-1\" => {\n"
+            + "            \"outcome\" => \"success\",\n"
+            + "            \"result\" => {\n"
+            + "                \"management-major-version\" => 26,\n"
+            + "                \"management-minor-version\" => 0,\n"
+            + "                \"management-micro-version\" => 0\n"
+            + "            }\n"
+            + "        },\n"
+            + "        \"step-2\" => {\n"
+            + "            \"outcome\" => \"success\",\n"
+            + "            \"result\" => [\"core-service\", \"subsystem\"]\n"
+            + "        }\n"
+            + "    }\n"
+            + "}");
+
+    private static final ModelNode BOOT_IN_PROGRESS = ModelNode.fromString(""
+            + "{\n"
+            + "    \"outcome\" => \"failed\",\n"
+            + "    \"failure-description\" => \"WFLYCTL0379: System boot is in process; execution of remote management"
+            + " operations is not currently available\"\n"
+            + "}");
+
+    private static final ModelNode VERSION_RESULT = ModelNode.fromString(""
+            + "{\n"
+            + "    \"outcome\" => \"success\",\n"
+            + "    \"result\" => {\n"
+            + "        \"management-major-version\" => 21,\n"
+            + "        \"management-minor-version\" => 0,\n"
+            + "        \"management-micro-version\" => 0\n"
+            + "    }\n"
+            + "}");
+
+    private static final ModelNode CHILDREN_TYPES_RESULT = ModelNode.fromString(""
+            + "{\n"
+            + "    \"outcome\" => \"success\",\n"
+            + "    \"result\" => [\"profile\"]\n"
+            + "}");
+
+    @Test
+    public void singleCompositeOperation() throws Exception {
+        ModelControllerClient client = mock(ModelControllerClient.class);
+        when(client.execute(any(ModelNode.class))).thenReturn(HANDSHAKE_RESULT);
+
+        ConnectionHandshake handshake = ConnectionHandshake.perform(client, WAITER, 0, 0);
+
+        assertEquals(ServerVersion.VERSION_26_0_0, handshake.version);
+        assertEquals(2, handshake.rootChildrenTypes.size());
+        assertEquals(Constants.SUBSYSTEM, handshake.rootChildrenTypes.get(1));
+
+        ArgumentCaptor<ModelNode> op = ArgumentCaptor.forClass(ModelNode.class);
+        verify(client).execute(op.capture());
+        assertEquals(Constants.COMPOSITE, op.getValue().get(Constants.OP).asString());
+    }
+
+    @Test
+    public void waitsForConnection() throws Exception {
+        ModelControllerClient client = mock(ModelControllerClient.class);
+        when(client.execute(any(ModelNode.class)))
+                .thenThrow(new IOException("Connection refused"))
+                .thenReturn(HANDSHAKE_RESULT);
+
+        ConnectionHandshake handshake = ConnectionHandshake.perform(client, WAITER, 10000, 0);
+
+        assertEquals(ServerVersion.VERSION_26_0_0, handshake.version);
+        verify(client, times(2)).execute(any(ModelNode.class));
+    }
+
+    @Test(expected = IOException.class)
+    public void noWaitingForConnectionWithoutTimeout() throws Exception {
+        ModelControllerClient client = mock(ModelControllerClient.class);
+        when(client.execute(any(ModelNode.class))).thenThrow(new IOException("Connection refused"));
+
+        ConnectionHandshake.perform(client, WAITER, 0, 10000);
+    }
+
+    @Test
+    public void waitsForBoot() throws Exception {
+        ModelControllerClient client = mock(ModelControllerClient.class);
+        when(client.execute(any(ModelNode.class)))
+                .thenReturn(BOOT_IN_PROGRESS)
+                .thenReturn(BOOT_IN_PROGRESS)
+                .thenReturn(HANDSHAKE_RESULT);
+
+        ConnectionHandshake handshake = ConnectionHandshake.perform(client, WAITER, 0, 10000);
+
+        assertEquals(ServerVersion.VERSION_26_0_0, handshake.version);
+        verify(client, times(3)).execute(any(ModelNode.class));
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void bootTimeout() throws Exception {
+        ModelControllerClient client = mock(ModelControllerClient.class);
+        when(client.execute(any(ModelNode.class))).thenReturn(BOOT_IN_PROGRESS);
+
+        ConnectionHandshake.perform(client, WAITER, 0, 300);
+    }
+
+    @Test
+    public void fallbackToSeparateOperations() throws Exception {
+        ModelControllerClient client = mock(ModelControllerClient.class);
+        when(client.execute(any(ModelNode.class)))
+                .thenReturn(ModelNodeConstants.FAILED)
+                .thenReturn(VERSION_RESULT)
+                .thenReturn(CHILDREN_TYPES_RESULT);
+
+        ConnectionHandshake handshake = ConnectionHandshake.perform(client, WAITER, 0, 0);
+
+        assertEquals(ServerVersion.VERSION_21_0_0, handshake.version);
+        List<String> expectedTypes = Collections.singletonList(Constants.PROFILE);
+        assertEquals(expectedTypes, handshake.rootChildrenTypes);
+    }
+}
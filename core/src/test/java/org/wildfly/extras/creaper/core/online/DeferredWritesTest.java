@@ -0,0 +1,219 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.operations.Address;
+import org.wildfly.extras.creaper.core.online.operations.Batch;
+import org.wildfly.extras.creaper.core.online.operations.Operations;
+import org.wildfly.extras.creaper.core.online.operations.Values;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DeferredWritesTest {
+    private final List<String> executed = new CopyOnWriteArrayList<>();
+
+    private OnlineManagementClient client;
+    private Operations ops;
+
+    @Before
+    public void connect() throws IOException {
+        client = ManagementClient.online(OnlineOptions.standalone()
+                .deferWrites()
+                .operationListener(new OperationListener() {
+                    @Override
+                    public void operationExecuted(OperationEvent event) {
+                        executed.add(event.operationName());
+                    }
+                })
+                .wrap(SimulatedModelControllerClient.standalone()));
+        ops = new Operations(client);
+        executed.clear();
+    }
+
+    @After
+    public void close() throws IOException {
+        client.close();
+    }
+
+    @Test
+    public void writesAreSentInOneComposite() throws Exception {
+        List<OnlineCommand> commands = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            commands.add(new AddSystemProperty("prop" + i));
+        }
+        client.apply(commands);
+
+        assertEquals(1, executed.size());
+        assertEquals(Constants.COMPOSITE, executed.get(0));
+        assertEquals(100, ops.readChildrenNames(Address.root(), "system-property").stringListValue().size());
+    }
+
+    @Test
+    public void deferredOperationsAreCopied() throws Exception {
+        Address foo = Address.of("system-property", "foo");
+        client.apply(ctx -> {
+            ModelNode composite = new ModelNode();
+            composite.get(Constants.OP).set(Constants.COMPOSITE);
+            composite.get(Constants.OP_ADDR).setEmptyList();
+            ModelNode step = composite.get(Constants.STEPS).add();
+            step.get(Constants.OP).set(Constants.ADD);
+            step.get(Constants.OP_ADDR).add("system-property", "foo");
+            step.get("value").set("original");
+            ctx.client.execute(composite);
+            // modifying the operation after it was executed must not affect what is sent later
+            composite.get(Constants.STEPS).get(0).get("value").set("modified");
+        });
+
+        assertEquals("original", ops.readAttribute(foo, "value").stringValue());
+    }
+
+    @Test
+    public void readsFlushPreviousWrites() throws Exception {
+        client.apply(
+                new AddSystemProperty("foo"),
+                new AddSystemProperty("bar"),
+                ctx -> {
+                    Operations ops = new Operations(ctx.client);
+                    if (!ops.exists(Address.of("system-property", "foo"))) {
+                        throw new IllegalStateException("Previous writes weren't flushed");
+                    }
+                    ops.batch(new Batch()
+                            .writeAttribute(Address.of("system-property", "foo"), "value", "x")
+                            .writeAttribute(Address.of("system-property", "bar"), "value", "y"));
+                },
+                new AddSystemProperty("baz"));
+
+        assertEquals(3, executed.size());
+        assertEquals(Constants.COMPOSITE, executed.get(0));
+        assertEquals(Constants.READ_RESOURCE_OPERATION, executed.get(1));
+        assertEquals(Constants.COMPOSITE, executed.get(2));
+        assertEquals("y", ops.readAttribute(Address.of("system-property", "bar"), "value").stringValue());
+    }
+
+    @Test
+    public void failureIsAttributedToTheCommand() throws Exception {
+        ops.add(Address.of("system-property", "existing"), Values.of("value", "x")).assertSuccess();
+        executed.clear();
+
+        try {
+            client.apply(new AddSystemProperty("foo"), new AddSystemProperty("existing"),
+                    new AddSystemProperty("bar"));
+            fail("Adding a duplicate resource should fail");
+        } catch (CommandFailedException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith("Command AddSystemProperty existing"));
+            assertTrue(expected.getMessage(), expected.getMessage().contains("rolled back"));
+        }
+
+        assertEquals(1, executed.size());
+        assertFalse(ops.exists(Address.of("system-property", "foo")));
+        assertFalse(ops.exists(Address.of("system-property", "bar")));
+    }
+
+    @Test
+    public void failureIsAttributedToTheStepThatCausedTheRollback() throws Exception {
+        ops.add(Address.of("system-property", "existing"), Values.of("value", "x")).assertSuccess();
+
+        // WildFly reports all executed steps of a rolled back composite as failed
+        ModelNodeResult rolledBack = new Operations(client).batch(new Batch()
+                .add(Address.of("system-property", "foo"), Values.of("value", "foo"))
+                .add(Address.of("system-property", "existing"), Values.of("value", "x")));
+        rolledBack.assertFailed();
+        assertEquals(Constants.FAILED, rolledBack.get(Constants.RESULT, "step-1", Constants.OUTCOME).asString());
+        assertFalse(rolledBack.get(Constants.RESULT, "step-1").hasDefined(Constants.FAILURE_DESCRIPTION));
+        assertTrue(rolledBack.get(Constants.RESULT, "step-2").hasDefined(Constants.FAILURE_DESCRIPTION));
+
+        try {
+            client.apply(new AddSystemProperty("foo"), new AddSystemProperty("bar"),
+                    new AddSystemProperty("existing"));
+            fail("Adding a duplicate resource should fail");
+        } catch (CommandFailedException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith("Command AddSystemProperty existing"));
+        }
+    }
+
+    @Test
+    public void redundantWritesAreDroppedAndFailureIsStillAttributed() throws Exception {
+        ops.add(Address.of("system-property", "existing"), Values.of("value", "x")).assertSuccess();
+        executed.clear();
+
+        client.apply(new AddSystemProperty("foo"), new WriteSystemProperty("foo", "a"),
+                new WriteSystemProperty("foo", "b"));
+        assertEquals(1, executed.size());
+        assertEquals("b", ops.readAttribute(Address.of("system-property", "foo"), "value").stringValue());
+
+        try {
+            client.apply(new WriteSystemProperty("foo", "c"), new WriteSystemProperty("foo", "d"),
+                    new AddSystemProperty("existing"));
+            fail("Adding a duplicate resource should fail");
+        } catch (CommandFailedException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith("Command AddSystemProperty existing"));
+        }
+        assertEquals("b", ops.readAttribute(Address.of("system-property", "foo"), "value").stringValue());
+    }
+
+    @Test
+    public void writesWithAllowedFailuresAreNotDeferred() throws Exception {
+        client.apply(new AddSystemProperty("foo"), ctx -> {
+            Operations ops = new Operations(ctx.client);
+            if (ops.removeIfExists(Address.of("system-property", "bar"))) {
+                throw new IllegalStateException("Nothing should be removed");
+            }
+            if (!ops.removeIfExists(Address.of("system-property", "foo"))) {
+                throw new IllegalStateException("Previous writes weren't flushed");
+            }
+        });
+
+        assertEquals(3, executed.size());
+        assertEquals(Constants.ADD, executed.get(0));
+    }
+
+    private static final class AddSystemProperty implements OnlineCommand {
+        private final String name;
+
+        AddSystemProperty(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void apply(OnlineCommandContext ctx) throws Exception {
+            new Operations(ctx.client).add(Address.of("system-property", name), Values.of("value", name));
+        }
+
+        @Override
+        public String toString() {
+            return "AddSystemProperty " + name;
+        }
+    }
+
+    private static final class WriteSystemProperty implements OnlineCommand {
+        private final String name;
+        private final String value;
+
+        WriteSystemProperty(String name, String value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public void apply(OnlineCommandContext ctx) throws Exception {
+            new Operations(ctx.client).writeAttribute(Address.of("system-property", name), "value", value);
+        }
+
+        @Override
+        public String toString() {
+            return "WriteSystemProperty " + name + "=" + value;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FleetManagementClientTest {
+    private OnlineOptions ok;
+    private OnlineOptions failing;
+    private OnlineOptions unreachable;
+    private OnlineOptions slow;
+
+    private CountDownLatch slowServerInterrupted;
+    private OnlineClientPool pool;
+
+    @Before
+    public void setUp() {
+        ok = OnlineOptions.standalone().hostAndPort("ok", 9990).build();
+        failing = OnlineOptions.standalone().hostAndPort("failing", 9990).build();
+        unreachable = OnlineOptions.standalone().hostAndPort("unreachable", 9990).build();
+        slow = OnlineOptions.standalone().hostAndPort("slow", 9990).build();
+
+        slowServerInterrupted = new CountDownLatch(1);
+        pool = new OnlineClientPool.Builder().clientFactory(this::createClient).build();
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+    }
+
+    private OnlineManagementClient createClient(OnlineOptions options) throws IOException {
+        if (options == unreachable) {
+            throw new IOException("Connection refused");
+        }
+
+        OnlineManagementClient client = mock(OnlineManagementClient.class);
+        when(client.options()).thenReturn(options);
+        when(client.execute(any(ModelNode.class))).thenReturn(new ModelNodeResult(ModelNodeConstants.SUCCESS));
+        try {
+            if (options == failing) {
+                doThrow(new CommandFailedException("failed")).when(client).apply(anyIterable());
+            } else if (options == slow) {
+                doAnswer(invocation -> {
+                    try {
+                        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                    } catch (InterruptedException e) {
+                        slowServerInterrupted.countDown();
+                        throw new CommandFailedException(e);
+                    }
+                    return null;
+                }).when(client).apply(anyIterable());
+            }
+        } catch (CommandFailedException e) {
+            throw new AssertionError(e);
+        }
+        return client;
+    }
+
+    @Test
+    public void apply() {
+        try (FleetManagementClient fleet = new FleetManagementClient.Builder()
+                .servers(ok, failing, unreachable)
+                .pool(pool)
+                .build()) {
+            FleetResult<Void> result = fleet.apply(OnlineCommand.NOOP);
+
+            assertFalse(result.isSuccess());
+            assertEquals(1, result.successes().size());
+            assertTrue(result.successes().containsKey(ok));
+            assertEquals(2, result.failures().size());
+            assertTrue(result.failures().get(failing) instanceof CommandFailedException);
+            assertTrue(result.failures().get(unreachable) instanceof IOException);
+        }
+    }
+
+    @Test
+    public void execute() {
+        try (FleetManagementClient fleet = new FleetManagementClient.Builder()
+                .servers(ok, failing)
+                .parallelism(1)
+                .pool(pool)
+                .build()) {
+            FleetResult<ModelNodeResult> result = fleet.execute(new ModelNode());
+
+            result.assertSuccess();
+            assertEquals(2, result.successes().size());
+            result.successes().get(ok).assertSuccess();
+        }
+    }
+
+    @Test
+    public void timeout() throws InterruptedException {
+        try (FleetManagementClient fleet = new FleetManagementClient.Builder()
+                .servers(ok, slow)
+                .timeout(200, TimeUnit.MILLISECONDS)
+                .pool(pool)
+                .build()) {
+            FleetResult<Void> result = fleet.apply(OnlineCommand.NOOP);
+
+            assertEquals(1, result.successes().size());
+            assertTrue(result.failures().get(slow) instanceof TimeoutException);
+            assertTrue(slowServerInterrupted.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateServersAreRejected() {
+        new FleetManagementClient.Builder().servers(ok, failing).servers(ok);
+    }
+}
@@ -0,0 +1,69 @@
+package org.wildfly.extras.creaper.core.online;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.jfr.JfrEvents;
+import org.wildfly.extras.creaper.core.online.operations.Address;
+import org.wildfly.extras.creaper.core.online.operations.Operations;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class JfrEventsTest {
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void nothingIsAllocatedWhenNotRecording() {
+        assertSame(JfrEvents.operationStarted(false), JfrEvents.operationStarted(true));
+        assertSame(JfrEvents.commandStarted(), JfrEvents.commandStarted());
+        assertSame(JfrEvents.reconnectStarted(), JfrEvents.reconnectStarted());
+    }
+
+    @Test
+    public void operationAndCommandEvents() throws Exception {
+        Path file = tmp.newFile("creaper.jfr").toPath();
+
+        try (Recording recording = new Recording()) {
+            recording.enable("org.wildfly.extras.creaper.Operation");
+            recording.enable("org.wildfly.extras.creaper.Command");
+            recording.start();
+
+            try (OnlineManagementClient client = ManagementClient.online(OnlineOptions.standalone()
+                    .wrap(SimulatedModelControllerClient.standalone()))) {
+                client.apply(ctx -> new Operations(ctx.client).add(Address.subsystem("foo")));
+                new Operations(client).readResource(Address.subsystem("bar"));
+            }
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+        List<RecordedEvent> operations = events.stream()
+                .filter(event -> "org.wildfly.extras.creaper.Operation".equals(event.getEventType().getName()))
+                .collect(Collectors.toList());
+        assertEquals(2, operations.size());
+        assertEquals(Constants.ADD, operations.get(0).getString("operation"));
+        assertEquals("/subsystem=foo", operations.get(0).getString("address"));
+        assertEquals(Constants.SUCCESS, operations.get(0).getString("outcome"));
+        assertEquals(Constants.READ_RESOURCE_OPERATION, operations.get(1).getString("operation"));
+        assertEquals(Constants.FAILED, operations.get(1).getString("outcome"));
+
+        List<RecordedEvent> commands = events.stream()
+                .filter(event -> "org.wildfly.extras.creaper.Command".equals(event.getEventType().getName()))
+                .collect(Collectors.toList());
+        assertEquals(1, commands.size());
+        assertEquals("success", commands.get(0).getString("outcome"));
+    }
+}
@@ -1,6 +1,7 @@
 package org.wildfly.extras.creaper.core.online;
 
 import com.google.common.primitives.Doubles;
+import org.jboss.dmr.ModelNode;
 import org.junit.Test;
 
 import java.io.IOException;
@@ -268,6 +269,52 @@ public class ModelNodeResultTest {
         assertEquals(2, count);
     }
 
+    @Test
+    public void batchStepCount() {
+        assertEquals(2, new ModelNodeResult(BATCH_RESULT).batchStepCount());
+        assertEquals(0, new ModelNodeResult(NOT_DEFINED_RESULT).batchStepCount());
+    }
+
+    @Test
+    public void forBatchStepInLargeBatch() {
+        ModelNode response = new ModelNode();
+        response.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        for (int i = 1; i <= 10_000; i++) {
+            response.get(Constants.RESULT, "step-" + i, Constants.OUTCOME).set(Constants.SUCCESS);
+            response.get(Constants.RESULT, "step-" + i, Constants.RESULT).set(i);
+        }
+        ModelNodeResult result = new ModelNodeResult(response);
+
+        assertEquals(10_000, result.batchStepCount());
+        ModelNodeResult step = result.forBatchStep(5_000);
+        assertEquals(5_000, step.intValue());
+        step.get(Constants.RESULT).set(42);
+        assertEquals(5_000, result.forBatchStep(5_000).intValue());
+        try {
+            result.forBatchStep(10_001);
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void readingBatchStepDoesNotModifyResult() {
+        ModelNode response = new ModelNode();
+        response.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        response.get(Constants.RESULT, "step-1", Constants.OUTCOME).set(Constants.SUCCESS);
+        ModelNodeResult result = new ModelNodeResult(response);
+        String before = result.toJSONString(true);
+
+        ModelNodeResult step = result.forBatchStep(1);
+        assertFalse(step.hasDefinedValue());
+        assertFalse(step.value().isDefined());
+        assertFalse(step.headers().isDefined());
+        assertFalse(step.isReloadRequired());
+        assertFalse(step.isRestartRequired());
+        assertFalse(step.stringListValue(Collections.emptyList()).iterator().hasNext());
+        assertEquals(before, result.toJSONString(true));
+    }
+
     @Test
     public void headers() {
         ModelNodeResult result = new ModelNodeResult(DEFINED_RESULT_BOOLEAN);
@@ -0,0 +1,221 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.dmr.ModelNode;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OnlineClientPoolTest {
+    private OnlineOptions options;
+    private List<OnlineManagementClient> created;
+
+    @Before
+    public void setUp() {
+        options = OnlineOptions.standalone().hostAndPort("localhost", 9990).build();
+        created = new ArrayList<>();
+    }
+
+    private OnlineClientPool.Builder pool() {
+        return new OnlineClientPool.Builder().clientFactory(options -> {
+            OnlineManagementClient client = mock(OnlineManagementClient.class);
+            when(client.options()).thenReturn(options);
+            when(client.execute(any(ModelNode.class))).thenReturn(new ModelNodeResult(ModelNodeConstants.SUCCESS));
+            created.add(client);
+            return client;
+        });
+    }
+
+    @Test
+    public void returnedClientIsReused() throws IOException {
+        try (OnlineClientPool pool = pool().build()) {
+            pool.lease(options).close();
+            assertEquals(1, pool.idleCount(options));
+
+            pool.lease(options).close();
+            assertEquals(1, created.size());
+            verify(created.get(0), never()).close();
+        }
+    }
+
+    @Test
+    public void clientIsNotSharedWhileLeased() throws IOException {
+        try (OnlineClientPool pool = pool().build()) {
+            OnlineManagementClient first = pool.lease(options);
+            OnlineManagementClient second = pool.lease(options);
+            assertNotSame(first, second);
+            assertEquals(2, created.size());
+
+            first.close();
+            second.close();
+            assertEquals(2, pool.idleCount(options));
+        }
+    }
+
+    @Test
+    public void equalOptionsShareClients() throws IOException {
+        OnlineOptions equalOptions = OnlineOptions.standalone().hostAndPort("localhost", 9990).build();
+        try (OnlineClientPool pool = pool().build()) {
+            pool.lease(options).close();
+            assertEquals(1, pool.idleCount(equalOptions));
+
+            pool.lease(equalOptions).close();
+            assertEquals(1, created.size());
+        }
+    }
+
+    @Test
+    public void differentOptionsAreNotShared() throws IOException {
+        OnlineOptions otherPort = OnlineOptions.standalone().hostAndPort("localhost", 9999).build();
+        OnlineOptions otherAuth = OnlineOptions.standalone().hostAndPort("localhost", 9990)
+                .auth("admin", "pass.1234").build();
+        try (OnlineClientPool pool = pool().build()) {
+            pool.lease(options).close();
+            pool.lease(otherPort).close();
+            pool.lease(otherAuth).close();
+            assertEquals(3, created.size());
+        }
+    }
+
+    @Test
+    public void surplusIdleClientsAreClosed() throws IOException {
+        try (OnlineClientPool pool = pool().maxIdlePerOptions(1).build()) {
+            OnlineManagementClient first = pool.lease(options);
+            OnlineManagementClient second = pool.lease(options);
+            first.close();
+            second.close();
+
+            assertEquals(1, pool.idleCount(options));
+            verify(created.get(1)).close();
+        }
+    }
+
+    @Test
+    public void expiredClientIsClosed() throws IOException {
+        try (OnlineClientPool pool = pool().maxLifetime(0, TimeUnit.SECONDS).build()) {
+            pool.lease(options).close();
+
+            assertEquals(0, pool.idleCount(options));
+            verify(created.get(0)).close();
+        }
+    }
+
+    @Test
+    public void idleClientIsEvicted() throws IOException {
+        try (OnlineClientPool pool = pool().maxIdleTime(0, TimeUnit.SECONDS).build()) {
+            pool.lease(options).close();
+            pool.evictExpired();
+
+            assertEquals(0, pool.idleCount(options));
+            verify(created.get(0)).close();
+        }
+    }
+
+    @Test
+    public void invalidClientIsReconnected() throws Exception {
+        try (OnlineClientPool pool = pool().validateAfterIdle(0, TimeUnit.SECONDS).build()) {
+            pool.lease(options).close();
+            when(created.get(0).execute(any(ModelNode.class))).thenThrow(new IOException("server is down"));
+
+            pool.lease(options).close();
+            assertEquals(1, created.size());
+            verify(created.get(0)).reconnect(anyInt());
+        }
+    }
+
+    @Test
+    public void clientThatFailsToReconnectIsReplaced() throws Exception {
+        try (OnlineClientPool pool = pool().validateAfterIdle(0, TimeUnit.SECONDS).build()) {
+            pool.lease(options).close();
+            OnlineManagementClient broken = created.get(0);
+            when(broken.execute(any(ModelNode.class))).thenThrow(new IOException("server is down"));
+            doThrow(new TimeoutException()).when(broken).reconnect(anyInt());
+
+            pool.lease(options).close();
+            assertEquals(2, created.size());
+            verify(broken).close();
+        }
+    }
+
+    @Test
+    public void clientWithIoFailureIsValidated() throws Exception {
+        try (OnlineClientPool pool = pool().build()) {
+            OnlineManagementClient client = pool.lease(options);
+            when(created.get(0).execute(any(ModelNode.class))).thenThrow(new IOException("server is down"));
+            try {
+                client.execute(new ModelNode());
+                fail();
+            } catch (IOException expected) {
+            }
+            client.close();
+
+            pool.lease(options).close();
+            verify(created.get(0)).reconnect(anyInt());
+        }
+    }
+
+    @Test
+    public void clientIsReturnedOnlyAfterAsyncWorkCompletes() throws IOException {
+        try (OnlineClientPool pool = pool().build()) {
+            OnlineManagementClient client = pool.lease(options);
+            CompletableFuture<ModelNodeResult> running = new CompletableFuture<>();
+            when(created.get(0).executeAsync(any(ModelNode.class))).thenReturn(running);
+
+            client.executeAsync(new ModelNode());
+            client.close();
+            assertEquals(0, pool.idleCount(options));
+
+            running.complete(new ModelNodeResult(ModelNodeConstants.SUCCESS));
+            assertEquals(1, pool.idleCount(options));
+        }
+    }
+
+    @Test(expected = ClientAlreadyClosedException.class)
+    public void returnedClientCantBeUsed() throws IOException {
+        try (OnlineClientPool pool = pool().build()) {
+            OnlineManagementClient client = pool.lease(options);
+            client.close();
+            client.execute(new ModelNode());
+        }
+    }
+
+    @Test
+    public void closingPoolClosesIdleAndReturnedClients() throws IOException {
+        OnlineClientPool pool = pool().build();
+        pool.lease(options).close();
+        OnlineManagementClient leased = pool.lease(options);
+        OnlineManagementClient another = pool.lease(options);
+        another.close();
+
+        pool.close();
+        verify(created.get(1)).close();
+        verify(created.get(0), never()).close();
+
+        leased.close();
+        verify(created.get(0)).close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrappedClientCantBePooled() throws IOException {
+        try (OnlineClientPool pool = pool().build()) {
+            pool.lease(OnlineOptions.standalone().wrap(mock(ModelControllerClient.class)));
+        }
+    }
+}
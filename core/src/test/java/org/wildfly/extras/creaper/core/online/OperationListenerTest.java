@@ -0,0 +1,144 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.operations.Address;
+import org.wildfly.extras.creaper.core.online.operations.Operations;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OperationListenerTest {
+    private final List<OperationListener.OperationEvent> operations = new CopyOnWriteArrayList<>();
+    private final List<OperationListener.CommandEvent> commands = new CopyOnWriteArrayList<>();
+    private final OperationListener recordingListener = new OperationListener() {
+        @Override
+        public void operationExecuted(OperationEvent event) {
+            operations.add(event);
+        }
+
+        @Override
+        public void commandApplied(CommandEvent event) {
+            commands.add(event);
+        }
+    };
+
+    private final OperationLatencyHistogram histogram = new OperationLatencyHistogram();
+
+    private OnlineManagementClient client;
+
+    @After
+    public void close() throws IOException {
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    private void connect() throws IOException {
+        client = ManagementClient.online(OnlineOptions.standalone()
+                .operationListener(recordingListener)
+                .operationListener(new OperationListener() {
+                    @Override
+                    public void operationExecuted(OperationEvent event) {
+                        throw new IllegalStateException("listener failures must be ignored");
+                    }
+                })
+                .operationListener(histogram)
+                .wrap(SimulatedModelControllerClient.standalone()));
+    }
+
+    @Test
+    public void operationEvents() throws Exception {
+        connect();
+        Operations ops = new Operations(client);
+        ops.add(Address.subsystem("foo")).assertSuccess();
+        ops.readResource(Address.subsystem("bar")).assertFailed();
+        ops.readAttribute(Address.root(), "server-state").assertSuccess();
+        ModelNode whoami = new ModelNode();
+        whoami.get(Constants.OP).set(Constants.WHOAMI);
+        whoami.get(Constants.OP_ADDR).setEmptyList();
+        client.executeAsync(whoami).get();
+
+        assertEquals(4, operations.size());
+        assertEquals(Constants.WHOAMI, operations.get(3).operationName());
+
+        OperationListener.OperationEvent add = operations.get(0);
+        assertEquals(Constants.ADD, add.operationName());
+        assertEquals("foo", add.address().asPropertyList().get(0).getValue().asString());
+        assertTrue(add.isSuccess());
+        assertNull(add.failure());
+        assertTrue(add.durationNanos() >= 0);
+        assertTrue(add.requestSize() > 0);
+        assertTrue(add.responseSize() > 0);
+
+        OperationListener.OperationEvent failedRead = operations.get(1);
+        assertEquals(Constants.READ_RESOURCE_OPERATION, failedRead.operationName());
+        assertFalse(failedRead.isSuccess());
+        assertEquals(Constants.FAILED, failedRead.outcome());
+
+        assertEquals(1, histogram.operations().get(Constants.ADD).count);
+        assertEquals(1, histogram.operations().get(Constants.READ_RESOURCE_OPERATION).count);
+        assertTrue(histogram.report().contains(Constants.READ_ATTRIBUTE_OPERATION));
+    }
+
+    @Test
+    public void commandEvents() throws IOException, CommandFailedException {
+        connect();
+        OnlineCommand addFoo = ctx -> new Operations(ctx.client).add(Address.subsystem("foo"));
+        client.apply(addFoo);
+        try {
+            client.apply(addFoo);
+            fail("Adding a duplicate resource should fail");
+        } catch (CommandFailedException expected) {
+        }
+
+        assertEquals(2, commands.size());
+        assertTrue(commands.get(0).isSuccess());
+        assertFalse(commands.get(1).isSuccess());
+        assertTrue(commands.get(1).failure() instanceof CommandFailedException);
+
+        assertEquals(1, histogram.commands().size());
+        assertEquals(2, histogram.commands().values().iterator().next().count);
+    }
+
+    @Test
+    public void histogramPercentiles() {
+        OperationLatencyHistogram.Recorder recorder = new OperationLatencyHistogram.Recorder();
+        for (int i = 1; i <= 1000; i++) {
+            recorder.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        OperationLatencyHistogram.Summary summary = recorder.summary();
+        assertEquals(1000, summary.count);
+        assertEquals(1000, summary.max(TimeUnit.MICROSECONDS));
+        assertWithinError(500_000, summary.p50Nanos);
+        assertWithinError(990_000, summary.p99Nanos);
+    }
+
+    @Test
+    public void histogramBuckets() {
+        long previousHighest = -1;
+        for (int bucket = 0; bucket < 488; bucket++) {
+            long highest = OperationLatencyHistogram.Recorder.highestValue(bucket);
+            assertEquals(bucket, OperationLatencyHistogram.Recorder.bucket(highest));
+            assertEquals(bucket, OperationLatencyHistogram.Recorder.bucket(previousHighest + 1));
+            previousHighest = highest;
+        }
+        assertEquals(Long.MAX_VALUE, previousHighest);
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        assertTrue("expected " + expected + " but was " + actual, actual >= expected && actual <= expected * 1.125);
+    }
+}
@@ -0,0 +1,92 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReadinessWaiterTest {
+    private static final ReadinessWaiter WAITER = new ReadinessWaiter.Builder()
+            .initialDelay(1, TimeUnit.MILLISECONDS)
+            .maxDelay(20, TimeUnit.MILLISECONDS)
+            .settleDelay(0, TimeUnit.MILLISECONDS)
+            .build();
+
+    @Test
+    public void conditionIsCheckedUntilSatisfied() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+        WAITER.await("test", 10, TimeUnit.SECONDS, () -> checks.incrementAndGet() == 5);
+        assertEquals(5, checks.get());
+    }
+
+    @Test
+    public void exceptionsAreRetried() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+        WAITER.await("test", 10, TimeUnit.SECONDS, () -> {
+            if (checks.incrementAndGet() < 3) {
+                throw new IOException("not yet");
+            }
+            return true;
+        });
+        assertEquals(3, checks.get());
+    }
+
+    @Test
+    public void conditionIsCheckedOnceWithZeroTimeout() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+        try {
+            WAITER.await("test", 0, TimeUnit.SECONDS, () -> {
+                checks.incrementAndGet();
+                return false;
+            });
+            fail("TimeoutException expected");
+        } catch (TimeoutException expected) {
+            assertEquals(1, checks.get());
+        }
+    }
+
+    @Test
+    public void timeoutCarriesLastFailure() throws Exception {
+        IOException failure = new IOException("Connection refused");
+        long start = System.nanoTime();
+        try {
+            WAITER.await("test", 200, TimeUnit.MILLISECONDS, () -> {
+                throw failure;
+            });
+            fail("TimeoutException expected");
+        } catch (TimeoutException expected) {
+            assertSame(failure, expected.getCause());
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+        }
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void interruptionIsPropagated() throws Exception {
+        Thread.currentThread().interrupt();
+        WAITER.await("test", 10, TimeUnit.SECONDS, () -> false);
+    }
+
+    @Test
+    public void portProbe() throws Exception {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+            WAITER.awaitPortOpen("localhost", port, 1, TimeUnit.SECONDS);
+        }
+
+        try {
+            WAITER.awaitPortOpen("localhost", port, 100, TimeUnit.MILLISECONDS);
+            fail("TimeoutException expected");
+        } catch (TimeoutException expected) {
+            assertTrue(expected.getCause() instanceof IOException);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.operations.Address;
+import org.wildfly.extras.creaper.core.online.operations.Operations;
+import org.wildfly.extras.creaper.core.online.operations.Values;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ResourceDescriptionCacheTest {
+    private static final Address DATA_SOURCE = Address.subsystem("datasources").and("data-source", "*");
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void fetchedOncePerVersion() throws IOException {
+        ResourceDescriptionCache cache = ResourceDescriptionCache.inMemory();
+
+        try (OnlineManagementClient client = client(29)) {
+            ModelNodeResult result = cache.get(client, DATA_SOURCE);
+            result.assertSuccess();
+            // modifying the result must not affect the cache
+            result.value().setEmptyList();
+
+            ModelNode description = cache.description(client, DATA_SOURCE);
+            assertEquals(ModelType.STRING, description.get("attributes", "jndi-name", "type").asType());
+            assertEquals(ModelType.BOOLEAN, description.get("attributes", "enabled", "type").asType());
+            assertTrue(description.get("operations", Constants.ADD).isDefined());
+            assertEquals(description, cache.get(client, DATA_SOURCE).value().get(0).get(Constants.RESULT));
+        }
+        try (OnlineManagementClient client = client(29)) {
+            cache.get(client, DATA_SOURCE).assertSuccess();
+        }
+        assertEquals(1, cache.fetchCount());
+
+        try (OnlineManagementClient client = client(30)) {
+            cache.get(client, DATA_SOURCE).assertSuccess();
+        }
+        assertEquals(2, cache.fetchCount());
+    }
+
+    @Test
+    public void failuresAreNotCached() throws IOException {
+        ResourceDescriptionCache cache = ResourceDescriptionCache.inMemory();
+        try (OnlineManagementClient client = client(29)) {
+            cache.get(client, Address.subsystem("foo")).assertFailed();
+            assertNull(cache.description(client, Address.subsystem("foo")));
+        }
+        assertEquals(2, cache.fetchCount());
+    }
+
+    @Test
+    public void persistent() throws IOException {
+        Path directory = tmp.getRoot().toPath().resolve("descriptions");
+
+        ResourceDescriptionCache first = ResourceDescriptionCache.persistent(directory);
+        ModelNode expected;
+        try (OnlineManagementClient client = client(29)) {
+            expected = first.get(client, DATA_SOURCE).value();
+        }
+        assertTrue(Files.isRegularFile(directory.resolve("standalone-29.0.0.dmr.gz")));
+
+        ResourceDescriptionCache second = ResourceDescriptionCache.persistent(directory);
+        try (OnlineManagementClient client = client(29)) {
+            assertEquals(expected, second.get(client, DATA_SOURCE).value());
+        }
+        assertEquals(0, second.fetchCount());
+
+        second.clear();
+        assertFalse(Files.exists(directory.resolve("standalone-29.0.0.dmr.gz")));
+    }
+
+    @Test
+    public void corruptedFileIsIgnored() throws IOException {
+        Path directory = tmp.newFolder().toPath();
+        Files.write(directory.resolve("standalone-29.0.0.dmr.gz"), new byte[] {1, 2, 3});
+
+        ResourceDescriptionCache cache = ResourceDescriptionCache.persistent(directory);
+        try (OnlineManagementClient client = client(29)) {
+            cache.get(client, DATA_SOURCE).assertSuccess();
+        }
+        assertEquals(1, cache.fetchCount());
+
+        try (OnlineManagementClient client = client(29)) {
+            ResourceDescriptionCache.persistent(directory).get(client, DATA_SOURCE).assertSuccess();
+        }
+    }
+
+    private static OnlineManagementClient client(int managementVersion) throws IOException {
+        OnlineManagementClient client = ManagementClient.online(OnlineOptions.standalone()
+                .wrap(new SimulatedModelControllerClient.Builder()
+                        .managementVersion(managementVersion, 0, 0)
+                        .build()));
+        Operations ops = new Operations(client);
+        ops.add(Address.subsystem("datasources"));
+        ops.add(Address.subsystem("datasources").and("data-source", "ExampleDS"),
+                Values.of("jndi-name", "java:jboss/datasources/ExampleDS").and("enabled", true));
+        return client;
+    }
+}
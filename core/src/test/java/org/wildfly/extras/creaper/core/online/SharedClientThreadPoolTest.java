@@ -0,0 +1,83 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.ModelControllerClientConfiguration;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SharedClientThreadPoolTest {
+    private static ModelControllerClientConfiguration configuration() {
+        return new ModelControllerClientConfiguration.Builder()
+                .setHostName("localhost")
+                .setPort(9990)
+                .build();
+    }
+
+    @Test
+    public void threadPoolIsSharedAndReferenceCounted() throws IOException {
+        int initialReferences = SharedClientThreadPool.references();
+
+        ModelControllerClientConfiguration first = SharedClientThreadPool.share(configuration());
+        ModelControllerClientConfiguration second = SharedClientThreadPool.share(configuration());
+        ExecutorService executor = first.getExecutor();
+        assertSame(executor, second.getExecutor());
+        assertEquals(initialReferences + 2, SharedClientThreadPool.references());
+
+        first.close();
+        first.close(); // closing twice must not release twice
+        assertEquals(initialReferences + 1, SharedClientThreadPool.references());
+        assertFalse(executor.isShutdown());
+
+        second.close();
+        assertEquals(initialReferences, SharedClientThreadPool.references());
+        if (initialReferences == 0) {
+            assertTrue(executor.isShutdown());
+        }
+    }
+
+    @Test
+    public void closingClientReleasesThreadPool() throws IOException {
+        int initialReferences = SharedClientThreadPool.references();
+
+        ModelControllerClient client = ModelControllerClient.Factory.create(
+                SharedClientThreadPool.share(configuration()));
+        assertEquals(initialReferences + 1, SharedClientThreadPool.references());
+
+        client.close();
+        assertEquals(initialReferences, SharedClientThreadPool.references());
+    }
+
+    @Test
+    public void blockedTasksDontStarveOtherTasks() throws Exception {
+        ModelControllerClientConfiguration configuration = SharedClientThreadPool.share(configuration());
+        try {
+            // more tasks than any fixed size pool would have threads, each of them waits for all the others
+            int tasks = 4 * Runtime.getRuntime().availableProcessors() + 32;
+            CountDownLatch allRunning = new CountDownLatch(tasks);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                results.add(configuration.getExecutor().submit(() -> {
+                    allRunning.countDown();
+                    return allRunning.await(10, TimeUnit.SECONDS);
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(20, TimeUnit.SECONDS));
+            }
+        } finally {
+            configuration.close();
+        }
+    }
+}
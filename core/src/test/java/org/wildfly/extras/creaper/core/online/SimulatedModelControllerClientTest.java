@@ -0,0 +1,151 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.ServerVersion;
+import org.wildfly.extras.creaper.core.online.operations.Address;
+import org.wildfly.extras.creaper.core.online.operations.Batch;
+import org.wildfly.extras.creaper.core.online.operations.OperationException;
+import org.wildfly.extras.creaper.core.online.operations.Operations;
+import org.wildfly.extras.creaper.core.online.operations.ReadResourceOption;
+import org.wildfly.extras.creaper.core.online.operations.Values;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SimulatedModelControllerClientTest {
+    private static final Address DATASOURCES = Address.subsystem("datasources");
+    private static final Address EXAMPLE_DS = DATASOURCES.and("data-source", "ExampleDS");
+
+    private OnlineManagementClient client;
+
+    @After
+    public void close() throws IOException {
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    @Test
+    public void connectsAsStandalone() throws IOException {
+        client = ManagementClient.online(OnlineOptions.standalone().wrap(SimulatedModelControllerClient.standalone()));
+
+        assertTrue(client.options().isStandalone);
+        assertEquals(ServerVersion.VERSION_29_0_0, client.version());
+        assertEquals("running", new Operations(client).readAttribute(Address.root(), "server-state").stringValue());
+    }
+
+    @Test
+    public void addReadWriteRemove() throws IOException, OperationException {
+        client = ManagementClient.online(OnlineOptions.standalone().wrap(SimulatedModelControllerClient.standalone()));
+        Operations ops = new Operations(client);
+
+        ops.add(DATASOURCES).assertSuccess();
+        ops.add(EXAMPLE_DS, Values.of("jndi-name", "java:jboss/datasources/ExampleDS")).assertSuccess();
+        assertTrue(ops.exists(EXAMPLE_DS));
+        assertEquals(Collections.singletonList("ExampleDS"),
+                ops.readChildrenNames(DATASOURCES, "data-source").stringListValue());
+
+        ops.writeAttribute(EXAMPLE_DS, "min-pool-size", 5).assertSuccess();
+        assertEquals(5, ops.readAttribute(EXAMPLE_DS, "min-pool-size").intValue());
+        assertEquals("java:jboss/datasources/ExampleDS",
+                ops.readResource(EXAMPLE_DS).value().get("jndi-name").asString());
+
+        ops.undefineAttribute(EXAMPLE_DS, "min-pool-size").assertSuccess();
+        assertFalse(ops.readAttribute(EXAMPLE_DS, "min-pool-size").hasDefinedValue());
+
+        assertTrue(ops.removeIfExists(EXAMPLE_DS));
+        assertFalse(ops.removeIfExists(EXAMPLE_DS));
+        assertFalse(ops.exists(EXAMPLE_DS));
+    }
+
+    @Test
+    public void failures() throws IOException {
+        client = ManagementClient.online(OnlineOptions.standalone().wrap(SimulatedModelControllerClient.standalone()));
+        Operations ops = new Operations(client);
+
+        ops.add(DATASOURCES).assertSuccess();
+        assertFailure("WFLYCTL0212", ops.add(DATASOURCES));
+        assertFailure("WFLYCTL0175", ops.add(EXAMPLE_DS.and("connection-properties", "foo")));
+        assertFailure("WFLYCTL0216", ops.readResource(EXAMPLE_DS));
+        assertFailure("WFLYCTL0201", ops.readAttribute(DATASOURCES, "foo"));
+        assertFailure("WFLYCTL0202", ops.readChildrenNames(Address.root(), "foo"));
+        assertFailure("WFLYCTL0031", ops.invoke("foo", Address.root()));
+    }
+
+    @Test
+    public void compositeIsRolledBack() throws IOException, OperationException {
+        client = ManagementClient.online(OnlineOptions.standalone().wrap(SimulatedModelControllerClient.standalone()));
+        Operations ops = new Operations(client);
+        ops.add(DATASOURCES).assertSuccess();
+        ops.add(EXAMPLE_DS).assertSuccess();
+
+        ModelNodeResult result = ops.batch(new Batch()
+                .writeAttribute(EXAMPLE_DS, "enabled", true)
+                .add(DATASOURCES.and("data-source", "OtherDS"))
+                .remove(EXAMPLE_DS)
+                .readResource(Address.subsystem("foo")));
+        result.assertFailed();
+
+        assertTrue(ops.exists(EXAMPLE_DS));
+        assertFalse(ops.exists(DATASOURCES.and("data-source", "OtherDS")));
+        assertFalse(ops.readAttribute(EXAMPLE_DS, "enabled").hasDefinedValue());
+
+        ops.batch(new Batch()
+                .writeAttribute(EXAMPLE_DS, "enabled", true)
+                .add(DATASOURCES.and("data-source", "OtherDS")))
+                .assertSuccess();
+        assertTrue(ops.exists(DATASOURCES.and("data-source", "OtherDS")));
+        assertTrue(ops.readAttribute(EXAMPLE_DS, "enabled").booleanValue());
+    }
+
+    @Test
+    public void seededFromSnapshot() throws IOException, OperationException {
+        SimulatedModelControllerClient original = SimulatedModelControllerClient.standalone();
+        client = ManagementClient.online(OnlineOptions.standalone().wrap(original));
+        Operations ops = new Operations(client);
+        ops.add(DATASOURCES).assertSuccess();
+        ops.add(EXAMPLE_DS, Values.of("jndi-name", "java:jboss/datasources/ExampleDS")).assertSuccess();
+        client.close();
+
+        ModelNode snapshot = original.snapshot();
+        client = ManagementClient.online(OnlineOptions.standalone().wrap(
+                new SimulatedModelControllerClient.Builder().model(snapshot).build()));
+        ops = new Operations(client);
+
+        assertTrue(ops.exists(EXAMPLE_DS));
+        assertEquals("java:jboss/datasources/ExampleDS", ops.readAttribute(EXAMPLE_DS, "jndi-name").stringValue());
+        assertEquals(snapshot, ops.readResource(Address.root(), ReadResourceOption.RECURSIVE).value());
+    }
+
+    @Test
+    public void connectsAsDomain() throws IOException, OperationException {
+        client = ManagementClient.online(OnlineOptions.domain().forProfile("default").build().wrap(
+                new SimulatedModelControllerClient.Builder()
+                        .domain()
+                        .latency(1, TimeUnit.MILLISECONDS)
+                        .build()));
+        Operations ops = new Operations(client);
+
+        assertTrue(client.options().isDomain);
+        assertEquals(Arrays.asList("server-one", "server-two"),
+                ops.readChildrenNames(Address.host("master"), "server").stringListValue());
+
+        // the address is adjusted to the default profile
+        ops.add(DATASOURCES).assertSuccess();
+        assertTrue(ops.exists(Address.of(Constants.PROFILE, "default").and(Constants.SUBSYSTEM, "datasources")));
+    }
+
+    private static void assertFailure(String code, ModelNodeResult result) {
+        result.assertFailed();
+        assertTrue(result.asString(), result.get(Constants.FAILURE_DESCRIPTION).asString().startsWith(code));
+    }
+}
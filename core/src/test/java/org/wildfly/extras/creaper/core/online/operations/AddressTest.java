@@ -4,11 +4,15 @@ import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
 import org.junit.Test;
 import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class AddressTest {
     @Test
@@ -190,4 +194,78 @@ public class AddressTest {
         assertEquals("/deployment=simple.war", singleElementAddress.toString());
         assertEquals("simple.war", singleElementAddress.getLastPairValue());
     }
+
+    @Test
+    public void equalsAndHashCode() {
+        Address parent = Address.subsystem("datasources");
+        Address a = parent.and("data-source", "ExampleDS");
+        Address b = Address.of(Constants.SUBSYSTEM, "datasources").and("data-source", "ExampleDS");
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(Address.root(), Address.root());
+        assertNotEquals(a, parent);
+        assertNotEquals(a, parent.and("data-source", "OtherDS"));
+        assertNotEquals(a, Address.of("data-source", "ExampleDS"));
+        assertNotEquals(Address.of("a", "b").and("c", "d"), Address.of("c", "d").and("a", "b"));
+    }
+
+    @Test
+    public void modelNodeIsCachedAndProtected() {
+        Address address = Address.of("a", "b").and("c", "d");
+        ModelNode modelNode = address.toModelNode();
+        assertSame(modelNode, address.toModelNode());
+
+        try {
+            modelNode.add("e", "f");
+            fail("Cached ModelNode must not be modifiable");
+        } catch (UnsupportedOperationException expected) {
+            assertEquals(2, modelNode.asList().size());
+        }
+
+        ModelNode operation = new ModelNode();
+        operation.get(Constants.OP_ADDR).set(modelNode);
+        operation.get(Constants.OP_ADDR).add("e", "f");
+        assertEquals(2, address.toModelNode().asList().size());
+    }
+
+    @Test
+    public void forDomain() {
+        assertEquals(Address.profile("default").and(Constants.SUBSYSTEM, "web"),
+                Address.subsystem("web").forDomain("default", "master"));
+        assertEquals(Address.host("master").and(Constants.CORE_SERVICE, "management"),
+                Address.coreService("management").forDomain("default", "master"));
+        assertEquals(Address.coreService("management"), Address.coreService("management").forDomain("default", null));
+        assertEquals(Address.of(Constants.INTERFACE, "public"),
+                Address.of(Constants.INTERFACE, "public").forDomain("default", "master"));
+
+        Address alreadyPrefixed = Address.profile("full").and(Constants.SUBSYSTEM, "web");
+        assertSame(alreadyPrefixed, alreadyPrefixed.forDomain("default", "master"));
+        assertSame(Address.root(), Address.root().forDomain(null, null));
+
+        try {
+            Address.subsystem("web").forDomain(null, "master");
+            fail("Subsystem address can't be adjusted without a default profile");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("/subsystem=web"));
+        }
+    }
+
+    @Test
+    public void batchForDomainIsPrefixedWhenBuilt() {
+        OnlineOptions options = OnlineOptions.domain().forHost("master").forProfile("default").build()
+                .localDefault().build();
+        ModelNode steps = new Batch(options)
+                .writeAttribute(Address.subsystem("web"), "foo", "bar")
+                .add(Address.profile("full").and(Constants.SUBSYSTEM, "web"))
+                .toModelNode().get(Constants.STEPS);
+
+        assertEquals(Address.profile("default").and(Constants.SUBSYSTEM, "web").toModelNode(),
+                steps.get(0).get(Constants.OP_ADDR));
+        assertEquals(Address.profile("full").and(Constants.SUBSYSTEM, "web").toModelNode(),
+                steps.get(1).get(Constants.OP_ADDR));
+        assertEquals(Address.subsystem("web").toModelNode(),
+                new Batch().writeAttribute(Address.subsystem("web"), "foo", "bar").toModelNode()
+                        .get(Constants.STEPS).get(0).get(Constants.OP_ADDR));
+    }
 }
@@ -0,0 +1,177 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.Property;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+import org.wildfly.extras.creaper.core.online.OperationListener;
+import org.wildfly.extras.creaper.core.online.SimulatedModelControllerClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchChunkingTest {
+    private final List<String> executed = new CopyOnWriteArrayList<>();
+
+    private OnlineManagementClient client;
+    private Operations ops;
+
+    @Before
+    public void connect() throws IOException {
+        client = ManagementClient.online(OnlineOptions.standalone()
+                .operationListener(new OperationListener() {
+                    @Override
+                    public void operationExecuted(OperationEvent event) {
+                        executed.add(event.operationName());
+                    }
+                })
+                .wrap(SimulatedModelControllerClient.standalone()));
+        ops = new Operations(client);
+        executed.clear();
+    }
+
+    @After
+    public void close() throws IOException {
+        client.close();
+    }
+
+    @Test
+    public void chunksByNumberOfSteps() throws Exception {
+        List<String> progress = new ArrayList<>();
+        ModelNodeResult result = ops.batch(addProperties(0, 25), new BatchChunking.Builder()
+                .maxSteps(10)
+                .progress((executedSteps, totalSteps) -> progress.add(executedSteps + "/" + totalSteps))
+                .build());
+
+        result.assertSuccess();
+        assertEquals(3, executed.size());
+        assertEquals(3, progress.size());
+        assertEquals("10/25", progress.get(0));
+        assertEquals("25/25", progress.get(2));
+        assertEquals(25, result.get(Constants.RESULT).keys().size());
+        result.forBatchStep(25).assertSuccess();
+        assertEquals(25, systemProperties());
+    }
+
+    @Test
+    public void chunksByNumberOfBytes() throws Exception {
+        Batch batch = addProperties(0, 20);
+        ops.batch(batch, new BatchChunking.Builder().maxBytes(Long.MAX_VALUE - 1).build()).assertSuccess();
+        assertEquals(1, executed.size());
+
+        executed.clear();
+        Batch secondBatch = addProperties(20, 40);
+        long stepBytes = sizeOf(secondBatch.steps().get(0));
+        ops.batch(secondBatch, new BatchChunking.Builder().maxBytes(stepBytes * 5 + 1).build()).assertSuccess();
+        assertEquals(4, executed.size());
+        assertEquals(40, systemProperties());
+    }
+
+    @Test
+    public void atomicBatchIsNotSplit() throws Exception {
+        try {
+            ops.batch(addProperties(0, 25), new BatchChunking.Builder().maxSteps(10).atomic().build());
+            fail("Batch that exceeds the limits shouldn't be executed in the atomic mode");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(executed.isEmpty());
+        }
+
+        ops.batch(addProperties(0, 10), new BatchChunking.Builder().maxSteps(10).atomic().build()).assertSuccess();
+        assertEquals(1, executed.size());
+    }
+
+    @Test
+    public void failedChunkStopsExecution() throws Exception {
+        ops.add(Address.of("system-property", "prop15"), Values.of("value", "x")).assertSuccess();
+        executed.clear();
+
+        List<Integer> progress = new ArrayList<>();
+        ModelNodeResult result = ops.batch(addProperties(0, 30), new BatchChunking.Builder()
+                .maxSteps(10)
+                .progress((executedSteps, totalSteps) -> progress.add(executedSteps))
+                .build());
+
+        result.assertFailed();
+        // step numbers in the failure description are those of the whole batch, not of the chunk
+        ModelNode failedSteps = result.get(Constants.FAILURE_DESCRIPTION).asPropertyList().get(0).getValue();
+        assertTrue(failedSteps.asString(), failedSteps.has("Operation step-16"));
+        assertEquals(2, executed.size());
+        assertEquals(1, progress.size());
+        assertEquals(10, progress.get(0).intValue());
+        // the first chunk stays applied, the second was rolled back and the third wasn't executed
+        assertTrue(ops.exists(Address.of("system-property", "prop9")));
+        assertFalse(ops.exists(Address.of("system-property", "prop10")));
+        assertFalse(ops.exists(Address.of("system-property", "prop20")));
+    }
+
+    @Test
+    public void responseHeadersOfChunksAreMerged() throws Exception {
+        // the first chunk requires restart, the second one only reload and the third one nothing
+        Map<String, String> processStates = new HashMap<>();
+        processStates.put("prop0", Constants.CONTROLLER_PROCESS_STATE_RESTART_REQUIRED);
+        processStates.put("prop10", Constants.CONTROLLER_PROCESS_STATE_RELOAD_REQUIRED);
+        ModelControllerClient simulated = SimulatedModelControllerClient.standalone();
+        ModelControllerClient withHeaders = (ModelControllerClient) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{ModelControllerClient.class}, (proxy, method, args) -> {
+                    Object result = method.invoke(simulated, args);
+                    if (result instanceof ModelNode && args[0] instanceof ModelNode
+                            && ((ModelNode) args[0]).hasDefined(Constants.STEPS)) {
+                        ModelNode firstStep = ((ModelNode) args[0]).get(Constants.STEPS).get(0);
+                        for (Property element : firstStep.get(Constants.OP_ADDR).asPropertyList()) {
+                            String processState = processStates.get(element.getValue().asString());
+                            if (processState != null) {
+                                ((ModelNode) result).get(Constants.RESPONSE_HEADERS, Constants.PROCESS_STATE)
+                                        .set(processState);
+                            }
+                        }
+                    }
+                    return result;
+                });
+
+        try (OnlineManagementClient headersClient = ManagementClient.online(OnlineOptions.standalone()
+                .wrap(withHeaders))) {
+            ModelNodeResult result = new Operations(headersClient).batch(addProperties(0, 25),
+                    new BatchChunking.Builder().maxSteps(10).build());
+
+            result.assertSuccess();
+            assertTrue(result.isRestartRequired());
+            assertFalse(result.isReloadRequired());
+        }
+    }
+
+    private static Batch addProperties(int from, int to) {
+        Batch batch = new Batch();
+        for (int i = from; i < to; i++) {
+            batch.add(Address.of("system-property", "prop" + i), Values.of("value", "value" + i));
+        }
+        return batch;
+    }
+
+    private int systemProperties() throws IOException {
+        return ops.readChildrenNames(Address.root(), "system-property").stringListValue().size();
+    }
+
+    private static long sizeOf(ModelNode node) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        node.writeExternal(bytes);
+        return bytes.size();
+    }
+}
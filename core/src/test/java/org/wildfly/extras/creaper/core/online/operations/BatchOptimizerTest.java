@@ -0,0 +1,130 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+import org.wildfly.extras.creaper.core.online.SimulatedModelControllerClient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BatchOptimizerTest {
+    private static final Address FOO = Address.of("system-property", "foo");
+    private static final Address BAR = Address.of("system-property", "bar");
+    private static final Address DATASOURCE = Address.subsystem("datasources").and("data-source", "FooDS");
+
+    @Test
+    public void repeatedWritesAreCoalesced() {
+        Batch batch = new Batch()
+                .writeAttribute(FOO, "value", "a")
+                .writeAttribute(BAR, "value", "x")
+                .undefineAttribute(FOO, "value")
+                .writeAttribute(FOO, "value", "b");
+
+        assertArrayEquals(new int[] {1, 3}, BatchOptimizer.stepsToKeep(batch.steps()));
+    }
+
+    @Test
+    public void otherOperationsAreBarriers() {
+        Batch batch = new Batch()
+                .writeAttribute(FOO, "value", "a")
+                .readAttribute(FOO, "value")
+                .writeAttribute(FOO, "value", "b")
+                .invoke("map-put", FOO, Values.of("name", "value"))
+                .writeAttribute(FOO, "value", "c");
+
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, BatchOptimizer.stepsToKeep(batch.steps()));
+
+        List<ModelNode> withHeaders = new ArrayList<>(new Batch()
+                .writeAttribute(FOO, "value", "a")
+                .writeAttribute(FOO, "value", "b")
+                .steps());
+        withHeaders.get(1).get("operation-headers", "allow-resource-service-restart").set(true);
+        assertArrayEquals(new int[] {0, 1}, BatchOptimizer.stepsToKeep(withHeaders));
+    }
+
+    @Test
+    public void addAndRemoveKeepWritesBeforeThem() {
+        Batch batch = new Batch()
+                .writeAttribute(FOO, "value", "a")
+                .remove(FOO)
+                .add(FOO, Values.of("value", "b"))
+                .writeAttribute(FOO, "value", "c")
+                .writeAttribute(DATASOURCE, "jndi-name", "java:/A")
+                .add(DATASOURCE.and("connection-properties", "url"))
+                .writeAttribute(DATASOURCE, "jndi-name", "java:/B");
+
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5, 6}, BatchOptimizer.stepsToKeep(batch.steps()));
+    }
+
+    @Test
+    public void removeAndIdenticalAddAreDropped() {
+        Batch batch = new Batch()
+                .add(FOO, Values.of("value", "a"))
+                .writeAttribute(BAR, "value", "x")
+                .remove(FOO)
+                .add(FOO, Values.of("value", "a"))
+                .writeAttribute(FOO, "value", "b");
+
+        assertArrayEquals(new int[] {0, 1, 4}, BatchOptimizer.stepsToKeep(batch.steps()));
+    }
+
+    @Test
+    public void removeAndAddAreKeptIfStateCouldDiffer() {
+        // the resource could have existed with a different state before the batch
+        assertArrayEquals(new int[] {0, 1}, BatchOptimizer.stepsToKeep(new Batch()
+                .remove(FOO)
+                .add(FOO, Values.of("value", "a"))
+                .steps()));
+
+        // different parameters
+        assertArrayEquals(new int[] {0, 1, 2}, BatchOptimizer.stepsToKeep(new Batch()
+                .add(FOO, Values.of("value", "a"))
+                .remove(FOO)
+                .add(FOO, Values.of("value", "b"))
+                .steps()));
+
+        // modified after it was added
+        assertArrayEquals(new int[] {0, 1, 2, 3}, BatchOptimizer.stepsToKeep(new Batch()
+                .add(DATASOURCE, Values.of("jndi-name", "java:/A"))
+                .add(DATASOURCE.and("connection-properties", "url"), Values.of("value", "jdbc:foo"))
+                .remove(DATASOURCE)
+                .add(DATASOURCE, Values.of("jndi-name", "java:/A"))
+                .steps()));
+    }
+
+    @Test
+    public void optimizedBatchHasTheSameResult() throws Exception {
+        try (OnlineManagementClient client = ManagementClient.online(OnlineOptions.standalone()
+                .wrap(SimulatedModelControllerClient.standalone()))) {
+            Operations ops = new Operations(client);
+            Batch batch = new Batch()
+                    .add(FOO, Values.of("value", "a"))
+                    .writeAttribute(FOO, "value", "b")
+                    .writeAttribute(FOO, "value", "c")
+                    .add(BAR, Values.of("value", "x"))
+                    .remove(BAR)
+                    .add(BAR, Values.of("value", "x"))
+                    .undefineAttribute(FOO, "value")
+                    .writeAttribute(FOO, "value", "d");
+
+            assertEquals(3, batch.optimize().steps().size());
+            List<String> operations = new ArrayList<>();
+            for (ModelNode step : batch.steps()) {
+                operations.add(step.get(Constants.OP).asString());
+            }
+            assertEquals(Arrays.asList(Constants.ADD, Constants.ADD, Constants.WRITE_ATTRIBUTE_OPERATION), operations);
+
+            ops.batch(batch).assertSuccess();
+            assertEquals("d", ops.readAttribute(FOO, "value").stringValue());
+            assertEquals("x", ops.readAttribute(BAR, "value").stringValue());
+        }
+    }
+}
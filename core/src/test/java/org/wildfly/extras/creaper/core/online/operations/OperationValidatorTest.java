@@ -0,0 +1,133 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+import org.wildfly.extras.creaper.core.online.OperationListener;
+import org.wildfly.extras.creaper.core.online.ResourceDescriptionCache;
+import org.wildfly.extras.creaper.core.online.SimulatedModelControllerClient;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OperationValidatorTest {
+    private static final Address DATASOURCES = Address.subsystem("datasources");
+    private static final Address EXAMPLE_DS = DATASOURCES.and("data-source", "ExampleDS");
+
+    private final AtomicInteger writes = new AtomicInteger();
+
+    private OnlineManagementClient client;
+    private Operations ops;
+
+    @Before
+    public void connect() throws IOException {
+        ModelNode model = new ModelNode();
+        model.get(Constants.SUBSYSTEM, "datasources", "data-source", "ExampleDS", "jndi-name")
+                .set("java:jboss/datasources/ExampleDS");
+        model.get(Constants.SUBSYSTEM, "datasources", "data-source", "ExampleDS", "enabled").set(true);
+        model.get(Constants.SUBSYSTEM, "datasources", "data-source", "ExampleDS", "min-pool-size").set(5);
+
+        client = ManagementClient.online(OnlineOptions.standalone()
+                .operationListener(new OperationListener() {
+                    @Override
+                    public void operationExecuted(OperationEvent event) {
+                        if (!event.operationName().startsWith("read-")) {
+                            writes.incrementAndGet();
+                        }
+                    }
+                })
+                .wrap(new SimulatedModelControllerClient.Builder().model(model).build()));
+        ops = new Operations(client).validating(ResourceDescriptionCache.inMemory());
+    }
+
+    @After
+    public void close() throws IOException {
+        client.close();
+    }
+
+    @Test
+    public void validOperationsAreSent() throws IOException {
+        ops.writeAttribute(EXAMPLE_DS, "enabled", false).assertSuccess();
+        ops.writeAttribute(EXAMPLE_DS, "min-pool-size", "10").assertSuccess();
+        ops.writeAttribute(EXAMPLE_DS, "min-pool-size", "${min.pool.size:10}").assertSuccess();
+        ops.undefineAttribute(EXAMPLE_DS, "min-pool-size").assertSuccess();
+        ops.add(DATASOURCES.and("data-source", "OtherDS"), Values.of("jndi-name", "java:/OtherDS")).assertSuccess();
+        assertEquals(5, writes.get());
+    }
+
+    @Test
+    public void invalidBatchIsNotSent() throws IOException {
+        Batch batch = new Batch()
+                .add(DATASOURCES.and("data-source", "OtherDS"), Values.of("jndi-nam", "java:/OtherDS"))
+                .writeAttribute(EXAMPLE_DS, "enabled", "maybe")
+                .writeAttribute(EXAMPLE_DS, "max-pool-size", 10)
+                .add(DATASOURCES.and("xa-data-source", "XA"));
+        try {
+            ops.batch(batch);
+            fail("Invalid batch must not be sent");
+        } catch (OperationValidationException expected) {
+            assertEquals(4, expected.problems().size());
+            assertTrue(expected.problems().get(0).startsWith("step-1: "));
+            assertTrue(expected.problems().get(0).contains("unknown parameter 'jndi-nam'"));
+            assertTrue(expected.problems().get(1).contains("attribute 'enabled' must be BOOLEAN"));
+            assertTrue(expected.problems().get(2).contains("unknown attribute 'max-pool-size'"));
+            assertTrue(expected.problems().get(3).contains("no child type 'xa-data-source'"));
+        }
+        assertEquals(0, writes.get());
+    }
+
+    @Test
+    public void unknownOperation() throws IOException {
+        try {
+            ops.invoke("flush-all-connections-in-pool", EXAMPLE_DS);
+            fail("Unknown operation must not be sent");
+        } catch (OperationValidationException expected) {
+            assertTrue(expected.getMessage().contains("no such operation"));
+        }
+        assertEquals(0, writes.get());
+    }
+
+    @Test
+    public void siblingsRegisteredPerNameAreDescribedSeparately() throws IOException {
+        ModelNode model = new ModelNode();
+        model.get("core-service", "platform-mbean", "enabled").set(true);
+        model.get("core-service", "management", "process-type").set("standalone");
+        model.get("core-service", "management", "access", "authorization", "provider").set("simple");
+
+        try (OnlineManagementClient client = ManagementClient.online(OnlineOptions.standalone()
+                .wrap(new SimulatedModelControllerClient.Builder()
+                        .model(model)
+                        .registeredPerName("core-service")
+                        .build()))) {
+            Operations ops = new Operations(client).validating(ResourceDescriptionCache.inMemory());
+            Address management = Address.coreService("management");
+
+            ops.writeAttribute(management, "process-type", "domain").assertSuccess();
+            ops.writeAttribute(management.and("access", "authorization"), "provider", "rbac").assertSuccess();
+            ops.writeAttribute(Address.coreService("platform-mbean"), "enabled", false).assertSuccess();
+            try {
+                ops.writeAttribute(management, "enabled", false);
+                fail("Attribute of a sibling must not be accepted");
+            } catch (OperationValidationException expected) {
+                assertTrue(expected.getMessage().contains("unknown attribute 'enabled'"));
+            }
+        }
+    }
+
+    @Test
+    public void readsAndUnknownSubsystemsAreNotValidated() throws IOException, OperationException {
+        assertFalse(ops.exists(DATASOURCES.and("xa-data-source", "XA")));
+        assertFalse(ops.removeIfExists(DATASOURCES.and("xa-data-source", "XA")));
+        ops.add(Address.subsystem("foo"), Values.of("bar", "baz")).assertSuccess();
+    }
+}
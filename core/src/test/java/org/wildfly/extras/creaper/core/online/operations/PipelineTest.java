@@ -0,0 +1,86 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+import org.wildfly.extras.creaper.core.online.SimulatedModelControllerClient;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PipelineTest {
+    private static final int PROPERTIES = 100;
+    private static final long LATENCY_MILLIS = 20;
+
+    private OnlineManagementClient client;
+
+    @Before
+    public void connect() throws IOException {
+        client = ManagementClient.online(OnlineOptions.standalone()
+                .wrap(new SimulatedModelControllerClient.Builder()
+                        .latency(LATENCY_MILLIS, TimeUnit.MILLISECONDS)
+                        .build()));
+        Batch batch = new Batch();
+        for (int i = 0; i < PROPERTIES; i++) {
+            batch.add(Address.of("system-property", "prop" + i), Values.of("value", "value" + i));
+        }
+        new Operations(client).batch(batch).assertSuccess();
+    }
+
+    @After
+    public void close() throws IOException {
+        client.close();
+    }
+
+    @Test
+    public void resultsAreInOrder() throws Exception {
+        Pipeline pipeline = client.pipeline();
+        for (int i = 0; i < PROPERTIES; i++) {
+            pipeline.readAttribute(Address.of("system-property", "prop" + i), "value");
+        }
+        pipeline.readAttribute(Address.of("system-property", "missing"), "value");
+        pipeline.whoami();
+
+        long start = System.nanoTime();
+        List<ModelNodeResult> results = pipeline.await();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(PROPERTIES + 2, results.size());
+        for (int i = 0; i < PROPERTIES; i++) {
+            assertEquals("value" + i, results.get(i).stringValue());
+        }
+        results.get(PROPERTIES).assertFailed();
+        results.get(PROPERTIES + 1).assertSuccess();
+
+        // sequential execution would take PROPERTIES * LATENCY_MILLIS
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < PROPERTIES * LATENCY_MILLIS / 2);
+    }
+
+    @Test
+    public void maxInFlight() throws Exception {
+        Pipeline pipeline = client.pipeline().maxInFlight(1);
+        for (int i = 0; i < 5; i++) {
+            pipeline.readAttribute(Address.of("system-property", "prop" + i), "value");
+        }
+
+        List<ModelNodeResult> results = pipeline.await(10, TimeUnit.SECONDS);
+        assertEquals(5, results.size());
+        assertEquals("value4", results.get(4).stringValue());
+
+        // a pipeline can be sent again
+        assertEquals(results, pipeline.await());
+    }
+
+    @Test
+    public void emptyPipeline() throws Exception {
+        assertTrue(client.pipeline().await().isEmpty());
+    }
+}
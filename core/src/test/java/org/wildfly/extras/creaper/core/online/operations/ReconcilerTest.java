@@ -0,0 +1,150 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+import org.wildfly.extras.creaper.core.online.OperationListener;
+import org.wildfly.extras.creaper.core.online.SimulatedModelControllerClient;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReconcilerTest {
+    private static final Address DATASOURCES = Address.subsystem("datasources");
+    private static final Address APP_DS = DATASOURCES.and("data-source", "AppDS");
+    private static final Address URL_PROPERTY = APP_DS.and("connection-properties", "url");
+
+    private final List<String> executed = new CopyOnWriteArrayList<>();
+
+    private OnlineManagementClient client;
+    private Operations ops;
+
+    @Before
+    public void connect() throws IOException {
+        client = ManagementClient.online(OnlineOptions.standalone()
+                .operationListener(new OperationListener() {
+                    @Override
+                    public void operationExecuted(OperationEvent event) {
+                        executed.add(event.operationName());
+                    }
+                })
+                .wrap(SimulatedModelControllerClient.standalone()));
+        ops = new Operations(client);
+        executed.clear();
+    }
+
+    @After
+    public void close() throws IOException {
+        client.close();
+    }
+
+    @Test
+    public void missingResourcesAreAdded() throws Exception {
+        ModelNodeResult result = desiredState("20").reconcile(client);
+
+        result.assertSuccess();
+        assertEquals(3, result.batchStepCount());
+        assertEquals("java:/AppDS", ops.readAttribute(APP_DS, "jndi-name").stringValue());
+        assertEquals("jdbc:h2:mem:app", ops.readAttribute(URL_PROPERTY, "value").stringValue());
+    }
+
+    @Test
+    public void unchangedStateOnlyReads() throws Exception {
+        desiredState("20").reconcile(client).assertSuccess();
+        executed.clear();
+
+        ModelNodeResult result = desiredState("20").reconcile(client);
+
+        result.assertSuccess();
+        assertEquals(0, result.batchStepCount());
+        assertEquals(1, executed.size());
+        assertEquals(Constants.READ_RESOURCE_OPERATION, executed.get(0));
+    }
+
+    @Test
+    public void onlyChangedAttributesAreWritten() throws Exception {
+        desiredState("20").reconcile(client).assertSuccess();
+
+        // the server returns 20 as INT, but it was declared as a STRING; that's not a change
+        ops.writeAttribute(APP_DS, "max-pool-size", 20).assertSuccess();
+        assertEquals(0, desiredState("20").plan(client).steps().size());
+
+        Batch changes = desiredState("30").plan(client);
+        assertEquals(1, changes.steps().size());
+        ModelNode step = changes.steps().get(0);
+        assertEquals(Constants.WRITE_ATTRIBUTE_OPERATION, step.get(Constants.OP).asString());
+        assertEquals("max-pool-size", step.get(Constants.NAME).asString());
+
+        desiredState("30").reconcile(client).assertSuccess();
+        assertEquals("30", ops.readAttribute(APP_DS, "max-pool-size").stringValue());
+    }
+
+    @Test
+    public void undeclaredAndAbsentResourcesAreRemoved() throws Exception {
+        desiredState("20").reconcile(client).assertSuccess();
+        ops.add(DATASOURCES.and("data-source", "OldDS"), Values.of("jndi-name", "java:/OldDS")).assertSuccess();
+        ops.add(DATASOURCES.and("xa-data-source", "XaDS"), Values.of("jndi-name", "java:/XaDS")).assertSuccess();
+
+        desiredState("20")
+                .exclusive(DATASOURCES, "data-source")
+                .absent(DATASOURCES.and("xa-data-source", "XaDS"))
+                .absent(DATASOURCES.and("xa-data-source", "NeverExisted"))
+                .reconcile(client)
+                .assertSuccess();
+
+        assertFalse(ops.exists(DATASOURCES.and("data-source", "OldDS")));
+        assertFalse(ops.exists(DATASOURCES.and("xa-data-source", "XaDS")));
+        assertTrue(ops.exists(APP_DS));
+    }
+
+    @Test
+    public void onlyDeclaredKeysOfObjectsAreCompared() throws Exception {
+        desiredState("20").reconcile(client).assertSuccess();
+        ModelNode current = new ModelNode();
+        current.get("min").set(1);
+        current.get("max").set(10);
+        ops.writeAttribute(APP_DS, "pool", current).assertSuccess();
+
+        ModelNode declared = new ModelNode();
+        declared.get("max").set(10);
+        declared.get("flush");
+        Reconciler reconciler = desiredState("20").resource(APP_DS, Values.of("pool", declared));
+        assertEquals(0, reconciler.plan(client).steps().size());
+
+        declared.get("max").set(20);
+        reconciler = desiredState("20").resource(APP_DS, Values.of("pool", declared));
+        assertEquals(1, reconciler.plan(client).steps().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void presentResourceUnderAbsentAncestorIsRejected() {
+        new Reconciler().absent(APP_DS).resource(URL_PROPERTY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void absentAncestorOfPresentResourceIsRejected() {
+        new Reconciler().resource(URL_PROPERTY).absent(DATASOURCES);
+    }
+
+    private static Reconciler desiredState(String maxPoolSize) {
+        return new Reconciler()
+                .resource(URL_PROPERTY, Values.of("value", "jdbc:h2:mem:app"))
+                .resource(APP_DS, Values.builder()
+                        .and("jndi-name", "java:/AppDS")
+                        .and("driver-name", "h2")
+                        .and("max-pool-size", maxPoolSize)
+                        .build())
+                .resource(DATASOURCES);
+    }
+}
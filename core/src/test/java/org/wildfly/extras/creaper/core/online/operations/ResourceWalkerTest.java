@@ -0,0 +1,131 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+import org.wildfly.extras.creaper.core.online.SimulatedModelControllerClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class ResourceWalkerTest {
+    private static final Address DATASOURCES = Address.subsystem("datasources");
+
+    private OnlineManagementClient client;
+    private Operations ops;
+
+    @Before
+    public void connect() throws IOException {
+        client = ManagementClient.online(OnlineOptions.standalone().wrap(SimulatedModelControllerClient.standalone()));
+        ops = new Operations(client);
+        ops.add(DATASOURCES).assertSuccess();
+        ops.add(DATASOURCES.and("data-source", "FooDS"), Values.of("jndi-name", "java:/FooDS")).assertSuccess();
+        ops.add(DATASOURCES.and("data-source", "FooDS").and("connection-properties", "url"),
+                Values.of("value", "jdbc:foo")).assertSuccess();
+        ops.add(DATASOURCES.and("data-source", "BarDS"), Values.of("jndi-name", "java:/BarDS")).assertSuccess();
+        ops.add(DATASOURCES.and("xa-data-source", "XaDS"), Values.of("jndi-name", "java:/XaDS")).assertSuccess();
+    }
+
+    @After
+    public void close() throws IOException {
+        client.close();
+    }
+
+    @Test
+    public void visitsResourcesDepthFirst() throws Exception {
+        List<String> events = new ArrayList<>();
+        ops.walk(DATASOURCES, new ResourceVisitor() {
+            @Override
+            public Result visit(Address address, ModelNode attributes) {
+                events.add("visit " + address.getLastPairValue() + " " + attributes.keys());
+                return Result.CONTINUE;
+            }
+
+            @Override
+            public void postVisit(Address address) {
+                events.add("post " + address.getLastPairValue());
+            }
+        }, ReadResourceOption.RECURSIVE);
+
+        assertEquals(Arrays.asList(
+                "visit datasources []",
+                "visit FooDS [jndi-name]",
+                "visit url [value]",
+                "post url",
+                "post FooDS",
+                "visit BarDS [jndi-name]",
+                "post BarDS",
+                "visit XaDS [jndi-name]",
+                "post XaDS",
+                "post datasources"
+        ), events);
+    }
+
+    @Test
+    public void skipsSubtrees() throws Exception {
+        List<String> visited = new ArrayList<>();
+        ops.walk(DATASOURCES, new ResourceVisitor() {
+            @Override
+            public boolean shouldVisit(Address address) {
+                return !"XaDS".equals(address.getLastPairValue());
+            }
+
+            @Override
+            public Result visit(Address address, ModelNode attributes) {
+                visited.add(address.getLastPairValue());
+                return "FooDS".equals(address.getLastPairValue()) ? Result.SKIP_SUBTREE : Result.CONTINUE;
+            }
+        });
+
+        assertEquals(Arrays.asList("datasources", "FooDS", "BarDS"), visited);
+    }
+
+    @Test
+    public void terminates() throws Exception {
+        List<String> visited = new ArrayList<>();
+        ops.walk(DATASOURCES, (address, attributes) -> {
+            visited.add(address.getLastPairValue());
+            return "url".equals(address.getLastPairValue())
+                    ? ResourceVisitor.Result.TERMINATE : ResourceVisitor.Result.CONTINUE;
+        });
+
+        assertEquals(Arrays.asList("datasources", "FooDS", "url"), visited);
+    }
+
+    @Test
+    public void resourceRemovedDuringWalkIsSkipped() throws Exception {
+        List<String> visited = new ArrayList<>();
+        ops.walk(DATASOURCES, (address, attributes) -> {
+            visited.add(address.getLastPairValue());
+            if ("FooDS".equals(address.getLastPairValue())) {
+                ops.remove(DATASOURCES.and("data-source", "BarDS")).assertSuccess();
+            }
+            return ResourceVisitor.Result.CONTINUE;
+        });
+
+        assertEquals(Arrays.asList("datasources", "FooDS", "url", "XaDS"), visited);
+    }
+
+    @Test
+    public void missingRootFails() throws Exception {
+        try {
+            ops.walk(Address.subsystem("missing"), (address, attributes) -> {
+                fail("Nothing should be visited");
+                return ResourceVisitor.Result.CONTINUE;
+            });
+            fail("Walking a missing resource should fail");
+        } catch (OperationException expected) {
+            assertFalse(expected.getMessage().isEmpty());
+        }
+    }
+}
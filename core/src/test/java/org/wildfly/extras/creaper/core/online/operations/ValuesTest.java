@@ -1,11 +1,14 @@
 package org.wildfly.extras.creaper.core.online.operations;
 
 import com.google.common.collect.ImmutableMap;
+import org.jboss.dmr.ModelNode;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 public class ValuesTest {
     @Test
@@ -42,4 +45,44 @@ public class ValuesTest {
         assertNotNull(Values.fromMap(ImmutableMap.of("foo", "bar", "baz", "quux")));
         assertEquals(2, Values.fromMap(ImmutableMap.of("foo", "bar", "baz", "quux")).size());
     }
+
+    @Test
+    public void builder() {
+        Values values = Values.builder()
+                .and("foo", "bar")
+                .andOptional("missing", (String) null)
+                .andList("baz", 1, 2, 3)
+                .andObject("qux", Values.of("a", "b"))
+                .andObjectOptional("missingObject", null)
+                .build();
+        assertEquals(3, values.size());
+
+        ModelNode expected = new ModelNode();
+        Values.of("foo", "bar").andList("baz", 1, 2, 3).andObject("qux", Values.of("a", "b")).addToModelNode(expected);
+        ModelNode actual = new ModelNode();
+        values.addToModelNode(actual);
+        assertEquals(expected, actual);
+
+        assertSame(Values.empty(), Values.builder().build());
+    }
+
+    @Test
+    public void builderCanOnlyBeBuiltOnce() {
+        Values.Builder builder = Values.builder().and("foo", "bar");
+        Values values = builder.build();
+
+        try {
+            builder.and("baz", "quux");
+            fail("Builder must not be usable after build()");
+        } catch (IllegalStateException expected) {
+            assertEquals(1, values.size());
+        }
+
+        try {
+            builder.build();
+            fail("Builder must not be usable after build()");
+        } catch (IllegalStateException expected) {
+            assertEquals(1, values.size());
+        }
+    }
 }